@@ -0,0 +1,53 @@
+package com.villagerreroller.automation;
+
+import com.villagerreroller.stats.BenchmarkFixtures;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// The cube sweeps of a reroll cycle, finding the villager's workstation
+// past the reserved ones and a free spot to put it back, over the fixed
+// trading hall the in-game benchmark uses
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BlockSweepBenchmark {
+
+    private BlockView hall;
+
+    @Setup
+    public void setUp() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+        hall = BenchmarkFixtures.tradingHall();
+    }
+
+    @Benchmark
+    public BlockPos jobSiteSweep() {
+        return JobSiteHandler.findJobSiteBlock(
+            hall,
+            BenchmarkFixtures.HALL_CENTER,
+            BenchmarkFixtures.JOB_SITE_REACH,
+            BenchmarkFixtures.JOB_SITE_VERTICAL_REACH,
+            BenchmarkFixtures.RESERVED_JOB_SITES
+        );
+    }
+
+    @Benchmark
+    public BlockPos placementSweep() {
+        return JobSiteHandler.findPlacementPosition(
+            hall,
+            BenchmarkFixtures.HALL_CENTER,
+            BenchmarkFixtures.PLACEMENT_REACH
+        );
+    }
+}
@@ -0,0 +1,35 @@
+package com.villagerreroller.automation;
+
+import java.util.concurrent.TimeUnit;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// One pickup tick of JobSiteHandler: stuck tracking, aiming and the step
+// towards the drop, on the same simulated walk PickupSteeringTest checks
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PickupSteeringBenchmark {
+
+    private PickupSimulation walk;
+
+    @Setup
+    public void setUp() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+        walk = new PickupSimulation(new JobSiteHandler());
+    }
+
+    @Benchmark
+    public double pickupTick() {
+        walk.tick();
+        return walk.distance();
+    }
+}
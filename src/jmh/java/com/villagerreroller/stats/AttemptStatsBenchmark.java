@@ -0,0 +1,70 @@
+package com.villagerreroller.stats;
+
+import com.villagerreroller.automation.RerollController;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// What every reroll attempt records, and what the overlay and the metrics
+// exporter read back from a full attempt history
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AttemptStatsBenchmark {
+
+    // Same sizes as StatisticsTracker
+    private static final int HISTORY_SIZE = 4096;
+    private static final int STATES =
+        RerollController.RerollState.values().length;
+    private static final int STOP_REASONS =
+        RerollController.StopReason.values().length;
+    private static final AttemptTimeSeries.Outcome[] OUTCOMES =
+        AttemptTimeSeries.Outcome.values();
+
+    private AttemptTimeSeries attempts;
+    private SessionMetrics metrics;
+    private final long[] phaseMs = new long[STATES];
+    private long now;
+    private int attempt;
+
+    @Setup
+    public void setUp() {
+        attempts = new AttemptTimeSeries(HISTORY_SIZE, STATES);
+        metrics = new SessionMetrics(OUTCOMES.length, STOP_REASONS, STATES);
+        now = 0;
+        attempt = 0;
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            recordAttempt();
+        }
+    }
+
+    @Benchmark
+    public long recordAttempt() {
+        attempt++;
+        now += 1500 + attempt % 700;
+        for (int i = 0; i < phaseMs.length; i++) {
+            phaseMs[i] = (attempt + i * 37) % 400;
+        }
+        AttemptTimeSeries.Outcome outcome = OUTCOMES[attempt % 3];
+        long cycleMs = 900 + attempt % 1200;
+        int targetPrice = attempt % 5 == 0 ? 10 + attempt % 50 : -1;
+        attempts.record(now, cycleMs, phaseMs, outcome, targetPrice);
+        metrics.recordAttempt(outcome.ordinal(), cycleMs, phaseMs);
+        return now;
+    }
+
+    @Benchmark
+    public int cyclePercentile() {
+        return attempts.getCyclePercentile(95, 0);
+    }
+
+    @Benchmark
+    public double successRate() {
+        return attempts.getSuccessRate(now, TimeUnit.HOURS.toMillis(1));
+    }
+}
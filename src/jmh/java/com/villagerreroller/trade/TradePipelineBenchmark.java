@@ -0,0 +1,91 @@
+package com.villagerreroller.trade;
+
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.config.ModConfig;
+import com.villagerreroller.stats.BenchmarkFixtures;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.registry.BuiltinRegistries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.village.TradeOffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// What happens to every trade screen a reroll opens: scanning the offers,
+// filtering them against the targets and scoring them, over the same
+// librarian screens the in-game benchmark uses and the default config
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TradePipelineBenchmark {
+
+    private List<List<TradeOffer>> offerSets;
+    private List<List<TradeScanner.ScannedTrade>> tradeSets;
+    private TradeFilter filter;
+    private TradeEvaluator evaluator;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        List<RegistryEntry<Enchantment>> enchantments = new ArrayList<>();
+        BuiltinRegistries.createWrapperLookup()
+            .getOrThrow(RegistryKeys.ENCHANTMENT)
+            .streamEntries()
+            .forEach(enchantments::add);
+        offerSets = BenchmarkFixtures.offerSets(enchantments);
+        tradeSets = new ArrayList<>();
+        for (List<TradeOffer> offers : offerSets) {
+            tradeSets.add(BenchmarkFixtures.scan(offers));
+        }
+
+        ConfigSnapshot config = ConfigSnapshot.of(new ModConfig(), "default");
+        filter = config.getTradeFilter();
+        evaluator = config.getTradeEvaluator();
+        next = 0;
+    }
+
+    @Benchmark
+    public int scan() {
+        List<TradeOffer> offers = offerSets.get(next++ % offerSets.size());
+        int total = 0;
+        for (int i = 0; i < offers.size(); i++) {
+            total += new TradeScanner.ScannedTrade(i, offers.get(i))
+                .getEmeraldCost();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int filterTrades() {
+        return filter
+            .filterTrades(
+                tradeSets.get(next++ % tradeSets.size()),
+                BenchmarkFixtures.PROFESSION
+            )
+            .size();
+    }
+
+    @Benchmark
+    public int evaluateTrade() {
+        int total = 0;
+        for (TradeScanner.ScannedTrade trade : tradeSets.get(
+            next++ % tradeSets.size()
+        )) {
+            total += evaluator.evaluateTrade(trade).getScore();
+        }
+        return total;
+    }
+}
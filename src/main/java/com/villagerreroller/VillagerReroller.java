@@ -1,11 +1,35 @@
 package com.villagerreroller;
 
+import com.villagerreroller.automation.InteractionBudget;
 import com.villagerreroller.automation.RerollController;
+import com.villagerreroller.automation.RerollQueue;
+import com.villagerreroller.automation.SurveyController;
 import com.villagerreroller.config.ConfigManager;
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.config.ConfigWatcher;
+import com.villagerreroller.config.ProfileCycler;
+import com.villagerreroller.replay.SessionRecorder;
+import com.villagerreroller.stats.EventStream;
+import com.villagerreroller.stats.MetricsExporter;
+import com.villagerreroller.stats.PipelineBenchmark;
 import com.villagerreroller.stats.StatisticsTracker;
+import com.villagerreroller.stats.TickCostMeter;
+import com.villagerreroller.trade.CatalogStore;
+import com.villagerreroller.trade.LibrarianEnchantments;
+import com.villagerreroller.trade.OfferCatalog;
 import com.villagerreroller.ui.OverlayRenderer;
+import com.villagerreroller.util.BackgroundIO;
+import com.villagerreroller.util.CommandManager;
 import com.villagerreroller.util.KeybindManager;
+import com.villagerreroller.util.NotificationHelper;
+import com.villagerreroller.util.NotificationQueue;
+import com.villagerreroller.util.VillagerTracker;
+import java.nio.file.Path;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,29 +40,98 @@ public class VillagerReroller implements ClientModInitializer {
     public static final Logger LOGGER = LoggerFactory.getLogger(MOD_NAME);
 
     private static VillagerReroller instance;
+    private BackgroundIO backgroundIO;
     private ConfigManager configManager;
+    private ConfigWatcher configWatcher;
+    private NotificationQueue notificationQueue;
+    private volatile ConfigSnapshot configSnapshot;
+    private ProfileCycler profileCycler;
+    private boolean activeProfileUnsaved = false;
     private RerollController rerollController;
     private StatisticsTracker statisticsTracker;
+    private TickCostMeter tickCostMeter;
+    private EventStream eventStream;
+    private MetricsExporter metricsExporter;
+    private SessionRecorder sessionRecorder;
+    private PipelineBenchmark pipelineBenchmark;
     private KeybindManager keybindManager;
+    private CommandManager commandManager;
     private OverlayRenderer overlayRenderer;
+    private OfferCatalog offerCatalog;
+    private CatalogStore catalogStore;
+    private InteractionBudget interactionBudget;
+    private SurveyController surveyController;
+    private VillagerTracker villagerTracker;
+    private RerollQueue rerollQueue;
 
     @Override
     public void onInitializeClient() {
         instance = this;
         LOGGER.info("Initializing {} mod...", MOD_NAME);
 
+        backgroundIO = new BackgroundIO();
+        notificationQueue = new NotificationQueue();
+        notificationQueue.register();
+
         configManager = new ConfigManager();
         configManager.load();
+        profileCycler = new ProfileCycler(configManager);
+        publishConfig();
+
+        configWatcher = new ConfigWatcher(
+            getConfigFile(),
+            () -> MinecraftClient.getInstance().execute(this::reloadConfig)
+        );
+        configWatcher.start();
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            if (activeProfileUnsaved) {
+                saveConfig();
+            }
+            configWatcher.stop();
+        });
+
+        statisticsTracker = new StatisticsTracker(backgroundIO);
+        tickCostMeter = new TickCostMeter(statisticsTracker.getMetrics());
+        tickCostMeter.register();
+        eventStream = new EventStream();
+        eventStream.register();
+        metricsExporter = new MetricsExporter(statisticsTracker.getMetrics());
+        metricsExporter.register();
+        sessionRecorder = new SessionRecorder(backgroundIO);
+        sessionRecorder.register();
+        pipelineBenchmark = new PipelineBenchmark();
+        pipelineBenchmark.register();
+
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            LibrarianEnchantments.rebuild(handler.getRegistryManager());
+            publishConfig();
+        });
 
-        statisticsTracker = new StatisticsTracker();
+        offerCatalog = new OfferCatalog();
+        catalogStore = new CatalogStore(offerCatalog, backgroundIO);
+        catalogStore.register();
+        interactionBudget = new InteractionBudget();
+        villagerTracker = new VillagerTracker();
+        villagerTracker.register();
 
         rerollController = new RerollController();
+        surveyController = new SurveyController(
+            offerCatalog,
+            interactionBudget
+        );
+        rerollQueue = new RerollQueue(rerollController, villagerTracker);
 
         keybindManager = new KeybindManager();
         keybindManager.register();
 
+        commandManager = new CommandManager();
+        commandManager.register();
+
         overlayRenderer = new OverlayRenderer();
 
+        // Last, so its shutdown flush drains what the listeners above queue
+        backgroundIO.register();
+
         LOGGER.info("{} mod initialized successfully!", MOD_NAME);
     }
 
@@ -46,10 +139,78 @@ public class VillagerReroller implements ClientModInitializer {
         return instance;
     }
 
+    public BackgroundIO getBackgroundIO() {
+        return backgroundIO;
+    }
+
     public ConfigManager getConfigManager() {
         return configManager;
     }
 
+    public ConfigSnapshot getConfigSnapshot() {
+        return configSnapshot;
+    }
+
+    // Rebuilds the snapshot from the mutable config; call after every change
+    // to it, including a registry reload since compiled filters resolve
+    // enchantment indices.
+    public void publishConfig() {
+        profileCycler.rebuild();
+        configSnapshot = profileCycler.getOrDefault(
+            configManager.getConfig().getActiveProfile()
+        );
+    }
+
+    // Stays on the calling thread: ConfigManager owns the config and
+    // profile file formats, and saving it from the I/O thread would race
+    // with changes to the live config. Saves only follow user actions.
+    public void saveConfig() {
+        configWatcher.ignoreOwnWrite();
+        configManager.save();
+        activeProfileUnsaved = false;
+        publishConfig();
+    }
+
+    private static Path getConfigFile() {
+        return FabricLoader.getInstance()
+            .getConfigDir()
+            .resolve(MOD_ID)
+            .resolve("config.json");
+    }
+
+    // Swaps in an already compiled profile; the choice is written with the
+    // next config save instead of touching disk mid-session.
+    public boolean switchProfile(String name) {
+        ConfigSnapshot snapshot = profileCycler.get(name);
+        if (snapshot == null) {
+            return false;
+        }
+
+        configManager.getConfig().setActiveProfile(name);
+        configSnapshot = snapshot;
+        activeProfileUnsaved = true;
+        LOGGER.info("Switched to profile {}", name);
+        return true;
+    }
+
+    public String cycleProfile() {
+        String next = profileCycler.next(configSnapshot.getActiveProfile());
+        switchProfile(next);
+        return next;
+    }
+
+    public ProfileCycler getProfileCycler() {
+        return profileCycler;
+    }
+
+    private void reloadConfig() {
+        configManager.load();
+        profileCycler = new ProfileCycler(configManager);
+        publishConfig();
+        LOGGER.info("Reloaded configuration from disk");
+        NotificationHelper.sendMessage("Config reloaded from disk");
+    }
+
     public RerollController getRerollController() {
         return rerollController;
     }
@@ -58,7 +219,55 @@ public class VillagerReroller implements ClientModInitializer {
         return statisticsTracker;
     }
 
+    public NotificationQueue getNotificationQueue() {
+        return notificationQueue;
+    }
+
+    public EventStream getEventStream() {
+        return eventStream;
+    }
+
+    public MetricsExporter getMetricsExporter() {
+        return metricsExporter;
+    }
+
+    public SessionRecorder getSessionRecorder() {
+        return sessionRecorder;
+    }
+
+    public PipelineBenchmark getPipelineBenchmark() {
+        return pipelineBenchmark;
+    }
+
+    public TickCostMeter getTickCostMeter() {
+        return tickCostMeter;
+    }
+
+    public OverlayRenderer getOverlayRenderer() {
+        return overlayRenderer;
+    }
+
     public KeybindManager getKeybindManager() {
         return keybindManager;
     }
+
+    public OfferCatalog getOfferCatalog() {
+        return offerCatalog;
+    }
+
+    public InteractionBudget getInteractionBudget() {
+        return interactionBudget;
+    }
+
+    public SurveyController getSurveyController() {
+        return surveyController;
+    }
+
+    public VillagerTracker getVillagerTracker() {
+        return villagerTracker;
+    }
+
+    public RerollQueue getRerollQueue() {
+        return rerollQueue;
+    }
 }
@@ -0,0 +1,46 @@
+package com.villagerreroller.automation;
+
+import com.villagerreroller.VillagerReroller;
+
+public class InteractionBudget {
+
+    private static final double INTERACTIONS_PER_SECOND = 5.0;
+    private static final double FRIENDLY_INTERACTIONS_PER_SECOND = 2.0;
+    private static final double BURST = 2.0;
+
+    private double tokens = BURST;
+    private long lastRefillTime = System.currentTimeMillis();
+    private volatile long totalInteractions = 0;
+
+    public boolean tryAcquire() {
+        refill();
+
+        if (tokens < 1.0) {
+            return false;
+        }
+
+        tokens -= 1.0;
+        totalInteractions++;
+        return true;
+    }
+
+    public long getTotalInteractions() {
+        return totalInteractions;
+    }
+
+    private void refill() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - lastRefillTime;
+        lastRefillTime = now;
+
+        tokens = Math.min(BURST, tokens + elapsed * getRatePerSecond() / 1000.0);
+    }
+
+    private double getRatePerSecond() {
+        return VillagerReroller.getInstance()
+                .getConfigSnapshot()
+                .isServerFriendlyThrottling()
+            ? FRIENDLY_INTERACTIONS_PER_SECOND
+            : INTERACTIONS_PER_SECOND;
+    }
+}
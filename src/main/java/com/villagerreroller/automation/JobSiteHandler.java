@@ -1,9 +1,16 @@
 package com.villagerreroller.automation;
 
 import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.stats.FlightEvents;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -16,17 +23,21 @@ import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.item.AxeItem;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.Hand;
+import net.minecraft.util.TypeFilter;
 import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 
 public class JobSiteHandler {
 
     private final MinecraftClient client;
     private final Map<BlockPos, Block> rememberedBlocks;
+    private final ExecutorService placementSearchExecutor;
     private BlockPos lastBrokenPos = null;
     private long lastBreakTime = 0;
     private ItemEntity droppedItem = null;
@@ -36,12 +47,22 @@ public class JobSiteHandler {
     private int breakingTickCount = 0;
     private int originalHotbarSlot = -1;
 
-    private Vec3d lastPlayerPos = null;
-    private long lastProgressTime = 0;
-    private double lastDistanceToItem = Double.MAX_VALUE;
-    private int stuckTicks = 0;
+    // Pickup runs every tick, so its scratch state is kept on the handler
+    // rather than rebuilt per call
+    private final List<ItemEntity> nearbyDrops = new ArrayList<>();
+    private final Predicate<ItemEntity> isPickupDrop = item ->
+        Block.getBlockFromItem(item.getStack().getItem()) == pickupBlock;
+    private Block pickupBlock = null;
+    private BlockPos pickupSearchCenter = null;
+    private Box pickupSearchBox = null;
+    private final PickupSteering steering = new PickupSteering();
+    private double pickupStartDistance = -1;
+    private boolean warnedFarDrop = false;
+    private final PlayerBody playerBody = new PlayerBody();
     private BlockPos blockToAvoid = null;
 
+    private static final TypeFilter<Entity, ItemEntity> ITEM_ENTITIES =
+        TypeFilter.instanceOf(ItemEntity.class);
     private static final Block[] JOB_SITE_BLOCKS = {
         Blocks.LECTERN,
         Blocks.BLAST_FURNACE,
@@ -57,18 +78,45 @@ public class JobSiteHandler {
         Blocks.SMITHING_TABLE,
         Blocks.GRINDSTONE,
     };
+    private static final Map<String, Block> PROFESSION_WORKSTATIONS =
+        Map.ofEntries(
+            Map.entry("minecraft:librarian", Blocks.LECTERN),
+            Map.entry("minecraft:armorer", Blocks.BLAST_FURNACE),
+            Map.entry("minecraft:butcher", Blocks.SMOKER),
+            Map.entry("minecraft:cartographer", Blocks.CARTOGRAPHY_TABLE),
+            Map.entry("minecraft:cleric", Blocks.BREWING_STAND),
+            Map.entry("minecraft:farmer", Blocks.COMPOSTER),
+            Map.entry("minecraft:fisherman", Blocks.BARREL),
+            Map.entry("minecraft:fletcher", Blocks.FLETCHING_TABLE),
+            Map.entry("minecraft:leatherworker", Blocks.CAULDRON),
+            Map.entry("minecraft:mason", Blocks.STONECUTTER),
+            Map.entry("minecraft:shepherd", Blocks.LOOM),
+            Map.entry("minecraft:toolsmith", Blocks.SMITHING_TABLE),
+            Map.entry("minecraft:weaponsmith", Blocks.GRINDSTONE)
+        );
+
+    // Placed instead of whatever comes first in the inventory, and swapped
+    // in when the villager took a job from some other workstation
+    private Block preferredWorkstation = null;
 
     public JobSiteHandler() {
         this.client = MinecraftClient.getInstance();
         this.rememberedBlocks = new HashMap<>();
+        this.placementSearchExecutor = Executors.newSingleThreadExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "VTR Placement Search");
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
     }
 
     public boolean isJobSiteBlock(BlockPos pos) {
         World world = client.world;
-        if (world == null) {
-            return false;
-        }
+        return world != null && isJobSiteBlock(world, pos);
+    }
 
+    private static boolean isJobSiteBlock(BlockView world, BlockPos pos) {
         Block block = world.getBlockState(pos).getBlock();
 
         for (Block jobSiteBlock : JOB_SITE_BLOCKS) {
@@ -80,6 +128,187 @@ public class JobSiteHandler {
         return false;
     }
 
+    public BlockPos findJobSiteBlock(
+        BlockPos center,
+        int horizontalReach,
+        int verticalReach
+    ) {
+        return findJobSiteBlock(
+            center,
+            horizontalReach,
+            verticalReach,
+            Set.of()
+        );
+    }
+
+    public BlockPos findJobSiteBlock(
+        BlockPos center,
+        int horizontalReach,
+        int verticalReach,
+        Set<BlockPos> excluded
+    ) {
+        World world = client.world;
+        if (world == null) {
+            return null;
+        }
+        return findJobSiteBlock(
+            world,
+            center,
+            horizontalReach,
+            verticalReach,
+            excluded
+        );
+    }
+
+    // The workstation nearest the center, skipping the excluded positions:
+    // in a packed hall the first one in scan order is as likely to belong
+    // to a neighbor as to the villager at the center.
+    public static BlockPos findJobSiteBlock(
+        BlockView world,
+        BlockPos center,
+        int horizontalReach,
+        int verticalReach,
+        Set<BlockPos> excluded
+    ) {
+        FlightEvents.BlockSearch event = FlightEvents.beginBlockSearch(
+            "jobSite",
+            horizontalReach
+        );
+        int candidates = 0;
+        BlockPos nearest = null;
+        int nearestDistanceSq = Integer.MAX_VALUE;
+        for (int x = -horizontalReach; x <= horizontalReach; x++) {
+            for (int y = -verticalReach; y <= verticalReach; y++) {
+                for (int z = -horizontalReach; z <= horizontalReach; z++) {
+                    int distanceSq = x * x + y * y + z * z;
+                    if (distanceSq >= nearestDistanceSq) {
+                        continue;
+                    }
+                    BlockPos pos = center.add(x, y, z);
+                    candidates++;
+                    if (
+                        isJobSiteBlock(world, pos) &&
+                        !excluded.contains(pos)
+                    ) {
+                        nearest = pos;
+                        nearestDistanceSq = distanceSq;
+                    }
+                }
+            }
+        }
+        return endSearch(event, candidates, nearest);
+    }
+
+    // Walks outwards ring by ring: the floor-level ring of each radius first,
+    // then the full layer above it.
+    public BlockPos findPlacementPosition(BlockPos center, int maxRadius) {
+        return sweepPlacement(
+            "placement",
+            center,
+            maxRadius,
+            this::isValidPlacementPosition
+        );
+    }
+
+    // The same sweep over a copy of the blocks alone, for callers that
+    // bring their own world
+    public static BlockPos findPlacementPosition(
+        BlockView world,
+        BlockPos center,
+        int maxRadius
+    ) {
+        PlacementSnapshot snapshot = PlacementSnapshot.capture(
+            world,
+            List.of(),
+            center,
+            maxRadius
+        );
+        return sweepPlacement(
+            "placementSnapshot",
+            center.toImmutable(),
+            maxRadius,
+            snapshot::isValid
+        );
+    }
+
+    // Copies the blocks and entities around the center on this thread and
+    // runs the same sweep against the copy on the search thread, so a large
+    // reach costs no frame time. Completes with null when nothing fits.
+    public CompletableFuture<BlockPos> findPlacementPositionAsync(
+        BlockPos center,
+        int maxRadius
+    ) {
+        World world = client.world;
+        if (world == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        PlacementSnapshot snapshot = PlacementSnapshot.capture(
+            world,
+            center,
+            maxRadius
+        );
+        BlockPos origin = center.toImmutable();
+        return CompletableFuture.supplyAsync(
+            () ->
+                sweepPlacement(
+                    "placementSnapshot",
+                    origin,
+                    maxRadius,
+                    snapshot::isValid
+                ),
+            placementSearchExecutor
+        );
+    }
+
+    private static BlockPos sweepPlacement(
+        String kind,
+        BlockPos center,
+        int maxRadius,
+        Predicate<BlockPos> isValid
+    ) {
+        FlightEvents.BlockSearch event = FlightEvents.beginBlockSearch(
+            kind,
+            maxRadius
+        );
+        int candidates = 0;
+        for (int radius = 1; radius <= maxRadius; radius++) {
+            for (int y = 0; y <= 1; y++) {
+                for (int x = -radius; x <= radius; x++) {
+                    for (int z = -radius; z <= radius; z++) {
+                        if (
+                            y == 0 &&
+                            Math.abs(x) != radius &&
+                            Math.abs(z) != radius
+                        ) {
+                            continue;
+                        }
+
+                        BlockPos pos = center.add(x, y, z);
+                        candidates++;
+                        if (isValid.test(pos)) {
+                            return endSearch(event, candidates, pos);
+                        }
+                    }
+                }
+            }
+        }
+        return endSearch(event, candidates, null);
+    }
+
+    private static BlockPos endSearch(
+        FlightEvents.BlockSearch event,
+        int candidates,
+        BlockPos found
+    ) {
+        if (event != null) {
+            event.candidates = candidates;
+            event.found = found != null;
+            event.commit();
+        }
+        return found;
+    }
+
     public boolean startBreakingJobSite(BlockPos pos) {
         ClientPlayerInteractionManager interactionManager =
             client.interactionManager;
@@ -244,6 +473,14 @@ public class JobSiteHandler {
     }
 
     public boolean replaceJobSite(BlockPos originalPos) {
+        FlightEvents.Placement event = FlightEvents.beginPlacement(
+            "replace",
+            originalPos
+        );
+        return endPlacement(event, placeReplacement(originalPos));
+    }
+
+    private boolean placeReplacement(BlockPos originalPos) {
         ClientPlayerInteractionManager interactionManager =
             client.interactionManager;
         ClientPlayerEntity player = client.player;
@@ -265,6 +502,21 @@ public class JobSiteHandler {
             return false;
         }
 
+        if (
+            preferredWorkstation != null &&
+            block != preferredWorkstation &&
+            findBlockInInventory(preferredWorkstation) != -1
+        ) {
+            VillagerReroller.LOGGER.info(
+                "Swapping {} at {} for {}",
+                block,
+                originalPos,
+                preferredWorkstation
+            );
+            block = preferredWorkstation;
+            rememberedBlocks.put(originalPos, block);
+        }
+
         int slot = findBlockInInventory(block);
         if (slot == -1) {
             VillagerReroller.LOGGER.warn(
@@ -434,6 +686,57 @@ public class JobSiteHandler {
         }
     }
 
+    // The workstation of the first profession the player carries one for.
+    // Falls back to the first profession's even when none is carried, so
+    // callers can say what is missing; null when no profession is given.
+    public Block selectWorkstation(List<String> professions) {
+        Block fallback = null;
+        for (String profession : professions) {
+            Block workstation = PROFESSION_WORKSTATIONS.get(profession);
+            if (workstation == null) {
+                continue;
+            }
+            if (findBlockInInventory(workstation) != -1) {
+                return workstation;
+            }
+            if (fallback == null) {
+                fallback = workstation;
+            }
+        }
+        return fallback;
+    }
+
+    public void setPreferredWorkstation(Block block) {
+        this.preferredWorkstation = block;
+    }
+
+    public Block getPreferredWorkstation() {
+        return preferredWorkstation;
+    }
+
+    public boolean hasPreferredWorkstation() {
+        return (
+            preferredWorkstation != null &&
+            findBlockInInventory(preferredWorkstation) != -1
+        );
+    }
+
+    public int countInInventory(Block block) {
+        ClientPlayerEntity player = client.player;
+        if (player == null || block == null) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int i = 0; i < player.getInventory().size(); i++) {
+            ItemStack stack = player.getInventory().getStack(i);
+            if (Block.getBlockFromItem(stack.getItem()) == block) {
+                count += stack.getCount();
+            }
+        }
+        return count;
+    }
+
     private int findBlockInInventory(Block block) {
         ClientPlayerEntity player = client.player;
         if (player == null) {
@@ -455,6 +758,25 @@ public class JobSiteHandler {
     }
 
     public boolean placeInitialJobSite(BlockPos pos) {
+        FlightEvents.Placement event = FlightEvents.beginPlacement(
+            "initial",
+            pos
+        );
+        return endPlacement(event, placeInitial(pos));
+    }
+
+    private static boolean endPlacement(
+        FlightEvents.Placement event,
+        boolean success
+    ) {
+        if (event != null) {
+            event.success = success;
+            event.commit();
+        }
+        return success;
+    }
+
+    private boolean placeInitial(BlockPos pos) {
         ClientPlayerInteractionManager interactionManager =
             client.interactionManager;
         ClientPlayerEntity player = client.player;
@@ -470,11 +792,23 @@ public class JobSiteHandler {
         int slot = -1;
         Block foundBlock = null;
 
-        for (Block jobSiteBlock : JOB_SITE_BLOCKS) {
-            slot = findBlockInInventory(jobSiteBlock);
-            if (slot != -1) {
-                foundBlock = jobSiteBlock;
-                break;
+        if (preferredWorkstation != null) {
+            slot = findBlockInInventory(preferredWorkstation);
+            if (slot == -1) {
+                VillagerReroller.LOGGER.warn(
+                    "No {} in inventory for the target profession",
+                    preferredWorkstation
+                );
+                return false;
+            }
+            foundBlock = preferredWorkstation;
+        } else {
+            for (Block jobSiteBlock : JOB_SITE_BLOCKS) {
+                slot = findBlockInInventory(jobSiteBlock);
+                if (slot != -1) {
+                    foundBlock = jobSiteBlock;
+                    break;
+                }
             }
         }
 
@@ -570,16 +904,20 @@ public class JobSiteHandler {
             return 1;
         }
 
-        Box searchBox = new Box(lastBrokenPos).expand(10.0);
-        List<ItemEntity> items = world.getEntitiesByClass(
-            ItemEntity.class,
-            searchBox,
-            item ->
-                Block.getBlockFromItem(item.getStack().getItem()) ==
-                expectedBlock
+        if (lastBrokenPos != pickupSearchCenter) {
+            pickupSearchCenter = lastBrokenPos;
+            pickupSearchBox = new Box(lastBrokenPos).expand(10.0);
+        }
+        pickupBlock = expectedBlock;
+        nearbyDrops.clear();
+        world.collectEntitiesByType(
+            ITEM_ENTITIES,
+            pickupSearchBox,
+            isPickupDrop,
+            nearbyDrops
         );
 
-        if (items.isEmpty()) {
+        if (nearbyDrops.isEmpty()) {
             VillagerReroller.LOGGER.debug(
                 "No dropped items found, assuming picked up or creative mode"
             );
@@ -590,216 +928,242 @@ public class JobSiteHandler {
         ItemEntity closestItem = null;
         double closestDist = Double.MAX_VALUE;
 
-        for (ItemEntity item : items) {
+        for (int i = 0; i < nearbyDrops.size(); i++) {
+            ItemEntity item = nearbyDrops.get(i);
             double dist = player.squaredDistanceTo(item);
             if (dist < closestDist) {
                 closestDist = dist;
                 closestItem = item;
             }
         }
+        nearbyDrops.clear();
 
         if (closestItem != null) {
-            double distance = Math.sqrt(closestDist);
-            Vec3d itemPos = new Vec3d(
+            playerBody.player = player;
+            int result = steerPickup(
+                playerBody,
+                Math.sqrt(closestDist),
                 closestItem.getX(),
                 closestItem.getY(),
-                closestItem.getZ()
+                closestItem.getZ(),
+                System.currentTimeMillis()
             );
-            Vec3d playerPos = new Vec3d(
-                player.getX(),
-                player.getY(),
-                player.getZ()
-            );
-
-            if (lastPlayerPos == null) {
-                lastPlayerPos = playerPos;
-                lastProgressTime = System.currentTimeMillis();
-                lastDistanceToItem = distance;
-                stuckTicks = 0;
-            }
-
-            double playerMovement = playerPos.distanceTo(lastPlayerPos);
-            boolean madeProgress = distance < lastDistanceToItem - 0.1;
-
-            if (System.currentTimeMillis() - lastProgressTime > 500) {
-                if (!madeProgress && playerMovement < 0.1) {
-                    stuckTicks++;
-                    VillagerReroller.LOGGER.debug(
-                        "Player appears stuck (stuck ticks: {}), distance: {}",
-                        stuckTicks,
-                        String.format("%.2f", distance)
-                    );
-                } else {
-                    stuckTicks = 0;
-                }
-
-                lastPlayerPos = playerPos;
-                lastDistanceToItem = distance;
-                lastProgressTime = System.currentTimeMillis();
-            }
+            playerBody.player = null;
+            return result;
+        }
 
-            Vec3d eyePos = playerPos.add(
-                0,
-                player.getEyeHeight(player.getPose()),
-                0
-            );
+        resetPickupState();
+        return 1;
+    }
 
-            double deltaX = itemPos.x - eyePos.x;
-            double deltaY = itemPos.y - eyePos.y;
-            double deltaZ = itemPos.z - eyePos.z;
+    // One tick of walking to the drop, split from tryPickupItem so tests
+    // and benchmarks can run it against a simulated player
+    int steerPickup(
+        PickupBody player,
+        double distance,
+        double itemX,
+        double itemY,
+        double itemZ,
+        long now
+    ) {
+        boolean debug = VillagerReroller.LOGGER.isDebugEnabled();
+        double playerX = player.getX();
+        double playerY = player.getY();
+        double playerZ = player.getZ();
 
-            double horizontalDist = Math.sqrt(
-                deltaX * deltaX + deltaZ * deltaZ
+        if (!steering.isTracking() && pickupStartDistance < 0) {
+            pickupStartDistance = distance;
+        }
+        int stuckBefore = steering.getStuckTicks();
+        steering.track(playerX, playerY, playerZ, distance, now);
+        if (debug && steering.getStuckTicks() > stuckBefore) {
+            VillagerReroller.LOGGER.debug(
+                "Player appears stuck (stuck ticks: {}), distance: {}",
+                steering.getStuckTicks(),
+                String.format("%.2f", distance)
             );
-            float yaw =
-                (float) (Math.atan2(deltaZ, deltaX) * (180.0 / Math.PI)) -
-                90.0f;
-            float pitch = (float) -(Math.atan2(deltaY, horizontalDist) *
-                (180.0 / Math.PI));
+        }
 
-            player.setYaw(yaw);
-            player.setPitch(pitch);
+        steering.aim(
+            playerX,
+            playerY + player.getEyeHeight(),
+            playerZ,
+            itemX,
+            itemY,
+            itemZ
+        );
+        player.setYaw(steering.getYaw());
+        player.setPitch(steering.getPitch());
 
-            if (distance <= 1.8) {
-                if (distance > 0.5) {
+        if (distance <= 1.8) {
+            if (distance > 0.5) {
+                if (debug) {
                     VillagerReroller.LOGGER.debug(
                         "Item is {} blocks away, moving closer for pickup...",
                         String.format("%.2f", distance)
                     );
-                    movePlayerTowards(player, itemPos, 0.15, stuckTicks >= 2);
-                } else {
-                    VillagerReroller.LOGGER.debug(
-                        "Item is {} blocks away, waiting for automatic pickup...",
-                        String.format("%.2f", distance)
-                    );
                 }
-                return 0;
-            } else if (distance <= 10.0) {
+                movePlayerTowards(
+                    player,
+                    itemX,
+                    itemY,
+                    itemZ,
+                    0.15,
+                    steering.isStuck()
+                );
+            } else if (debug) {
+                VillagerReroller.LOGGER.debug(
+                    "Item is {} blocks away, waiting for automatic pickup...",
+                    String.format("%.2f", distance)
+                );
+            }
+            return 0;
+        } else if (distance <= 10.0) {
+            if (debug) {
                 VillagerReroller.LOGGER.debug(
                     "Item is {} blocks away, moving towards it... (stuck: {})",
                     String.format("%.2f", distance),
-                    stuckTicks
+                    steering.getStuckTicks()
                 );
+            }
 
-                movePlayerTowards(player, itemPos, 0.2, stuckTicks >= 2);
+            movePlayerTowards(
+                player,
+                itemX,
+                itemY,
+                itemZ,
+                0.2,
+                steering.isStuck()
+            );
 
-                if (stuckTicks >= 2) {
-                    stuckTicks = 0;
-                }
+            if (steering.isStuck()) {
+                steering.clearStuck();
+            }
 
-                return 0;
-            } else {
+            return 0;
+        } else {
+            // Once per pickup: a far drop stays far for many ticks
+            if (!warnedFarDrop) {
+                warnedFarDrop = true;
                 VillagerReroller.LOGGER.warn(
                     "Item is {} blocks away - very far from expected position!",
                     String.format("%.2f", distance)
                 );
+            }
 
-                movePlayerTowards(player, itemPos, 0.15, stuckTicks >= 2);
-
-                if (stuckTicks >= 2) {
-                    stuckTicks = 0;
-                }
+            movePlayerTowards(
+                player,
+                itemX,
+                itemY,
+                itemZ,
+                0.15,
+                steering.isStuck()
+            );
 
-                return 0;
+            if (steering.isStuck()) {
+                steering.clearStuck();
             }
+
+            return 0;
         }
+    }
 
-        resetPickupState();
-        return 1;
+    // Distance to the drop when it was first seen in this pickup, or 0 when
+    // it went straight into the inventory. Clears it for the next pickup.
+    public double takePickupDistance() {
+        double distance = Math.max(0, pickupStartDistance);
+        pickupStartDistance = -1;
+        return distance;
     }
 
     public void resetPickupState() {
-        lastPlayerPos = null;
-        lastProgressTime = 0;
-        lastDistanceToItem = Double.MAX_VALUE;
-        stuckTicks = 0;
+        steering.reset();
+        warnedFarDrop = false;
     }
 
     public void clearMovementInput() {}
 
+    // Runs every tick of a pickup, so it works on plain doubles instead of
+    // allocating Vec3ds
     private void movePlayerTowards(
-        ClientPlayerEntity player,
-        Vec3d targetPos,
+        PickupBody player,
+        double targetX,
+        double targetY,
+        double targetZ,
         double speed,
         boolean shouldJump
     ) {
-        Vec3d playerPos = new Vec3d(
-            player.getX(),
-            player.getY(),
-            player.getZ()
-        );
+        double playerX = player.getX();
+        double playerY = player.getY();
+        double playerZ = player.getZ();
 
         if (blockToAvoid != null) {
-            BlockPos playerBlockPos = player.getBlockPos();
+            int blockX = MathHelper.floor(playerX);
+            int blockY = MathHelper.floor(playerY);
+            int blockZ = MathHelper.floor(playerZ);
 
             if (
-                playerBlockPos.equals(blockToAvoid) ||
-                playerBlockPos.equals(blockToAvoid.up())
+                blockX == blockToAvoid.getX() &&
+                blockZ == blockToAvoid.getZ() &&
+                (blockY == blockToAvoid.getY() ||
+                    blockY == blockToAvoid.getY() + 1)
             ) {
                 VillagerReroller.LOGGER.info(
                     "Player is on fixed placement block {}, moving away before continuing to item",
                     blockToAvoid.toShortString()
                 );
 
-                Vec3d blockCenter = Vec3d.ofCenter(blockToAvoid);
-                Vec3d awayFromBlock = playerPos
-                    .subtract(blockCenter)
-                    .normalize();
-
-                Vec3d escapeVelocity = awayFromBlock.multiply(
-                    speed * 1.5,
-                    0,
-                    speed * 1.5
+                steering.step(
+                    blockToAvoid.getX() + 0.5,
+                    blockToAvoid.getY() + 0.5,
+                    blockToAvoid.getZ() + 0.5,
+                    playerX,
+                    playerY,
+                    playerZ
                 );
+                double awayX = steering.getStepX();
+                double awayZ = steering.getStepZ();
+
+                double escapeX = awayX * speed * 1.5;
+                double escapeZ = awayZ * speed * 1.5;
 
                 if (shouldJump && player.isOnGround()) {
-                    player.setVelocity(
-                        escapeVelocity.x,
-                        0.42,
-                        escapeVelocity.z
-                    );
+                    player.setVelocity(escapeX, 0.42, escapeZ);
                 } else {
-                    player.setVelocity(
-                        escapeVelocity.x,
-                        player.getVelocity().y,
-                        escapeVelocity.z
-                    );
+                    player.setVelocity(escapeX, player.getVelocityY(), escapeZ);
                 }
 
-                Vec3d nudge = awayFromBlock.multiply(0.05, 0, 0.05);
                 player.setPosition(
-                    player.getX() + nudge.x,
-                    player.getY(),
-                    player.getZ() + nudge.z
+                    playerX + awayX * 0.05,
+                    playerY,
+                    playerZ + awayZ * 0.05
                 );
 
                 return;
             }
         }
 
-        Vec3d direction = targetPos.subtract(playerPos).normalize();
+        steering.step(playerX, playerY, playerZ, targetX, targetY, targetZ);
+        double directionX = steering.getStepX();
+        double directionZ = steering.getStepZ();
 
-        Vec3d targetVelocity = direction.multiply(speed, 0, speed);
+        double velocityX = directionX * speed;
+        double velocityZ = directionZ * speed;
 
         if (shouldJump && player.isOnGround()) {
             VillagerReroller.LOGGER.info(
                 "Player stuck, attempting to jump over obstacle"
             );
-            player.setVelocity(targetVelocity.x, 0.42, targetVelocity.z);
+            player.setVelocity(velocityX, 0.42, velocityZ);
         } else {
-            player.setVelocity(
-                targetVelocity.x,
-                player.getVelocity().y,
-                targetVelocity.z
-            );
+            player.setVelocity(velocityX, player.getVelocityY(), velocityZ);
         }
 
         if (player.isOnGround() && !shouldJump) {
-            Vec3d nudge = direction.multiply(0.02, 0, 0.02);
             player.setPosition(
-                player.getX() + nudge.x,
-                player.getY(),
-                player.getZ() + nudge.z
+                playerX + directionX * 0.02,
+                playerY,
+                playerZ + directionZ * 0.02
             );
         }
     }
@@ -846,4 +1210,83 @@ public class JobSiteHandler {
     public void clearRememberedBlocks() {
         rememberedBlocks.clear();
     }
+
+    // What a pickup tick reads from and does to the player
+    interface PickupBody {
+        double getX();
+
+        double getY();
+
+        double getZ();
+
+        double getEyeHeight();
+
+        boolean isOnGround();
+
+        double getVelocityY();
+
+        void setYaw(float yaw);
+
+        void setPitch(float pitch);
+
+        void setVelocity(double x, double y, double z);
+
+        void setPosition(double x, double y, double z);
+    }
+
+    // Reused for every tick instead of wrapping the player each time
+    private static final class PlayerBody implements PickupBody {
+
+        private ClientPlayerEntity player;
+
+        @Override
+        public double getX() {
+            return player.getX();
+        }
+
+        @Override
+        public double getY() {
+            return player.getY();
+        }
+
+        @Override
+        public double getZ() {
+            return player.getZ();
+        }
+
+        @Override
+        public double getEyeHeight() {
+            return player.getEyeHeight(player.getPose());
+        }
+
+        @Override
+        public boolean isOnGround() {
+            return player.isOnGround();
+        }
+
+        @Override
+        public double getVelocityY() {
+            return player.getVelocity().y;
+        }
+
+        @Override
+        public void setYaw(float yaw) {
+            player.setYaw(yaw);
+        }
+
+        @Override
+        public void setPitch(float pitch) {
+            player.setPitch(pitch);
+        }
+
+        @Override
+        public void setVelocity(double x, double y, double z) {
+            player.setVelocity(x, y, z);
+        }
+
+        @Override
+        public void setPosition(double x, double y, double z) {
+            player.setPosition(x, y, z);
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package com.villagerreroller.automation;
+
+// A player walking to a ring of drops a few blocks around it, as a broken
+// workstation's item lands, for driving JobSiteHandler's pickup tick
+// without a game. Every second drop has a wall in the way for part of the
+// walk, which only a jump gets over. Shared by PickupSteeringTest and
+// PickupSteeringBenchmark so both measure the same walk.
+final class PickupSimulation implements JobSiteHandler.PickupBody {
+
+    static final long TICK_MS = 50;
+
+    private final JobSiteHandler handler;
+    private double x = 0.5;
+    private double y = 64;
+    private double z = 0.5;
+    private double velocityX;
+    private double velocityY;
+    private double velocityZ;
+    private double itemX;
+    private double itemY;
+    private double itemZ;
+    private long now = 0;
+    private int tick = 0;
+    private int drops = 0;
+
+    PickupSimulation(JobSiteHandler handler) {
+        this.handler = handler;
+        nextDrop();
+    }
+
+    int getDrops() {
+        return drops;
+    }
+
+    double getItemX() {
+        return itemX;
+    }
+
+    double getItemY() {
+        return itemY;
+    }
+
+    double getItemZ() {
+        return itemZ;
+    }
+
+    double distance() {
+        double dx = itemX - x;
+        double dy = itemY - y;
+        double dz = itemZ - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // One client tick: the handler steers, then the player moves unless
+    // the wall stops it, and a drop within reach is picked up
+    void tick() {
+        double distance = distance();
+        if (distance <= 0.5) {
+            handler.resetPickupState();
+            handler.takePickupDistance();
+            nextDrop();
+        } else {
+            double startX = x;
+            double startZ = z;
+            velocityY = 0;
+            handler.steerPickup(this, distance, itemX, itemY, itemZ, now);
+
+            boolean blocked = drops % 2 == 0 && tick % 100 < 40;
+            if (blocked && velocityY <= 0) {
+                x = startX;
+                z = startZ;
+            } else {
+                x += velocityX;
+                z += velocityZ;
+            }
+        }
+
+        tick++;
+        now += TICK_MS;
+    }
+
+    private void nextDrop() {
+        drops++;
+        double angle = drops * 2.4;
+        double range = 2 + drops % 7;
+        itemX = x + Math.cos(angle) * range;
+        itemY = y + (drops % 3) * 0.2;
+        itemZ = z + Math.sin(angle) * range;
+    }
+
+    @Override
+    public double getX() {
+        return x;
+    }
+
+    @Override
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public double getZ() {
+        return z;
+    }
+
+    @Override
+    public double getEyeHeight() {
+        return 1.62;
+    }
+
+    @Override
+    public boolean isOnGround() {
+        return true;
+    }
+
+    @Override
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    @Override
+    public void setYaw(float yaw) {}
+
+    @Override
+    public void setPitch(float pitch) {}
+
+    @Override
+    public void setVelocity(double x, double y, double z) {
+        velocityX = x;
+        velocityY = y;
+        velocityZ = z;
+    }
+
+    @Override
+    public void setPosition(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+}
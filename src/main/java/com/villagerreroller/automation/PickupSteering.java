@@ -0,0 +1,147 @@
+package com.villagerreroller.automation;
+
+// The per-tick math of walking to a dropped item: progress and stuck
+// tracking, where to look and which way to step. It works on plain
+// coordinates and keeps its results in fields, so a pickup tick allocates
+// nothing here and the math runs in tests without a game.
+final class PickupSteering {
+
+    private static final long PROGRESS_CHECK_MS = 500;
+    private static final double MIN_PROGRESS = 0.1;
+    private static final double MIN_MOVEMENT = 0.1;
+    private static final int STUCK_TICKS = 2;
+
+    private boolean tracking = false;
+    private double lastX;
+    private double lastY;
+    private double lastZ;
+    private long lastProgressTime = 0;
+    private double lastDistance = Double.MAX_VALUE;
+    private int stuckTicks = 0;
+
+    private float yaw;
+    private float pitch;
+    private double stepX;
+    private double stepZ;
+
+    boolean isTracking() {
+        return tracking;
+    }
+
+    // Every half second the position and distance are compared with the
+    // previous check; a player that neither closed in nor moved is stuck
+    void track(double x, double y, double z, double distance, long now) {
+        if (!tracking) {
+            tracking = true;
+            lastX = x;
+            lastY = y;
+            lastZ = z;
+            lastProgressTime = now;
+            lastDistance = distance;
+            stuckTicks = 0;
+        }
+
+        if (now - lastProgressTime <= PROGRESS_CHECK_MS) {
+            return;
+        }
+
+        double movedX = x - lastX;
+        double movedY = y - lastY;
+        double movedZ = z - lastZ;
+        double movement = Math.sqrt(
+            movedX * movedX + movedY * movedY + movedZ * movedZ
+        );
+        boolean madeProgress = distance < lastDistance - MIN_PROGRESS;
+        if (!madeProgress && movement < MIN_MOVEMENT) {
+            stuckTicks++;
+        } else {
+            stuckTicks = 0;
+        }
+
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+        lastDistance = distance;
+        lastProgressTime = now;
+    }
+
+    int getStuckTicks() {
+        return stuckTicks;
+    }
+
+    boolean isStuck() {
+        return stuckTicks >= STUCK_TICKS;
+    }
+
+    // After a jump, so the next one waits for fresh evidence
+    void clearStuck() {
+        stuckTicks = 0;
+    }
+
+    void reset() {
+        tracking = false;
+        lastProgressTime = 0;
+        lastDistance = Double.MAX_VALUE;
+        stuckTicks = 0;
+    }
+
+    void aim(
+        double eyeX,
+        double eyeY,
+        double eyeZ,
+        double targetX,
+        double targetY,
+        double targetZ
+    ) {
+        double deltaX = targetX - eyeX;
+        double deltaY = targetY - eyeY;
+        double deltaZ = targetZ - eyeZ;
+        double horizontalDist = Math.sqrt(deltaX * deltaX + deltaZ * deltaZ);
+        yaw = (float) (Math.atan2(deltaZ, deltaX) * (180.0 / Math.PI)) - 90.0f;
+        pitch = (float) -(Math.atan2(deltaY, horizontalDist) *
+            (180.0 / Math.PI));
+    }
+
+    float getYaw() {
+        return yaw;
+    }
+
+    float getPitch() {
+        return pitch;
+    }
+
+    // Same as Vec3d.normalize() keeping x and z: the vertical offset
+    // shortens the horizontal step, and a zero vector stays zero
+    void step(
+        double fromX,
+        double fromY,
+        double fromZ,
+        double toX,
+        double toY,
+        double toZ
+    ) {
+        double directionX = toX - fromX;
+        double directionY = toY - fromY;
+        double directionZ = toZ - fromZ;
+        double length = Math.sqrt(
+            directionX * directionX +
+                directionY * directionY +
+                directionZ * directionZ
+        );
+        if (length < 1.0E-5) {
+            stepX = 0;
+            stepZ = 0;
+        } else {
+            stepX = directionX / length;
+            stepZ = directionZ / length;
+        }
+    }
+
+    double getStepX() {
+        return stepX;
+    }
+
+    double getStepZ() {
+        return stepZ;
+    }
+}
@@ -0,0 +1,125 @@
+package com.villagerreroller.automation;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.World;
+
+// The part of the world a placement search looks at, copied on the client
+// thread so the search can run elsewhere. Keeps exactly what
+// isValidPlacementPosition reads: whether each cell is air, whether it is
+// solid, and the boxes of the entities in the area, fetched with a single
+// query instead of one per candidate.
+final class PlacementSnapshot {
+
+    private static final byte AIR = 1;
+    private static final byte SOLID = 2;
+    // Candidates sit on layers 0 and 1; layer -1 is only read as ground
+    private static final int MIN_Y = -1;
+    private static final int LAYERS = 3;
+
+    private final BlockPos center;
+    private final int radius;
+    private final int size;
+    private final byte[] cells;
+    private final List<Box> entityBoxes;
+
+    private PlacementSnapshot(
+        BlockPos center,
+        int radius,
+        byte[] cells,
+        List<Box> entityBoxes
+    ) {
+        this.center = center;
+        this.radius = radius;
+        this.size = radius * 2 + 1;
+        this.cells = cells;
+        this.entityBoxes = entityBoxes;
+    }
+
+    static PlacementSnapshot capture(World world, BlockPos center, int radius) {
+        List<Box> entityBoxes = new ArrayList<>();
+        Box area = new Box(center).expand(radius, 1, radius);
+        for (Entity entity : world.getOtherEntities(null, area)) {
+            entityBoxes.add(entity.getBoundingBox());
+        }
+        return capture(world, entityBoxes, center, radius);
+    }
+
+    static PlacementSnapshot capture(
+        BlockView world,
+        List<Box> entityBoxes,
+        BlockPos center,
+        int radius
+    ) {
+        int size = radius * 2 + 1;
+        byte[] cells = new byte[size * size * LAYERS];
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        int i = 0;
+        for (int y = MIN_Y; y < MIN_Y + LAYERS; y++) {
+            for (int x = -radius; x <= radius; x++) {
+                for (int z = -radius; z <= radius; z++) {
+                    pos.set(
+                        center.getX() + x,
+                        center.getY() + y,
+                        center.getZ() + z
+                    );
+                    BlockState state = world.getBlockState(pos);
+                    byte flags = 0;
+                    if (state.isAir()) {
+                        flags |= AIR;
+                    }
+                    if (state.isSolidBlock(world, pos)) {
+                        flags |= SOLID;
+                    }
+                    cells[i++] = flags;
+                }
+            }
+        }
+
+        return new PlacementSnapshot(
+            center.toImmutable(),
+            radius,
+            cells,
+            entityBoxes
+        );
+    }
+
+    // Same rules as JobSiteHandler.isValidPlacementPosition
+    boolean isValid(BlockPos pos) {
+        int x = pos.getX() - center.getX();
+        int y = pos.getY() - center.getY();
+        int z = pos.getZ() - center.getZ();
+        if (
+            Math.abs(x) > radius ||
+            Math.abs(z) > radius ||
+            y - 1 < MIN_Y ||
+            y >= MIN_Y + LAYERS
+        ) {
+            return false;
+        }
+
+        if ((cells[index(x, y - 1, z)] & SOLID) == 0) {
+            return false;
+        }
+        if ((cells[index(x, y, z)] & AIR) == 0) {
+            return false;
+        }
+
+        Box cell = new Box(pos);
+        for (Box entityBox : entityBoxes) {
+            if (entityBox.intersects(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((y - MIN_Y) * size + (x + radius)) * size + (z + radius);
+    }
+}
@@ -1,33 +1,53 @@
 package com.villagerreroller.automation;
 
 import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.config.ConfigSnapshot;
 import com.villagerreroller.config.ModConfig;
-import com.villagerreroller.trade.TradeFilter;
+import com.villagerreroller.replay.SessionRecorder;
+import com.villagerreroller.stats.AttemptTimeSeries;
+import com.villagerreroller.stats.FlightEvents;
+import com.villagerreroller.stats.TickCostMeter;
+import com.villagerreroller.trade.LockDetector;
+import com.villagerreroller.trade.TradeEvaluationWorker;
+import com.villagerreroller.trade.TradeEvaluator;
 import com.villagerreroller.trade.TradeScanner;
+import com.villagerreroller.trade.TradeVerdict;
 import com.villagerreroller.util.NotificationHelper;
+import com.villagerreroller.util.VillagerTracker;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.block.Block;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.util.math.BlockPos;
 
 public class RerollController {
 
+    // A villager that still takes the wrong job after this many swaps is
+    // most likely locked or claiming some other workstation nearby
+    private static final int MAX_WORKSTATION_SWAPS = 2;
+
     private final MinecraftClient client;
     private final Map<UUID, VillagerState> villagerStates;
     private final JobSiteHandler jobSiteHandler;
 
-    private boolean isRunning = false;
+    private volatile boolean isRunning = false;
     private VillagerEntity currentVillager = null;
     private int currentAttempts = 0;
     private long lastRerollTime = 0;
     private boolean emergencyStop = false;
     private boolean matchFound = false;
+    private boolean lastRunMatched = false;
 
-    private enum RerollState {
+    public enum RerollState {
         IDLE,
         INITIAL_PLACEMENT,
         WAITING_TO_BREAK,
@@ -40,15 +60,51 @@ public class RerollController {
         CHECKING_TRADES,
     }
 
+    public enum StopReason {
+        MATCH,
+        MANUAL,
+        EMERGENCY,
+        MAX_ATTEMPTS,
+        INVENTORY_FULL,
+        SEMI_AUTO,
+        VILLAGER_LOST,
+        JOB_SITE_MISSING,
+        PLACEMENT,
+        BREAKING,
+        PICKUP,
+        OUT_OF_WORKSTATIONS,
+        NOT_CLAIMED,
+        TRADE_SCREEN,
+        LOCKED,
+    }
+
     private RerollState currentState = RerollState.IDLE;
     private long stateStartTime = 0;
+    private FlightEvents.StateSpan stateSpan;
+    private final TradeEvaluationWorker tradeEvaluationWorker =
+        new TradeEvaluationWorker();
+    private CompletableFuture<TradeVerdict> pendingVerdict;
+    private FlightEvents.TradeScan pendingScanEvent;
+    private int pendingOfferCount;
+    private CompletableFuture<BlockPos> pendingPlacement;
+    private int pendingPlacementRadius;
     private BlockPos currentJobSite = null;
+    private BlockPos lastJobSite = null;
+    private Set<BlockPos> reservedJobSites = Set.of();
     private boolean stateActionStarted = false;
     private int placementRetries = 0;
     private long lastStatusLogTime = 0;
     private int initialPlacementAttempts = 0;
     private int consecutivePlacementFailures = 0;
     private BlockPos fixedPlacementBlock = null;
+    private List<String> targetProfessions = List.of();
+    private int workstationSwaps = 0;
+
+    private final long[] phaseTimeMs = new long[RerollState.values().length];
+    private long phaseStartTime = 0;
+    private long cycleStartTime = 0;
+    private boolean outcomeRecorded = false;
+    private StopReason stopReason = null;
 
     public RerollController() {
         this.client = MinecraftClient.getInstance();
@@ -64,9 +120,8 @@ public class RerollController {
             return;
         }
 
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
 
         if (!config.isEnabled()) {
             NotificationHelper.displayClientMessage(
@@ -82,6 +137,13 @@ public class RerollController {
             return;
         }
 
+        if (isLocked(villager.getUuid())) {
+            NotificationHelper.displayClientError(
+                "This villager has already been traded with - its trades are locked"
+            );
+            return;
+        }
+
         this.currentVillager = villager;
         this.currentAttempts = 0;
         this.isRunning = true;
@@ -90,6 +152,17 @@ public class RerollController {
         this.lastRerollTime = System.currentTimeMillis();
         this.placementRetries = 0;
         this.consecutivePlacementFailures = 0;
+        this.stopReason = null;
+        this.targetProfessions = config.getTradeFilter().getTargetProfessions();
+        this.workstationSwaps = 0;
+        jobSiteHandler.setPreferredWorkstation(
+            jobSiteHandler.selectWorkstation(targetProfessions)
+        );
+        jobSiteHandler.takePickupDistance();
+        Arrays.fill(phaseTimeMs, 0);
+        this.phaseStartTime = this.lastRerollTime;
+        this.cycleStartTime = this.lastRerollTime;
+        this.outcomeRecorded = false;
 
         if (config.isUseFixedPlacementBlock()) {
             BlockPos targetedBlock = getBlockPlayerIsLookingAt();
@@ -124,6 +197,10 @@ public class RerollController {
 
         VillagerState state = getOrCreateState(villager);
         state.lastAttemptTime = System.currentTimeMillis();
+        state.offerFingerprint = 0;
+        VillagerReroller.getInstance()
+            .getSessionRecorder()
+            .recordRunStart(villager.getUuid());
 
         BlockPos existingJobSite = findJobSiteBlock();
 
@@ -147,14 +224,104 @@ public class RerollController {
             currentState,
             newState
         );
+        VillagerReroller.getInstance()
+            .getEventStream()
+            .publishState(
+                currentState.name(),
+                newState.name(),
+                currentAttempts
+            );
+        SessionRecorder recorder =
+            VillagerReroller.getInstance().getSessionRecorder();
+        recorder.recordState(newState.ordinal());
+        if (currentJobSite != null && client.world != null) {
+            recorder.recordBlock(
+                currentJobSite,
+                client.world.getBlockState(currentJobSite)
+            );
+        }
+        cancelPendingWork();
+        endStateSpan(newState.name());
+        stateSpan = FlightEvents.beginStateSpan(
+            newState.name(),
+            currentVillager != null ? currentVillager.getUuid() : null,
+            currentAttempts
+        );
+        long now = System.currentTimeMillis();
+        accumulatePhaseTime(now);
         this.currentState = newState;
-        this.stateStartTime = System.currentTimeMillis();
+        this.stateStartTime = now;
         this.stateActionStarted = false;
     }
 
+    private void endStateSpan(String next) {
+        if (stateSpan != null) {
+            stateSpan.next = next;
+            stateSpan.commit();
+            stateSpan = null;
+        }
+    }
+
+    private static void endTradeScan(
+        FlightEvents.TradeScan event,
+        int offers,
+        int matches,
+        String outcome
+    ) {
+        if (event != null) {
+            event.offers = offers;
+            event.matches = matches;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    private void accumulatePhaseTime(long now) {
+        if (currentState != RerollState.IDLE && phaseStartTime > 0) {
+            phaseTimeMs[currentState.ordinal()] += now - phaseStartTime;
+        }
+        phaseStartTime = now;
+    }
+
+    private void recordAttempt(
+        AttemptTimeSeries.Outcome outcome,
+        int targetPrice
+    ) {
+        long now = System.currentTimeMillis();
+        accumulatePhaseTime(now);
+        VillagerReroller.getInstance()
+            .getStatisticsTracker()
+            .recordAttempt(
+                now - cycleStartTime,
+                phaseTimeMs,
+                outcome,
+                targetPrice
+            );
+        VillagerReroller.getInstance()
+            .getEventStream()
+            .publishAttempt(
+                outcome.name(),
+                currentAttempts,
+                now - cycleStartTime,
+                targetPrice
+            );
+        VillagerReroller.getInstance()
+            .getSessionRecorder()
+            .recordOutcome(outcome.ordinal(), targetPrice);
+        Arrays.fill(phaseTimeMs, 0);
+        cycleStartTime = now;
+        outcomeRecorded = true;
+    }
+
+    private void stopRerolling(StopReason reason) {
+        stopReason = reason;
+        stopRerolling();
+    }
+
     public void stopRerolling() {
         if (isRunning) {
             isRunning = false;
+            cancelPendingWork();
 
             stopPlayerMovement();
 
@@ -171,16 +338,46 @@ public class RerollController {
                 "Reroll stopped. Attempts: " + currentAttempts
             );
 
+            // Stopping between attempts leaves nothing to abort
+            if (!outcomeRecorded) {
+                recordAttempt(AttemptTimeSeries.Outcome.ABORTED, -1);
+            }
+            StopReason reason = matchFound
+                ? StopReason.MATCH
+                : stopReason != null
+                    ? stopReason
+                    : emergencyStop ? StopReason.EMERGENCY : StopReason.MANUAL;
+            VillagerReroller.getInstance()
+                .getStatisticsTracker()
+                .getMetrics()
+                .recordStop(reason.ordinal());
+            VillagerReroller.getInstance()
+                .getSessionRecorder()
+                .recordRunStop(reason.ordinal());
+            endStateSpan(reason.name());
+            VillagerReroller.getInstance()
+                .getEventStream()
+                .publishStop(
+                    reason.name(),
+                    currentState.name(),
+                    currentAttempts
+                );
+
             if (currentVillager != null) {
                 VillagerState state = getOrCreateState(currentVillager);
                 state.totalAttempts += currentAttempts;
+                state.lastAttemptTime = System.currentTimeMillis();
             }
 
+            lastRunMatched = matchFound;
+            lastJobSite = currentJobSite;
+
             currentVillager = null;
             currentAttempts = 0;
             currentState = RerollState.IDLE;
             currentJobSite = null;
             matchFound = false;
+            stopReason = null;
             fixedPlacementBlock = null;
             jobSiteHandler.setBlockToAvoid(null);
         }
@@ -205,6 +402,18 @@ public class RerollController {
             return;
         }
 
+        TickCostMeter tickCost =
+            VillagerReroller.getInstance().getTickCostMeter();
+        tickCost.begin();
+        try {
+            tick(client);
+        } finally {
+            tickCost.end();
+        }
+    }
+
+    private void tick(MinecraftClient client) {
+
         if (emergencyStop) {
             stopRerolling();
             return;
@@ -231,10 +440,10 @@ public class RerollController {
                 currentState,
                 currentAttempts
             );
-            NotificationHelper.displayClientMessage(
-                "§cVillager is null! Stopping reroll."
+            NotificationHelper.displayClientError(
+                "Villager is null! Stopping reroll."
             );
-            stopRerolling();
+            stopRerolling(StopReason.VILLAGER_LOST);
             return;
         }
 
@@ -244,10 +453,10 @@ public class RerollController {
                 currentState,
                 currentAttempts
             );
-            NotificationHelper.displayClientMessage(
-                "§cVillager died! Stopping reroll."
+            NotificationHelper.displayClientError(
+                "Villager died! Stopping reroll."
             );
-            stopRerolling();
+            stopRerolling(StopReason.VILLAGER_LOST);
             return;
         }
 
@@ -257,26 +466,28 @@ public class RerollController {
                 currentState,
                 currentAttempts
             );
-            NotificationHelper.displayClientMessage(
-                "§cVillager unloaded! Stopping reroll."
+            NotificationHelper.displayClientError(
+                "Villager unloaded! Stopping reroll."
             );
-            stopRerolling();
+            stopRerolling(StopReason.VILLAGER_LOST);
             return;
         }
 
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
         long now = System.currentTimeMillis();
         long timeSinceStateStart = now - stateStartTime;
+        boolean debugLogging = VillagerReroller.LOGGER.isDebugEnabled();
 
-        VillagerReroller.LOGGER.debug(
-            "Tick: state={}, time={}ms, attempts={}/{}",
-            currentState,
-            timeSinceStateStart,
-            currentAttempts,
-            config.getMaxRerollAttempts()
-        );
+        if (debugLogging) {
+            VillagerReroller.LOGGER.debug(
+                "Tick: state={}, time={}ms, attempts={}/{}",
+                currentState,
+                timeSinceStateStart,
+                currentAttempts,
+                config.getMaxRerollAttempts()
+            );
+        }
 
         if (now - lastStatusLogTime > 5000) {
             VillagerReroller.LOGGER.info(
@@ -301,14 +512,22 @@ public class RerollController {
         switch (currentState) {
             case INITIAL_PLACEMENT:
                 if (!stateActionStarted) {
-                    initialPlacementAttempts++;
                     BlockPos placementPos = null;
                     int searchRadius = 0;
 
-                    if (
+                    if (pendingPlacement != null) {
+                        // The search runs on a snapshot off-thread; keep
+                        // ticking until it reports back
+                        if (!pendingPlacement.isDone()) {
+                            return;
+                        }
+                        searchRadius = pendingPlacementRadius;
+                        placementPos = takePendingPlacement(searchRadius);
+                    } else if (
                         config.isUseFixedPlacementBlock() &&
                         fixedPlacementBlock != null
                     ) {
+                        initialPlacementAttempts++;
                         VillagerReroller.LOGGER.info(
                             "Using fixed placement block at {} (attempt {}/5)...",
                             fixedPlacementBlock.toShortString(),
@@ -316,6 +535,7 @@ public class RerollController {
                         );
                         placementPos = fixedPlacementBlock;
                     } else {
+                        initialPlacementAttempts++;
                         int maxPlacementReach = config.getPlacementReach();
                         searchRadius = Math.min(
                             3 + initialPlacementAttempts,
@@ -328,10 +548,12 @@ public class RerollController {
                         );
 
                         BlockPos villagerPos = currentVillager.getBlockPos();
-                        placementPos = findSuitablePlacementPosition(
+                        pendingPlacementRadius = searchRadius;
+                        pendingPlacement = findSuitablePlacementPosition(
                             villagerPos,
                             searchRadius
                         );
+                        return;
                     }
 
                     if (placementPos == null) {
@@ -358,10 +580,10 @@ public class RerollController {
                         VillagerReroller.LOGGER.error(
                             "No suitable placement position found after 5 attempts!"
                         );
-                        NotificationHelper.displayClientMessage(
-                            "§cCannot find place for workstation after 5 attempts! Clear space near villager."
+                        NotificationHelper.displayClientError(
+                            "Cannot find place for workstation after 5 attempts! Clear space near villager."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.PLACEMENT);
                         return;
                     }
 
@@ -391,10 +613,10 @@ public class RerollController {
                         VillagerReroller.LOGGER.error(
                             "Failed to place initial workstation after 5 attempts!"
                         );
-                        NotificationHelper.displayClientMessage(
-                            "§cFailed to place workstation after 5 attempts! Make sure you have one in inventory."
+                        NotificationHelper.displayClientError(
+                            "Failed to place workstation after 5 attempts! Make sure you have one in inventory."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.PLACEMENT);
                         return;
                     }
 
@@ -462,10 +684,10 @@ public class RerollController {
                                 } catch (InterruptedException e) {}
                                 return;
                             }
-                            NotificationHelper.displayClientMessage(
-                                "§cFailed to place workstation! Could not verify placement."
+                            NotificationHelper.displayClientError(
+                                "Failed to place workstation! Could not verify placement."
                             );
-                            stopRerolling();
+                            stopRerolling(StopReason.PLACEMENT);
                             return;
                         }
                     }
@@ -480,10 +702,10 @@ public class RerollController {
                         "Placement verification failed at {}!",
                         currentJobSite
                     );
-                    NotificationHelper.displayClientMessage(
+                    NotificationHelper.displayClientError(
                         "Workstation placement failed!"
                     );
-                    stopRerolling();
+                    stopRerolling(StopReason.PLACEMENT);
                     return;
                 }
 
@@ -509,7 +731,10 @@ public class RerollController {
                     NotificationHelper.displayClientMessage(
                         "Max attempts reached (" + currentAttempts + ")"
                     );
-                    stopRerolling();
+                    VillagerReroller.getInstance()
+                        .getStatisticsTracker()
+                        .recordFailedReroll(currentAttempts);
+                    stopRerolling(StopReason.MAX_ATTEMPTS);
                     return;
                 }
 
@@ -520,17 +745,19 @@ public class RerollController {
                     NotificationHelper.displayClientMessage(
                         "Inventory full! Pausing reroll."
                     );
-                    stopRerolling();
+                    stopRerolling(StopReason.INVENTORY_FULL);
                     return;
                 }
 
                 long timeSinceLastReroll = now - lastRerollTime;
                 if (timeSinceLastReroll < config.getRerollDelayMs()) {
-                    VillagerReroller.LOGGER.debug(
-                        "Waiting for cooldown: {}ms / {}ms",
-                        timeSinceLastReroll,
-                        config.getRerollDelayMs()
-                    );
+                    if (debugLogging) {
+                        VillagerReroller.LOGGER.debug(
+                            "Waiting for cooldown: {}ms / {}ms",
+                            timeSinceLastReroll,
+                            config.getRerollDelayMs()
+                        );
+                    }
                     return;
                 }
 
@@ -543,10 +770,10 @@ public class RerollController {
                         "Could not find job site block for villager at {}",
                         currentVillager.getBlockPos()
                     );
-                    NotificationHelper.displayClientMessage(
+                    NotificationHelper.displayClientError(
                         "Could not find job site block! Make sure villager has a workstation nearby."
                     );
-                    stopRerolling();
+                    stopRerolling(StopReason.JOB_SITE_MISSING);
                     return;
                 }
                 VillagerReroller.LOGGER.info(
@@ -556,6 +783,7 @@ public class RerollController {
 
                 currentAttempts++;
                 lastRerollTime = now;
+                outcomeRecorded = false;
                 VillagerReroller.LOGGER.info(
                     "=== STARTING REROLL ATTEMPT {} ===",
                     currentAttempts
@@ -585,10 +813,10 @@ public class RerollController {
                         VillagerReroller.LOGGER.error(
                             "Failed to start breaking job site block!"
                         );
-                        NotificationHelper.displayClientMessage(
+                        NotificationHelper.displayClientError(
                             "Failed to break job site! Check if you have the right tools."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.BREAKING);
                         return;
                     }
                     stateActionStarted = true;
@@ -609,7 +837,7 @@ public class RerollController {
                         NotificationHelper.displayClientMessage(
                             "Job site broken. Replace manually to continue."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.SEMI_AUTO);
                     } else {
                         VillagerReroller.LOGGER.info(
                             "Waiting for item to drop..."
@@ -621,11 +849,11 @@ public class RerollController {
                         VillagerReroller.LOGGER.error(
                             "Breaking timed out after 10 seconds!"
                         );
-                        NotificationHelper.displayClientMessage(
+                        NotificationHelper.displayClientError(
                             "Failed to break job site! Timeout."
                         );
                         jobSiteHandler.cancelBreaking();
-                        stopRerolling();
+                        stopRerolling(StopReason.BREAKING);
                         return;
                     }
                 }
@@ -654,10 +882,12 @@ public class RerollController {
                 transitionToState(RerollState.PICKING_UP_ITEM);
                 break;
             case PICKING_UP_ITEM:
-                VillagerReroller.LOGGER.debug(
-                    "PICKING_UP_ITEM: Attempting pickup ({}ms)...",
-                    timeSinceStateStart
-                );
+                if (debugLogging) {
+                    VillagerReroller.LOGGER.debug(
+                        "PICKING_UP_ITEM: Attempting pickup ({}ms)...",
+                        timeSinceStateStart
+                    );
+                }
                 int pickupResult = jobSiteHandler.tryPickupItem();
 
                 if (pickupResult == 1) {
@@ -667,6 +897,12 @@ public class RerollController {
 
                     jobSiteHandler.clearMovementInput();
                     stopPlayerMovement();
+                    VillagerReroller.getInstance()
+                        .getStatisticsTracker()
+                        .getMetrics()
+                        .recordPickupDistance(
+                            jobSiteHandler.takePickupDistance()
+                        );
 
                     if (jobSiteHandler.hasWorkstationInInventory()) {
                         VillagerReroller.LOGGER.info(
@@ -677,26 +913,28 @@ public class RerollController {
                         VillagerReroller.LOGGER.error(
                             "Item pickup success but NO workstation in inventory!"
                         );
-                        NotificationHelper.displayClientMessage(
-                            "§cOut of workstations! Stopping reroll."
+                        NotificationHelper.displayClientError(
+                            "Out of workstations! Stopping reroll."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.OUT_OF_WORKSTATIONS);
                         return;
                     }
                 } else if (pickupResult == -1) {
                     VillagerReroller.LOGGER.error(
                         "Fatal error during item pickup!"
                     );
-                    NotificationHelper.displayClientMessage(
+                    NotificationHelper.displayClientError(
                         "Failed to pick up dropped item! Stopping."
                     );
-                    stopRerolling();
+                    stopRerolling(StopReason.PICKUP);
                     return;
                 } else {
-                    VillagerReroller.LOGGER.debug(
-                        "Still trying to pick up item... ({}ms)",
-                        timeSinceStateStart
-                    );
+                    if (debugLogging) {
+                        VillagerReroller.LOGGER.debug(
+                            "Still trying to pick up item... ({}ms)",
+                            timeSinceStateStart
+                        );
+                    }
 
                     if (
                         timeSinceStateStart >= 3000 &&
@@ -726,10 +964,10 @@ public class RerollController {
                             VillagerReroller.LOGGER.error(
                                 "Timeout AND no workstation in inventory!"
                             );
-                            NotificationHelper.displayClientMessage(
-                                "§cOut of workstations! Could not reach dropped item."
+                            NotificationHelper.displayClientError(
+                                "Out of workstations! Could not reach dropped item."
                             );
-                            stopRerolling();
+                            stopRerolling(StopReason.OUT_OF_WORKSTATIONS);
                         }
                         return;
                     }
@@ -745,10 +983,10 @@ public class RerollController {
                         VillagerReroller.LOGGER.error(
                             "Cannot replace workstation - none in inventory!"
                         );
-                        NotificationHelper.displayClientMessage(
-                            "§cOut of workstations! Stopping reroll."
+                        NotificationHelper.displayClientError(
+                            "Out of workstations! Stopping reroll."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.OUT_OF_WORKSTATIONS);
                         return;
                     }
 
@@ -789,10 +1027,10 @@ public class RerollController {
                             VillagerReroller.LOGGER.error(
                                 "Failed to place workstation 50 times in a row! Stopping reroll."
                             );
-                            NotificationHelper.displayClientMessage(
-                                "§cFailed to place workstation 50 times! Area is permanently blocked."
+                            NotificationHelper.displayClientError(
+                                "Failed to place workstation 50 times! Area is permanently blocked."
                             );
-                            stopRerolling();
+                            stopRerolling(StopReason.PLACEMENT);
                             return;
                         }
 
@@ -839,10 +1077,12 @@ public class RerollController {
                 }
 
                 if (timeSinceStateStart < 500) {
-                    VillagerReroller.LOGGER.debug(
-                        "Waiting for block placement to register... ({}ms)",
-                        timeSinceStateStart
-                    );
+                    if (debugLogging) {
+                        VillagerReroller.LOGGER.debug(
+                            "Waiting for block placement to register... ({}ms)",
+                            timeSinceStateStart
+                        );
+                    }
                     return;
                 }
 
@@ -851,10 +1091,12 @@ public class RerollController {
                     !jobSiteHandler.isJobSiteBlock(currentJobSite)
                 ) {
                     if (timeSinceStateStart < 3000) {
-                        VillagerReroller.LOGGER.debug(
-                            "Block not yet registered, waiting longer... ({}ms)",
-                            timeSinceStateStart
-                        );
+                        if (debugLogging) {
+                            VillagerReroller.LOGGER.debug(
+                                "Block not yet registered, waiting longer... ({}ms)",
+                                timeSinceStateStart
+                            );
+                        }
                         return;
                     }
 
@@ -880,13 +1122,13 @@ public class RerollController {
                         placementRetries,
                         currentJobSite
                     );
-                    NotificationHelper.displayClientMessage(
-                        "§cBlock placement failed after " +
+                    NotificationHelper.displayClientError(
+                        "Block placement failed after " +
                             placementRetries +
                             " attempts! Server might be lagging."
                     );
                     placementRetries = 0;
-                    stopRerolling();
+                    stopRerolling(StopReason.PLACEMENT);
                     return;
                 }
 
@@ -899,10 +1141,12 @@ public class RerollController {
                 break;
             case WAITING_FOR_VILLAGER:
                 if (timeSinceStateStart < 2000) {
-                    VillagerReroller.LOGGER.debug(
-                        "Waiting for villager to claim workstation... ({}ms)",
-                        timeSinceStateStart
-                    );
+                    if (debugLogging) {
+                        VillagerReroller.LOGGER.debug(
+                            "Waiting for villager to claim workstation... ({}ms)",
+                            timeSinceStateStart
+                        );
+                    }
                     return;
                 }
 
@@ -911,31 +1155,44 @@ public class RerollController {
                     .profession()
                     .value()
                     .equals(net.minecraft.village.VillagerProfession.NONE);
-                VillagerReroller.LOGGER.debug(
-                    "Checking villager profession: {}",
-                    currentVillager
-                        .getVillagerData()
-                        .profession()
-                        .value()
-                        .id()
-                        .getString()
-                );
+                if (debugLogging) {
+                    VillagerReroller.LOGGER.debug(
+                        "Checking villager profession: {}",
+                        currentVillager
+                            .getVillagerData()
+                            .profession()
+                            .value()
+                            .id()
+                            .getString()
+                    );
+                }
 
                 if (hasNoProfession) {
                     if (timeSinceStateStart > 8000) {
                         VillagerReroller.LOGGER.error(
                             "Villager did not claim workstation after 8 seconds!"
                         );
-                        NotificationHelper.displayClientMessage(
-                            "§cVillager didn't claim workstation! Check placement and make sure villager is unemployed."
+                        NotificationHelper.displayClientError(
+                            "Villager didn't claim workstation! Check placement and make sure villager is unemployed."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.NOT_CLAIMED);
                         return;
                     }
-                    VillagerReroller.LOGGER.debug(
-                        "Villager still has no profession, waiting... ({}ms)",
-                        timeSinceStateStart
-                    );
+                    if (debugLogging) {
+                        VillagerReroller.LOGGER.debug(
+                            "Villager still has no profession, waiting... ({}ms)",
+                            timeSinceStateStart
+                        );
+                    }
+                    return;
+                }
+
+                String professionId = getProfessionId(currentVillager);
+                if (
+                    !targetProfessions.isEmpty() &&
+                    !targetProfessions.contains(professionId)
+                ) {
+                    swapWorkstation(professionId);
                     return;
                 }
 
@@ -961,26 +1218,28 @@ public class RerollController {
                     VillagerReroller.LOGGER.error(
                         "Villager lost profession before opening trades! Going back to wait state."
                     );
-                    NotificationHelper.displayClientMessage(
-                        "§cVillager lost job! Waiting for villager to reclaim..."
+                    NotificationHelper.displayClientError(
+                        "Villager lost job! Waiting for villager to reclaim..."
                     );
                     transitionToState(RerollState.WAITING_FOR_VILLAGER);
                     return;
                 }
 
-                VillagerReroller.LOGGER.debug(
-                    "Attempting to open villager trades (attempt {}ms)",
-                    timeSinceStateStart
-                );
+                if (debugLogging) {
+                    VillagerReroller.LOGGER.debug(
+                        "Attempting to open villager trades (attempt {}ms)",
+                        timeSinceStateStart
+                    );
+                }
                 if (!openVillagerTrades()) {
                     if (timeSinceStateStart > 5000) {
                         VillagerReroller.LOGGER.error(
                             "Failed to open villager trades after 5 seconds!"
                         );
-                        NotificationHelper.displayClientMessage(
-                            "§cFailed to open villager GUI! Make sure you're close enough."
+                        NotificationHelper.displayClientError(
+                            "Failed to open villager GUI! Make sure you're close enough."
                         );
-                        stopRerolling();
+                        stopRerolling(StopReason.TRADE_SCREEN);
                         return;
                     }
                     return;
@@ -1038,156 +1297,161 @@ public class RerollController {
                         "=== SCANNING TRADES (Attempt {}) ===",
                         currentAttempts
                     );
+                    FlightEvents.TradeScan scanEvent =
+                        FlightEvents.beginTradeScan(
+                            currentVillager.getUuid(),
+                            currentAttempts
+                        );
                     TradeScanner scanner = new TradeScanner();
                     List<TradeScanner.ScannedTrade> trades =
                         scanner.scanCurrentTrades();
+                    if (client.world != null) {
+                        VillagerReroller.getInstance()
+                            .getSessionRecorder()
+                            .recordOffers(
+                                merchantScreen.getScreenHandler().getRecipes(),
+                                currentVillager.getVillagerData().level(),
+                                client.world.getRegistryManager()
+                            );
+                    }
 
                     VillagerReroller.LOGGER.info(
                         "Found {} trades from villager",
                         trades.size()
                     );
 
-                    if (!trades.isEmpty()) {
-                        VillagerReroller.LOGGER.info(
-                            "--- All Available Trades ---"
-                        );
-                        for (TradeScanner.ScannedTrade trade : trades) {
-                            VillagerReroller.LOGGER.info(
-                                "  [Slot {}] {}",
-                                trade.getSlotIndex(),
-                                trade.toString()
-                            );
-                        }
-
-                        TradeFilter filter = new TradeFilter(config);
-                        List<TradeScanner.ScannedTrade> matchingTrades =
-                            filter.filterTrades(trades);
+                    VillagerState villagerState = getOrCreateState(
+                        currentVillager
+                    );
 
-                        if (!matchingTrades.isEmpty()) {
-                            matchFound = true;
+                    LockDetector.Reason lockReason = LockDetector.fromScreen(
+                        merchantScreen.getScreenHandler(),
+                        currentVillager
+                    );
+                    boolean locked = lockReason != LockDetector.Reason.NONE;
+                    if (locked) {
+                        villagerState.locked = true;
+                        VillagerReroller.getInstance()
+                            .getOfferCatalog()
+                            .record(currentVillager, trades, true);
+                        VillagerReroller.getInstance()
+                            .getVillagerTracker()
+                            .setLocked(currentVillager.getUuid(), true);
 
-                            VillagerReroller.LOGGER.info(
-                                "╔═══════════════════════════════════════════════════════════════════"
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ ⭐⭐⭐ MATCH FOUND! DESIRED TRADE DETECTED! ⭐⭐⭐"
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "╠═══════════════════════════════════════════════════════════════════"
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ Total attempts: {}",
-                                currentAttempts
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ Matching trades found: {}",
-                                matchingTrades.size()
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ System state: {}",
-                                currentState
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ Time: {}",
-                                new java.text.SimpleDateFormat(
-                                    "HH:mm:ss"
-                                ).format(new java.util.Date())
+                        if (
+                            !config
+                                .getTradeFilter()
+                                .hasAnyMatchingTrade(
+                                    trades,
+                                    getProfessionId(currentVillager)
+                                )
+                        ) {
+                            VillagerReroller.LOGGER.warn(
+                                "Villager {} is locked ({}), its trades can no longer be rerolled",
+                                currentVillager.getUuid(),
+                                lockReason
                             );
-                            VillagerReroller.LOGGER.info(
-                                "╠═══════════════════════════════════════════════════════════════════"
+                            NotificationHelper.displayClientError(
+                                "Villager is locked (already traded with) - stopping"
                             );
-
-                            for (TradeScanner.ScannedTrade matchedTrade : matchingTrades) {
-                                VillagerReroller.LOGGER.info(
-                                    "║ ✓ MATCHED TRADE [Slot {}]:",
-                                    matchedTrade.getSlotIndex()
-                                );
-                                VillagerReroller.LOGGER.info(
-                                    "║   → Item: {}",
-                                    matchedTrade.getItemId()
-                                );
-                                VillagerReroller.LOGGER.info(
-                                    "║   → Emerald Cost: {}",
-                                    matchedTrade.getEmeraldCost()
-                                );
-                                if (!matchedTrade.getEnchantments().isEmpty()) {
-                                    VillagerReroller.LOGGER.info(
-                                        "║   → Enchantments:"
-                                    );
-                                    for (String ench : matchedTrade.getEnchantmentNames()) {
-                                        VillagerReroller.LOGGER.info(
-                                            "║      * {}",
-                                            ench
-                                        );
-                                    }
-                                }
-                                VillagerReroller.LOGGER.info(
-                                    "║   → Full details: {}",
-                                    matchedTrade.toString()
-                                );
-                                VillagerReroller.LOGGER.info("║");
+                            if (client.player != null) {
+                                client.player.closeHandledScreen();
                             }
-
-                            VillagerReroller.LOGGER.info(
-                                "╠═══════════════════════════════════════════════════════════════════"
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ ACTION: Stopping reroll process"
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ STATUS: Lectern will be preserved"
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "║ GUI: {}",
-                                config.isOpenGuiOnlyWhenMatched()
-                                    ? "Keeping open for trading"
-                                    : "Closing"
-                            );
-                            VillagerReroller.LOGGER.info(
-                                "╚═══════════════════════════════════════════════════════════════════"
+                            endTradeScan(
+                                scanEvent,
+                                trades.size(),
+                                0,
+                                StopReason.LOCKED.name()
                             );
+                            stopRerolling(StopReason.LOCKED);
+                            return;
+                        }
+                    }
 
-                            NotificationHelper.sendMatchFoundAlert(
-                                matchingTrades,
-                                currentAttempts
-                            );
+                    long fingerprint = TradeScanner.fingerprint(trades);
+
+                    if (
+                        !trades.isEmpty() &&
+                        fingerprint == villagerState.offerFingerprint
+                    ) {
+                        VillagerReroller.LOGGER.info(
+                            "Offers unchanged since last attempt (fingerprint {}), villager did not reroll - retrying",
+                            Long.toHexString(fingerprint)
+                        );
+                        VillagerReroller.getInstance()
+                            .getStatisticsTracker()
+                            .recordUnchangedOffers();
+                        endTradeScan(
+                            scanEvent,
+                            trades.size(),
+                            0,
+                            AttemptTimeSeries.Outcome.UNCHANGED.name()
+                        );
+                        recordAttempt(AttemptTimeSeries.Outcome.UNCHANGED, -1);
 
-                            VillagerReroller.getInstance()
-                                .getStatisticsTracker()
-                                .recordSuccessfulReroll(currentAttempts);
+                        if (client.player != null) {
+                            client.player.closeHandledScreen();
+                        }
+                        transitionToState(RerollState.WAITING_TO_BREAK);
+                        return;
+                    }
+                    villagerState.offerFingerprint = fingerprint;
 
-                            if (config.isOpenGuiOnlyWhenMatched()) {
-                                VillagerReroller.LOGGER.info(
-                                    "DEBUG: Keeping merchant GUI open for trading (openGuiOnlyWhenMatched=true)"
-                                );
-                            } else {
-                                if (client.player != null) {
-                                    client.player.closeHandledScreen();
-                                    VillagerReroller.LOGGER.info(
-                                        "DEBUG: Closed merchant GUI"
-                                    );
-                                }
-                            }
+                    // A locked villager's offers were recorded above
+                    if (!trades.isEmpty() && !locked) {
+                        VillagerReroller.getInstance()
+                            .getOfferCatalog()
+                            .record(currentVillager, trades);
+                    }
 
-                            stopRerolling();
-                            VillagerReroller.LOGGER.info(
-                                "DEBUG: Reroll process stopped successfully - lectern preserved - matchFound flag is now TRUE"
-                            );
-                            return;
-                        } else {
+                    if (!trades.isEmpty()) {
+                        VillagerReroller.LOGGER.info(
+                            "--- All Available Trades ---"
+                        );
+                        for (TradeScanner.ScannedTrade trade : trades) {
                             VillagerReroller.LOGGER.info(
-                                "No matching trades found this attempt, continuing reroll"
+                                "  [Slot {}] {}",
+                                trade.getSlotIndex(),
+                                trade.toString()
                             );
                         }
+
+                        pendingVerdict = tradeEvaluationWorker.submit(
+                            config,
+                            trades,
+                            getProfessionId(currentVillager)
+                        );
+                        pendingScanEvent = scanEvent;
+                        pendingOfferCount = trades.size();
                     } else {
                         VillagerReroller.LOGGER.warn(
                             "Scanner returned empty trade list!"
                         );
+                        endTradeScan(
+                            scanEvent,
+                            0,
+                            0,
+                            AttemptTimeSeries.Outcome.NO_MATCH.name()
+                        );
+                        recordAttempt(AttemptTimeSeries.Outcome.NO_MATCH, -1);
                     }
 
                     stateActionStarted = true;
                 }
 
+                // Evaluation runs on the worker; the verdict is applied on
+                // the first tick after it is ready
+                if (pendingVerdict != null) {
+                    if (!pendingVerdict.isDone()) {
+                        return;
+                    }
+                    CompletableFuture<TradeVerdict> verdict = pendingVerdict;
+                    pendingVerdict = null;
+                    if (applyTradeVerdict(verdict, config)) {
+                        return;
+                    }
+                }
+
                 long guiCloseDelay = config.isOpenGuiOnlyWhenMatched()
                     ? 0
                     : 400;
@@ -1211,44 +1475,185 @@ public class RerollController {
         }
     }
 
-    private BlockPos findJobSiteBlock() {
-        if (currentVillager == null) {
-            return null;
+    // A failed evaluation counts as a miss so the run carries on
+    private boolean applyTradeVerdict(
+        CompletableFuture<TradeVerdict> future,
+        ConfigSnapshot config
+    ) {
+        FlightEvents.TradeScan scanEvent = pendingScanEvent;
+        pendingScanEvent = null;
+
+        TradeVerdict verdict;
+        try {
+            verdict = future.join();
+        } catch (CancellationException | CompletionException e) {
+            VillagerReroller.LOGGER.error("Trade evaluation failed", e);
+            endTradeScan(scanEvent, pendingOfferCount, 0, "ERROR");
+            recordAttempt(AttemptTimeSeries.Outcome.NO_MATCH, -1);
+            return false;
         }
 
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
-        int searchReach = config.getJobSiteSearchReach();
+        List<TradeScanner.ScannedTrade> matchingTrades = verdict.getMatches();
+        int targetPrice = verdict.getTargetPrice();
+        endTradeScan(
+            scanEvent,
+            pendingOfferCount,
+            matchingTrades.size(),
+            verdict.isMatch()
+                ? AttemptTimeSeries.Outcome.MATCH.name()
+                : AttemptTimeSeries.Outcome.NO_MATCH.name()
+        );
 
-        BlockPos villagerPos = currentVillager.getBlockPos();
+        if (verdict.isMatch()) {
+            matchFound = true;
+            recordAttempt(AttemptTimeSeries.Outcome.MATCH, targetPrice);
+            VillagerReroller.getInstance()
+                .getEventStream()
+                .publishMatch(currentAttempts, matchingTrades);
 
-        for (int x = -searchReach; x <= searchReach; x++) {
-            for (int y = -3; y <= 3; y++) {
-                for (int z = -searchReach; z <= searchReach; z++) {
-                    BlockPos pos = villagerPos.add(x, y, z);
-                    if (jobSiteHandler.isJobSiteBlock(pos)) {
-                        return pos;
+            VillagerReroller.LOGGER.info(
+                "╔═══════════════════════════════════════════════════════════════════"
+            );
+            VillagerReroller.LOGGER.info(
+                "║ ⭐⭐⭐ MATCH FOUND! DESIRED TRADE DETECTED! ⭐⭐⭐"
+            );
+            VillagerReroller.LOGGER.info(
+                "╠═══════════════════════════════════════════════════════════════════"
+            );
+            VillagerReroller.LOGGER.info(
+                "║ Total attempts: {}",
+                currentAttempts
+            );
+            VillagerReroller.LOGGER.info(
+                "║ Matching trades found: {}",
+                matchingTrades.size()
+            );
+            VillagerReroller.LOGGER.info("║ System state: {}", currentState);
+            VillagerReroller.LOGGER.info(
+                "║ Time: {}",
+                new java.text.SimpleDateFormat(
+                    "HH:mm:ss"
+                ).format(new java.util.Date())
+            );
+            VillagerReroller.LOGGER.info(
+                "╠═══════════════════════════════════════════════════════════════════"
+            );
+
+            for (TradeScanner.ScannedTrade matchedTrade : matchingTrades) {
+                VillagerReroller.LOGGER.info(
+                    "║ ✓ MATCHED TRADE [Slot {}]:",
+                    matchedTrade.getSlotIndex()
+                );
+                VillagerReroller.LOGGER.info(
+                    "║   → Item: {}",
+                    matchedTrade.getItemId()
+                );
+                VillagerReroller.LOGGER.info(
+                    "║   → Emerald Cost: {}",
+                    matchedTrade.getEmeraldCost()
+                );
+                if (!matchedTrade.getEnchantments().isEmpty()) {
+                    VillagerReroller.LOGGER.info("║   → Enchantments:");
+                    for (String ench : matchedTrade.getEnchantmentNames()) {
+                        VillagerReroller.LOGGER.info("║      * {}", ench);
                     }
                 }
+                VillagerReroller.LOGGER.info(
+                    "║   → Full details: {}",
+                    matchedTrade.toString()
+                );
+                VillagerReroller.LOGGER.info("║");
             }
-        }
 
-        return null;
-    }
+            VillagerReroller.LOGGER.info(
+                "╠═══════════════════════════════════════════════════════════════════"
+            );
+            VillagerReroller.LOGGER.info("║ ACTION: Stopping reroll process");
+            VillagerReroller.LOGGER.info("║ STATUS: Lectern will be preserved");
+            VillagerReroller.LOGGER.info(
+                "║ GUI: {}",
+                config.isOpenGuiOnlyWhenMatched()
+                    ? "Keeping open for trading"
+                    : "Closing"
+            );
+            VillagerReroller.LOGGER.info(
+                "╚═══════════════════════════════════════════════════════════════════"
+            );
 
-    private BlockPos findJobSiteBlockNear(BlockPos center, int radius) {
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -1; y <= 1; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    BlockPos pos = center.add(x, y, z);
-                    if (jobSiteHandler.isJobSiteBlock(pos)) {
-                        return pos;
-                    }
+            NotificationHelper.sendMatchFoundAlert(
+                matchingTrades,
+                currentAttempts
+            );
+
+            VillagerReroller.getInstance()
+                .getStatisticsTracker()
+                .recordSuccessfulReroll(currentAttempts);
+
+            if (config.isOpenGuiOnlyWhenMatched()) {
+                VillagerReroller.LOGGER.info(
+                    "DEBUG: Keeping merchant GUI open for trading (openGuiOnlyWhenMatched=true)"
+                );
+            } else {
+                if (client.player != null) {
+                    client.player.closeHandledScreen();
+                    VillagerReroller.LOGGER.info("DEBUG: Closed merchant GUI");
                 }
             }
+
+            stopRerolling();
+            VillagerReroller.LOGGER.info(
+                "DEBUG: Reroll process stopped successfully - lectern preserved - matchFound flag is now TRUE"
+            );
+            return true;
         }
-        return null;
+
+        TradeEvaluator.TradeScore best = verdict.getScores().isEmpty()
+            ? null
+            : verdict.getScores().get(0);
+        VillagerReroller.LOGGER.info(
+            "No matching trades found this attempt, continuing reroll (best offer: {})",
+            best != null ? best.getGrade() + " " + best.getScore() : "none"
+        );
+        recordAttempt(AttemptTimeSeries.Outcome.NO_MATCH, targetPrice);
+        return false;
+    }
+
+    private void cancelPendingWork() {
+        if (pendingVerdict != null) {
+            pendingVerdict.cancel(false);
+            pendingVerdict = null;
+            pendingScanEvent = null;
+        }
+        if (pendingPlacement != null) {
+            pendingPlacement.cancel(false);
+            pendingPlacement = null;
+        }
+    }
+
+    private BlockPos findJobSiteBlock() {
+        if (currentVillager == null) {
+            return null;
+        }
+
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
+        int searchReach = config.getJobSiteSearchReach();
+
+        return jobSiteHandler.findJobSiteBlock(
+            currentVillager.getBlockPos(),
+            searchReach,
+            3,
+            reservedJobSites
+        );
+    }
+
+    private BlockPos findJobSiteBlockNear(BlockPos center, int radius) {
+        return jobSiteHandler.findJobSiteBlock(
+            center,
+            radius,
+            1,
+            reservedJobSites
+        );
     }
 
     private boolean isInventoryFull() {
@@ -1268,9 +1673,8 @@ public class RerollController {
             return false;
         }
 
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
         double interactionReach = config.getInteractionReach();
 
         try {
@@ -1284,30 +1688,17 @@ public class RerollController {
                 return false;
             }
 
-            net.minecraft.util.math.Vec3d villagerPos =
-                new net.minecraft.util.math.Vec3d(
-                    currentVillager.getX(),
-                    currentVillager.getY(),
-                    currentVillager.getZ()
-                );
-            net.minecraft.util.math.Vec3d playerPos =
-                new net.minecraft.util.math.Vec3d(
-                    client.player.getX(),
-                    client.player.getY(),
-                    client.player.getZ()
-                );
-            net.minecraft.util.math.Vec3d eyePos = playerPos.add(
-                0,
-                client.player.getEyeHeight(client.player.getPose()),
-                0
-            );
-
-            double deltaX = villagerPos.x - eyePos.x;
+            // Plain doubles rather than Vec3d: this runs every tick until
+            // the screen opens
+            double eyeY =
+                client.player.getY() +
+                client.player.getEyeHeight(client.player.getPose());
+            double deltaX = currentVillager.getX() - client.player.getX();
             double deltaY =
-                villagerPos.y +
+                currentVillager.getY() +
                 currentVillager.getEyeHeight(currentVillager.getPose()) -
-                eyePos.y;
-            double deltaZ = villagerPos.z - eyePos.z;
+                eyeY;
+            double deltaZ = currentVillager.getZ() - client.player.getZ();
 
             double horizontalDistance = Math.sqrt(
                 deltaX * deltaX + deltaZ * deltaZ
@@ -1321,12 +1712,29 @@ public class RerollController {
             client.player.setYaw(yaw);
             client.player.setPitch(pitch);
 
-            VillagerReroller.LOGGER.debug(
-                "Facing villager at distance {} with yaw={}, pitch={}",
-                String.format("%.2f", distance),
-                String.format("%.1f", yaw),
-                String.format("%.1f", pitch)
-            );
+            if (VillagerReroller.LOGGER.isDebugEnabled()) {
+                VillagerReroller.LOGGER.debug(
+                    "Facing villager at distance {} with yaw={}, pitch={}",
+                    String.format("%.2f", distance),
+                    String.format("%.1f", yaw),
+                    String.format("%.1f", pitch)
+                );
+            }
+
+            if (
+                client.currentScreen instanceof
+                    net.minecraft.client.gui.screen.ingame.MerchantScreen
+            ) {
+                return true;
+            }
+
+            if (
+                !VillagerReroller.getInstance()
+                    .getInteractionBudget()
+                    .tryAcquire()
+            ) {
+                return false;
+            }
 
             client.interactionManager.interactEntity(
                 client.player,
@@ -1354,58 +1762,109 @@ public class RerollController {
         }
     }
 
+    // None of the targets can come up for this profession, so instead of
+    // opening trades the workstation is broken and the target's put back
+    private void swapWorkstation(String professionId) {
+        Block workstation = jobSiteHandler.getPreferredWorkstation();
+        String workstationName = workstation != null
+            ? workstation.getName().getString()
+            : "workstation";
+
+        if (!jobSiteHandler.hasPreferredWorkstation()) {
+            VillagerReroller.LOGGER.error(
+                "Villager took {} but no {} is in inventory to swap in",
+                professionId,
+                workstationName
+            );
+            NotificationHelper.displayClientError(
+                "Villager is the wrong profession and you have no " +
+                    workstationName +
+                    " to swap in!"
+            );
+            stopRerolling(StopReason.OUT_OF_WORKSTATIONS);
+            return;
+        }
+
+        if (workstationSwaps >= MAX_WORKSTATION_SWAPS) {
+            VillagerReroller.LOGGER.error(
+                "Villager is still {} after {} workstation swaps",
+                professionId,
+                workstationSwaps
+            );
+            NotificationHelper.displayClientError(
+                "Villager keeps taking the wrong job! Check for other workstations nearby."
+            );
+            stopRerolling(StopReason.PLACEMENT);
+            return;
+        }
+
+        workstationSwaps++;
+        VillagerReroller.LOGGER.info(
+            "Villager took {}, which offers no target; swapping in a {} (swap {}/{})",
+            professionId,
+            workstationName,
+            workstationSwaps,
+            MAX_WORKSTATION_SWAPS
+        );
+        NotificationHelper.displayClientMessage(
+            "§6Wrong profession, swapping in a " + workstationName + "..."
+        );
+        transitionToState(RerollState.WAITING_TO_BREAK);
+    }
+
+    private static String getProfessionId(VillagerEntity villager) {
+        return villager
+            .getVillagerData()
+            .profession()
+            .getKey()
+            .map(key -> key.getValue().toString())
+            .orElse("minecraft:none");
+    }
+
     private VillagerState getOrCreateState(VillagerEntity villager) {
         UUID uuid = villager.getUuid();
         return villagerStates.computeIfAbsent(uuid, k -> new VillagerState());
     }
 
-    private BlockPos findSuitablePlacementPosition(
+    private CompletableFuture<BlockPos> findSuitablePlacementPosition(
         BlockPos villagerPos,
         int maxRadius
     ) {
-        if (client.world == null) {
-            return null;
-        }
-
         VillagerReroller.LOGGER.debug(
             "Searching for placement position from radius 1 to {} around {}",
             maxRadius,
             villagerPos
         );
+        return jobSiteHandler.findPlacementPositionAsync(
+            villagerPos,
+            maxRadius
+        );
+    }
 
-        for (int radius = 1; radius <= maxRadius; radius++) {
-            for (int y = 0; y <= 1; y++) {
-                for (int x = -radius; x <= radius; x++) {
-                    for (int z = -radius; z <= radius; z++) {
-                        if (
-                            y == 0 &&
-                            Math.abs(x) != radius &&
-                            Math.abs(z) != radius
-                        ) {
-                            continue;
-                        }
-
-                        BlockPos testPos = villagerPos.add(x, y, z);
+    private BlockPos takePendingPlacement(int maxRadius) {
+        CompletableFuture<BlockPos> search = pendingPlacement;
+        pendingPlacement = null;
 
-                        if (jobSiteHandler.isValidPlacementPosition(testPos)) {
-                            VillagerReroller.LOGGER.debug(
-                                "Found valid placement position at {} (radius {}, y offset {})",
-                                testPos,
-                                radius,
-                                y
-                            );
-                            return testPos;
-                        }
-                    }
-                }
-            }
+        BlockPos placementPos;
+        try {
+            placementPos = search.join();
+        } catch (CancellationException | CompletionException e) {
+            VillagerReroller.LOGGER.error("Placement search failed", e);
+            return null;
         }
 
-        VillagerReroller.LOGGER.debug(
-            "No valid placement position found within radius {}",
-            maxRadius
-        );
-        return null;
+        if (placementPos != null) {
+            VillagerReroller.LOGGER.debug(
+                "Found valid placement position at {}",
+                placementPos
+            );
+        } else {
+            VillagerReroller.LOGGER.debug(
+                "No valid placement position found within radius {}",
+                maxRadius
+            );
+        }
+        return placementPos;
     }
 
     public boolean isRunning() {
@@ -1416,6 +1875,53 @@ public class RerollController {
         return currentAttempts;
     }
 
+    public boolean wasLastRunMatched() {
+        return lastRunMatched;
+    }
+
+    // Where the last run's villager works, or null if its workstation was
+    // broken when the run stopped
+    public BlockPos getLastJobSite() {
+        return lastJobSite;
+    }
+
+    // Workstations that belong to other villagers, never claimed or broken
+    public void setReservedJobSites(Set<BlockPos> reservedJobSites) {
+        this.reservedJobSites = reservedJobSites;
+    }
+
+    public boolean isOnCooldown(UUID villagerId, long cooldownMs, long now) {
+        VillagerState state = villagerStates.get(villagerId);
+        return (
+            state != null &&
+            state.lastAttemptTime > 0 &&
+            now - state.lastAttemptTime < cooldownMs
+        );
+    }
+
+    public JobSiteHandler getJobSiteHandler() {
+        return jobSiteHandler;
+    }
+
+    public boolean isLocked(UUID villagerId) {
+        VillagerState state = villagerStates.get(villagerId);
+        if (state != null && state.locked) {
+            return true;
+        }
+
+        VillagerTracker.TrackedVillager tracked = VillagerReroller.getInstance()
+            .getVillagerTracker()
+            .get(villagerId);
+        return (
+            (tracked != null && tracked.isLocked()) ||
+            VillagerReroller.getInstance().getOfferCatalog().isLocked(villagerId)
+        );
+    }
+
+    public RerollState getCurrentState() {
+        return currentState;
+    }
+
     public VillagerEntity getCurrentVillager() {
         return currentVillager;
     }
@@ -1512,5 +2018,6 @@ public class RerollController {
         long lastAttemptTime = 0;
         int totalAttempts = 0;
         boolean locked = false;
+        long offerFingerprint = 0;
     }
 }
@@ -0,0 +1,343 @@
+package com.villagerreroller.automation;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.config.ModConfig;
+import com.villagerreroller.util.NotificationHelper;
+import com.villagerreroller.util.VillagerTracker;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.block.Block;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ingame.MerchantScreen;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.util.math.BlockPos;
+
+public class RerollQueue {
+
+    private final MinecraftClient client;
+    private final RerollController controller;
+    private final VillagerTracker tracker;
+    // Workstations of villagers this batch already ran, matched ones in
+    // particular, so a later run never claims or breaks them
+    private final Set<BlockPos> reservedJobSites = new HashSet<>();
+
+    private PriorityQueue<Candidate> pending;
+    private boolean running = false;
+    private VillagerEntity currentVillager = null;
+    private int matchedCount = 0;
+    private int failedCount = 0;
+    private int skippedCount = 0;
+
+    public RerollQueue(RerollController controller, VillagerTracker tracker) {
+        this.client = MinecraftClient.getInstance();
+        this.controller = controller;
+        this.tracker = tracker;
+        this.pending = new PriorityQueue<>();
+
+        ClientTickEvents.END_CLIENT_TICK.register(this::onClientTick);
+    }
+
+    public boolean start() {
+        if (running) {
+            NotificationHelper.displayClientMessage("Batch already running");
+            return false;
+        }
+
+        if (controller.isRunning()) {
+            NotificationHelper.displayClientError(
+                "Stop the current reroll before starting a batch"
+            );
+            return false;
+        }
+
+        if (VillagerReroller.getInstance().getSurveyController().isRunning()) {
+            NotificationHelper.displayClientError(
+                "Stop the survey before starting a batch"
+            );
+            return false;
+        }
+
+        if (client.player == null) {
+            return false;
+        }
+
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
+        if (
+            !config.isEnabled() ||
+            config.getOperationMode() == ModConfig.OperationMode.MANUAL
+        ) {
+            NotificationHelper.displayClientError(
+                "Batch rerolling needs the mod enabled in Semi-Auto or Full Auto mode"
+            );
+            return false;
+        }
+        long now = System.currentTimeMillis();
+
+        List<VillagerTracker.TrackedVillager> eligible = tracker.findWithin(
+            client.player.getX(),
+            client.player.getY(),
+            client.player.getZ(),
+            config.getInteractionReach(),
+            tracked -> isEligible(tracked, config, now)
+        );
+
+        List<VillagerEntity> villagers = new ArrayList<>(eligible.size());
+        for (VillagerTracker.TrackedVillager tracked : eligible) {
+            villagers.add(tracked.getEntity());
+        }
+        pending = orderByDistance(villagers);
+
+        if (pending.isEmpty()) {
+            NotificationHelper.displayClientMessage(
+                "No rerollable villagers in reach"
+            );
+            return false;
+        }
+
+        if (!checkWorkstationSupply(eligible, config)) {
+            pending.clear();
+            return false;
+        }
+
+        running = true;
+        currentVillager = null;
+        reservedJobSites.clear();
+        controller.setReservedJobSites(reservedJobSites);
+        matchedCount = 0;
+        failedCount = 0;
+        skippedCount = 0;
+
+        VillagerReroller.LOGGER.info(
+            "Starting batch reroll of {} villagers",
+            pending.size()
+        );
+        NotificationHelper.displayClientMessage(
+            "Batch rerolling " + pending.size() + " villagers..."
+        );
+        return true;
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        if (controller.isRunning()) {
+            controller.stopRerolling();
+        }
+
+        VillagerReroller.LOGGER.info(
+            "Batch finished - matched: {}, failed: {}, skipped: {}, remaining: {}",
+            matchedCount,
+            failedCount,
+            skippedCount,
+            pending.size()
+        );
+        NotificationHelper.displayClientMessage(
+            "Batch finished: " +
+                matchedCount +
+                " matched, " +
+                failedCount +
+                " failed" +
+                (skippedCount > 0 ? ", " + skippedCount + " skipped" : "") +
+                (pending.isEmpty() ? "" : ", " + pending.size() + " left")
+        );
+
+        pending.clear();
+        currentVillager = null;
+        reservedJobSites.clear();
+        controller.setReservedJobSites(Set.of());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getRemaining() {
+        return pending.size();
+    }
+
+    public static boolean isEligible(
+        VillagerTracker.TrackedVillager tracked,
+        ConfigSnapshot config,
+        long now
+    ) {
+        RerollController controller =
+            VillagerReroller.getInstance().getRerollController();
+        return (
+            !tracked.isBaby() &&
+            !tracked.isNitwit() &&
+            !tracked.isLocked() &&
+            !controller.isLocked(tracked.getUuid()) &&
+            !config.isProfessionExcluded(tracked.getProfessionId()) &&
+            !controller.isOnCooldown(
+                tracked.getUuid(),
+                config.getVillagerCooldownMs(),
+                now
+            )
+        );
+    }
+
+    private void onClientTick(MinecraftClient client) {
+        if (!running) {
+            return;
+        }
+
+        // An emergency stop ends the batch through KeybindManager directly
+        if (client.player == null) {
+            stop();
+            return;
+        }
+
+        if (controller.isRunning()) {
+            return;
+        }
+
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
+        long now = System.currentTimeMillis();
+
+        if (currentVillager != null) {
+            if (controller.wasLastRunMatched()) {
+                matchedCount++;
+            } else {
+                failedCount++;
+            }
+            currentVillager = null;
+            BlockPos jobSite = controller.getLastJobSite();
+            if (jobSite != null) {
+                reservedJobSites.add(jobSite.toImmutable());
+            }
+
+            if (client.currentScreen instanceof MerchantScreen) {
+                client.player.closeHandledScreen();
+            }
+
+            // The player may have walked while collecting drops, so the
+            // remaining villagers are re-ranked from where they stand now.
+            List<VillagerEntity> remaining = new ArrayList<>(pending.size());
+            for (Candidate candidate : pending) {
+                remaining.add(candidate.villager);
+            }
+            pending = orderByDistance(remaining);
+        }
+
+        Candidate next = pending.poll();
+        if (next == null) {
+            stop();
+            return;
+        }
+
+        VillagerTracker.TrackedVillager tracked = tracker.get(
+            next.villager.getUuid()
+        );
+        if (
+            tracked == null ||
+            !next.villager.isAlive() ||
+            !isEligible(tracked, config, now) ||
+            client.player.squaredDistanceTo(next.villager) >
+                config.getInteractionReachSq()
+        ) {
+            skippedCount++;
+            return;
+        }
+
+        controller.startRerolling(next.villager);
+        if (controller.isRunning()) {
+            currentVillager = next.villager;
+        } else {
+            skippedCount++;
+        }
+    }
+
+    // Every villager not already in a target profession takes one target
+    // workstation, placed fresh or swapped in; the one broken each cycle
+    // comes back, so that is the whole supply the batch needs.
+    private boolean checkWorkstationSupply(
+        List<VillagerTracker.TrackedVillager> villagers,
+        ConfigSnapshot config
+    ) {
+        List<String> professions = config
+            .getTradeFilter()
+            .getTargetProfessions();
+        JobSiteHandler jobSites = controller.getJobSiteHandler();
+        Block workstation = jobSites.selectWorkstation(professions);
+        if (workstation == null) {
+            return true;
+        }
+
+        int needed = 0;
+        for (VillagerTracker.TrackedVillager tracked : villagers) {
+            if (!professions.contains(tracked.getProfessionId())) {
+                needed++;
+            }
+        }
+        int available = jobSites.countInInventory(workstation);
+        String name = workstation.getName().getString();
+        VillagerReroller.LOGGER.info(
+            "Batch needs {} x {}, {} in inventory",
+            needed,
+            name,
+            available
+        );
+
+        if (needed > 0 && available == 0) {
+            NotificationHelper.displayClientError(
+                "This batch needs " + needed + " " + name + ", you have none"
+            );
+            return false;
+        }
+        if (available < needed) {
+            NotificationHelper.displayClientMessage(
+                "§6Only " +
+                    available +
+                    " of the " +
+                    needed +
+                    " " +
+                    name +
+                    " this batch needs; the rest will fail"
+            );
+        }
+        return true;
+    }
+
+    private PriorityQueue<Candidate> orderByDistance(
+        List<VillagerEntity> villagers
+    ) {
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(
+            Math.max(1, villagers.size())
+        );
+        for (VillagerEntity villager : villagers) {
+            queue.add(
+                new Candidate(
+                    villager,
+                    client.player.squaredDistanceTo(villager)
+                )
+            );
+        }
+        return queue;
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+
+        final VillagerEntity villager;
+        final double distanceSq;
+
+        Candidate(VillagerEntity villager, double distanceSq) {
+            this.villager = villager;
+            this.distanceSq = distanceSq;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(distanceSq, other.distanceSq);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.villagerreroller.automation;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.stats.TickCostMeter;
+import com.villagerreroller.trade.LockDetector;
+import com.villagerreroller.trade.OfferCatalog;
+import com.villagerreroller.trade.TradeScanner;
+import com.villagerreroller.util.NotificationHelper;
+import com.villagerreroller.util.VillagerTracker;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ingame.MerchantScreen;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.util.Hand;
+
+public class SurveyController {
+
+    private static final long OPEN_TIMEOUT_MS = 3000;
+
+    private final MinecraftClient client;
+    private final OfferCatalog catalog;
+    private final InteractionBudget interactionBudget;
+    private final Deque<VillagerEntity> pendingVillagers;
+
+    private enum SurveyState {
+        IDLE,
+        OPENING,
+        READING,
+    }
+
+    private SurveyState currentState = SurveyState.IDLE;
+    private VillagerEntity currentVillager = null;
+    private long stateStartTime = 0;
+    private int surveyedCount = 0;
+    private int skippedCount = 0;
+
+    public SurveyController(
+        OfferCatalog catalog,
+        InteractionBudget interactionBudget
+    ) {
+        this.client = MinecraftClient.getInstance();
+        this.catalog = catalog;
+        this.interactionBudget = interactionBudget;
+        this.pendingVillagers = new ArrayDeque<>();
+
+        ClientTickEvents.END_CLIENT_TICK.register(this::onClientTick);
+    }
+
+    public boolean startSurvey() {
+        if (isRunning()) {
+            NotificationHelper.displayClientMessage("Survey already running");
+            return false;
+        }
+
+        if (VillagerReroller.getInstance().getRerollController().isRunning()) {
+            NotificationHelper.displayClientError(
+                "Stop rerolling before starting a survey"
+            );
+            return false;
+        }
+
+        if (client.player == null) {
+            return false;
+        }
+
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
+
+        List<VillagerTracker.TrackedVillager> villagers =
+            VillagerReroller.getInstance()
+                .getVillagerTracker()
+                .findWithin(
+                    client.player.getX(),
+                    client.player.getY(),
+                    client.player.getZ(),
+                    config.getInteractionReach(),
+                    tracked -> !tracked.isBaby() && tracked.isEmployed()
+                );
+        villagers.sort(
+            Comparator.comparingDouble(tracked ->
+                client.player.squaredDistanceTo(tracked.getEntity())
+            )
+        );
+
+        pendingVillagers.clear();
+        for (VillagerTracker.TrackedVillager tracked : villagers) {
+            pendingVillagers.add(tracked.getEntity());
+        }
+
+        if (pendingVillagers.isEmpty()) {
+            NotificationHelper.displayClientMessage(
+                "No employed villagers in reach to survey"
+            );
+            return false;
+        }
+
+        surveyedCount = 0;
+        skippedCount = 0;
+        currentVillager = null;
+        transitionToState(SurveyState.OPENING);
+
+        VillagerReroller.LOGGER.info(
+            "Starting survey of {} villagers",
+            pendingVillagers.size()
+        );
+        NotificationHelper.displayClientMessage(
+            "Surveying " + pendingVillagers.size() + " villagers..."
+        );
+        return true;
+    }
+
+    public void stopSurvey() {
+        if (!isRunning()) {
+            return;
+        }
+
+        if (
+            client.currentScreen instanceof MerchantScreen &&
+            client.player != null
+        ) {
+            client.player.closeHandledScreen();
+        }
+
+        pendingVillagers.clear();
+        currentVillager = null;
+        currentState = SurveyState.IDLE;
+
+        VillagerReroller.LOGGER.info(
+            "Survey stopped - surveyed: {}, skipped: {}, catalog size: {}",
+            surveyedCount,
+            skippedCount,
+            catalog.getVillagerCount()
+        );
+        NotificationHelper.displayClientMessage(
+            "Survey finished: " +
+                surveyedCount +
+                " villagers catalogued" +
+                (skippedCount > 0 ? ", " + skippedCount + " skipped" : "")
+        );
+    }
+
+    public boolean isRunning() {
+        return currentState != SurveyState.IDLE;
+    }
+
+    private void transitionToState(SurveyState newState) {
+        this.currentState = newState;
+        this.stateStartTime = System.currentTimeMillis();
+    }
+
+    private void onClientTick(MinecraftClient client) {
+        if (currentState == SurveyState.IDLE) {
+            return;
+        }
+
+        TickCostMeter tickCost =
+            VillagerReroller.getInstance().getTickCostMeter();
+        tickCost.begin();
+        try {
+            tick(client);
+        } finally {
+            tickCost.end();
+        }
+    }
+
+    private void tick(MinecraftClient client) {
+
+        if (client.player == null || client.interactionManager == null) {
+            stopSurvey();
+            return;
+        }
+
+        long timeInState = System.currentTimeMillis() - stateStartTime;
+
+        switch (currentState) {
+            case OPENING:
+                if (currentVillager == null) {
+                    currentVillager = pendingVillagers.poll();
+                    if (currentVillager == null) {
+                        stopSurvey();
+                        return;
+                    }
+                }
+
+                if (!currentVillager.isAlive() || currentVillager.isRemoved()) {
+                    skipCurrentVillager("no longer loaded");
+                    return;
+                }
+
+                double reachSq = VillagerReroller.getInstance()
+                    .getConfigSnapshot()
+                    .getInteractionReachSq();
+                if (client.player.squaredDistanceTo(currentVillager) > reachSq) {
+                    skipCurrentVillager("out of reach");
+                    return;
+                }
+
+                if (!interactionBudget.tryAcquire()) {
+                    return;
+                }
+
+                faceVillager(currentVillager);
+                client.interactionManager.interactEntity(
+                    client.player,
+                    currentVillager,
+                    Hand.MAIN_HAND
+                );
+                transitionToState(SurveyState.READING);
+                break;
+            case READING:
+                if (
+                    client.currentScreen instanceof
+                        MerchantScreen merchantScreen &&
+                    merchantScreen.getScreenHandler().getRecipes() != null &&
+                    !merchantScreen.getScreenHandler().getRecipes().isEmpty()
+                ) {
+                    List<TradeScanner.ScannedTrade> trades =
+                        new TradeScanner().scanCurrentTrades();
+                    LockDetector.Reason lockReason = LockDetector.fromScreen(
+                        merchantScreen.getScreenHandler(),
+                        currentVillager
+                    );
+                    catalog.record(
+                        currentVillager,
+                        trades,
+                        lockReason != LockDetector.Reason.NONE
+                    );
+                    surveyedCount++;
+
+                    VillagerReroller.LOGGER.debug(
+                        "Surveyed villager {}: {} offers",
+                        currentVillager.getUuid(),
+                        trades.size()
+                    );
+
+                    client.player.closeHandledScreen();
+                    currentVillager = null;
+                    transitionToState(SurveyState.OPENING);
+                    return;
+                }
+
+                if (timeInState > OPEN_TIMEOUT_MS) {
+                    if (client.currentScreen instanceof MerchantScreen) {
+                        client.player.closeHandledScreen();
+                    }
+                    skipCurrentVillager("trade screen did not open");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void skipCurrentVillager(String reason) {
+        VillagerReroller.LOGGER.debug(
+            "Skipping villager {} in survey: {}",
+            currentVillager.getUuid(),
+            reason
+        );
+        skippedCount++;
+        currentVillager = null;
+        transitionToState(SurveyState.OPENING);
+    }
+
+    private void faceVillager(VillagerEntity villager) {
+        double deltaX = villager.getX() - client.player.getX();
+        double deltaY =
+            villager.getY() +
+            villager.getEyeHeight(villager.getPose()) -
+            (client.player.getY() +
+                client.player.getEyeHeight(client.player.getPose()));
+        double deltaZ = villager.getZ() - client.player.getZ();
+
+        double horizontalDistance = Math.sqrt(
+            deltaX * deltaX + deltaZ * deltaZ
+        );
+        client.player.setYaw(
+            (float) (Math.atan2(deltaZ, deltaX) * (180.0 / Math.PI)) - 90.0f
+        );
+        client.player.setPitch(
+            (float) -(Math.atan2(deltaY, horizontalDistance) *
+                (180.0 / Math.PI))
+        );
+    }
+}
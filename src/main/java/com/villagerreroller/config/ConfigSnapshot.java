@@ -0,0 +1,265 @@
+package com.villagerreroller.config;
+
+import com.villagerreroller.trade.TradeEvaluator;
+import com.villagerreroller.trade.TradeFilter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class ConfigSnapshot {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+
+    private final boolean enabled;
+    private final ModConfig.OperationMode operationMode;
+    private final int rerollDelayMs;
+    private final int maxRerollAttempts;
+    private final int villagerCooldownMs;
+    private final boolean pauseIfInventoryFull;
+    private final boolean serverFriendlyThrottling;
+
+    private final boolean soundNotifications;
+    private final ModConfig.NotificationStyle notificationStyle;
+    private final boolean openGuiOnlyWhenMatched;
+    private final boolean showOverlay;
+    private final boolean showTradeQuality;
+    private final boolean showProgressBar;
+
+    private final int maxEmeraldsBooks;
+    private final int maxEmeraldsTools;
+    private final int maxEmeraldsArmor;
+    private final int maxEmeraldsMisc;
+    private final ModConfig.FilterLogic filterLogic;
+    private final String selectedEnchantment;
+    private final int selectedEnchantmentLevel;
+    private final boolean requireMaxEnchantmentLevel;
+    private final List<String> combinedEnchantments;
+    private final Set<String> preferredFirstSlotItems;
+    private final Set<String> excludedProfessions;
+    private final Set<String> excludedProfessionIds;
+    private final Set<String> itemWhitelist;
+
+    private final double interactionReach;
+    private final double interactionReachSq;
+    private final int placementReach;
+    private final int placementReachSq;
+    private final int jobSiteSearchReach;
+    private final boolean useFixedPlacementBlock;
+    private final String activeProfile;
+
+    private final TradeFilter tradeFilter;
+    private final TradeEvaluator tradeEvaluator;
+
+    private ConfigSnapshot(ModConfig config, String activeProfile) {
+        this.version = VERSIONS.incrementAndGet();
+
+        this.enabled = config.isEnabled();
+        this.operationMode = config.getOperationMode();
+        this.rerollDelayMs = config.getRerollDelayMs();
+        this.maxRerollAttempts = Math.max(1, config.getMaxRerollAttempts());
+        this.villagerCooldownMs = config.getVillagerCooldownMs();
+        this.pauseIfInventoryFull = config.isPauseIfInventoryFull();
+        this.serverFriendlyThrottling = config.isServerFriendlyThrottling();
+
+        this.soundNotifications = config.isSoundNotifications();
+        this.notificationStyle = config.getNotificationStyle();
+        this.openGuiOnlyWhenMatched = config.isOpenGuiOnlyWhenMatched();
+        this.showOverlay = config.isShowOverlay();
+        this.showTradeQuality = config.isShowTradeQuality();
+        this.showProgressBar = config.isShowProgressBar();
+
+        this.maxEmeraldsBooks = config.getMaxEmeraldsBooks();
+        this.maxEmeraldsTools = config.getMaxEmeraldsTools();
+        this.maxEmeraldsArmor = config.getMaxEmeraldsArmor();
+        this.maxEmeraldsMisc = config.getMaxEmeraldsMisc();
+        this.filterLogic = config.getFilterLogic();
+        this.selectedEnchantment = config.getSelectedEnchantment();
+        this.selectedEnchantmentLevel = config.getSelectedEnchantmentLevel();
+        this.requireMaxEnchantmentLevel = config.isRequireMaxEnchantmentLevel();
+        this.combinedEnchantments = List.copyOf(
+            config.getCombinedEnchantments()
+        );
+        this.preferredFirstSlotItems = Set.copyOf(
+            config.getPreferredFirstSlotItems()
+        );
+        this.excludedProfessions = Set.copyOf(config.getExcludedProfessions());
+        this.excludedProfessionIds = normalizeIds(excludedProfessions);
+        this.itemWhitelist = Set.copyOf(config.getItemWhitelist());
+
+        this.interactionReach = config.getInteractionReach();
+        this.interactionReachSq = interactionReach * interactionReach;
+        this.placementReach = config.getPlacementReach();
+        this.placementReachSq = placementReach * placementReach;
+        this.jobSiteSearchReach = config.getJobSiteSearchReach();
+        this.useFixedPlacementBlock = config.isUseFixedPlacementBlock();
+        this.activeProfile = activeProfile;
+
+        this.tradeFilter = new TradeFilter(this);
+        this.tradeEvaluator = new TradeEvaluator(this);
+    }
+
+    private static Set<String> normalizeIds(Set<String> ids) {
+        Set<String> normalized = new HashSet<>();
+        for (String id : ids) {
+            String trimmed = id.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty()) {
+                normalized.add(
+                    trimmed.contains(":") ? trimmed : "minecraft:" + trimmed
+                );
+            }
+        }
+        return Set.copyOf(normalized);
+    }
+
+    public static ConfigSnapshot of(ModConfig config, String activeProfile) {
+        return new ConfigSnapshot(config, activeProfile);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ModConfig.OperationMode getOperationMode() {
+        return operationMode;
+    }
+
+    public int getRerollDelayMs() {
+        return rerollDelayMs;
+    }
+
+    public int getMaxRerollAttempts() {
+        return maxRerollAttempts;
+    }
+
+    public int getVillagerCooldownMs() {
+        return villagerCooldownMs;
+    }
+
+    public boolean isPauseIfInventoryFull() {
+        return pauseIfInventoryFull;
+    }
+
+    public boolean isServerFriendlyThrottling() {
+        return serverFriendlyThrottling;
+    }
+
+    public boolean isSoundNotifications() {
+        return soundNotifications;
+    }
+
+    public ModConfig.NotificationStyle getNotificationStyle() {
+        return notificationStyle;
+    }
+
+    public boolean isOpenGuiOnlyWhenMatched() {
+        return openGuiOnlyWhenMatched;
+    }
+
+    public boolean isShowOverlay() {
+        return showOverlay;
+    }
+
+    public boolean isShowTradeQuality() {
+        return showTradeQuality;
+    }
+
+    public boolean isShowProgressBar() {
+        return showProgressBar;
+    }
+
+    public int getMaxEmeraldsBooks() {
+        return maxEmeraldsBooks;
+    }
+
+    public int getMaxEmeraldsTools() {
+        return maxEmeraldsTools;
+    }
+
+    public int getMaxEmeraldsArmor() {
+        return maxEmeraldsArmor;
+    }
+
+    public int getMaxEmeraldsMisc() {
+        return maxEmeraldsMisc;
+    }
+
+    public ModConfig.FilterLogic getFilterLogic() {
+        return filterLogic;
+    }
+
+    public String getSelectedEnchantment() {
+        return selectedEnchantment;
+    }
+
+    public int getSelectedEnchantmentLevel() {
+        return selectedEnchantmentLevel;
+    }
+
+    public boolean isRequireMaxEnchantmentLevel() {
+        return requireMaxEnchantmentLevel;
+    }
+
+    public List<String> getCombinedEnchantments() {
+        return combinedEnchantments;
+    }
+
+    public Set<String> getPreferredFirstSlotItems() {
+        return preferredFirstSlotItems;
+    }
+
+    public Set<String> getExcludedProfessions() {
+        return excludedProfessions;
+    }
+
+    public boolean isProfessionExcluded(String professionId) {
+        return excludedProfessionIds.contains(professionId);
+    }
+
+    public Set<String> getItemWhitelist() {
+        return itemWhitelist;
+    }
+
+    public double getInteractionReach() {
+        return interactionReach;
+    }
+
+    public double getInteractionReachSq() {
+        return interactionReachSq;
+    }
+
+    public int getPlacementReach() {
+        return placementReach;
+    }
+
+    public int getPlacementReachSq() {
+        return placementReachSq;
+    }
+
+    public int getJobSiteSearchReach() {
+        return jobSiteSearchReach;
+    }
+
+    public boolean isUseFixedPlacementBlock() {
+        return useFixedPlacementBlock;
+    }
+
+    public String getActiveProfile() {
+        return activeProfile;
+    }
+
+    public TradeFilter getTradeFilter() {
+        return tradeFilter;
+    }
+
+    public TradeEvaluator getTradeEvaluator() {
+        return tradeEvaluator;
+    }
+}
@@ -0,0 +1,133 @@
+package com.villagerreroller.config;
+
+import com.villagerreroller.VillagerReroller;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+public class ConfigWatcher {
+
+    private static final long DEBOUNCE_MS = 500;
+    private static final long OWN_WRITE_GRACE_MS = 1500;
+
+    private final Path configFile;
+    private final Runnable onChange;
+
+    private volatile long ignoreUntil = 0;
+    private WatchService watchService;
+    private Thread thread;
+
+    public ConfigWatcher(Path configFile, Runnable onChange) {
+        this.configFile = configFile;
+        this.onChange = onChange;
+    }
+
+    public void start() {
+        if (thread != null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(configFile.getParent());
+            watchService = FileSystems.getDefault().newWatchService();
+            configFile
+                .getParent()
+                .register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+                );
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.error(
+                "Failed to watch {} for changes, hot reload disabled",
+                configFile,
+                e
+            );
+            return;
+        }
+
+        thread = new Thread(this::run, "VTR Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+        VillagerReroller.LOGGER.info("Watching {} for changes", configFile);
+    }
+
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.debug("Failed to close config watcher", e);
+        }
+        thread = null;
+    }
+
+    // Called right before the mod writes the file itself so the resulting
+    // events do not bounce back as an external edit.
+    public void ignoreOwnWrite() {
+        ignoreUntil = System.currentTimeMillis() + OWN_WRITE_GRACE_MS;
+    }
+
+    private void run() {
+        long pendingSince = 0;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = pendingSince == 0
+                    ? watchService.take()
+                    : watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+
+                if (key != null) {
+                    if (containsConfigEvent(key)) {
+                        pendingSince = System.currentTimeMillis();
+                    }
+                    if (!key.reset()) {
+                        VillagerReroller.LOGGER.warn(
+                            "Config directory is no longer watchable, hot reload disabled"
+                        );
+                        return;
+                    }
+                }
+
+                if (
+                    pendingSince != 0 &&
+                    System.currentTimeMillis() - pendingSince >= DEBOUNCE_MS
+                ) {
+                    pendingSince = 0;
+                    VillagerReroller.LOGGER.info(
+                        "Detected external edit of {}, reloading",
+                        configFile.getFileName()
+                    );
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean containsConfigEvent(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (
+                event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                (event.context() instanceof Path changed &&
+                    changed.equals(configFile.getFileName()))
+            ) {
+                relevant = true;
+            }
+        }
+        return relevant && System.currentTimeMillis() >= ignoreUntil;
+    }
+}
@@ -0,0 +1,120 @@
+package com.villagerreroller.config;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.villagerreroller.VillagerReroller;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProfileCycler {
+
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final Gson GSON = new Gson();
+    private static final Set<String> PROFILE_METADATA = Set.of(
+        "name",
+        "description"
+    );
+
+    private final ConfigManager configManager;
+
+    private Map<String, ConfigSnapshot> compiled = Map.of();
+    private List<String> profileNames = List.of(DEFAULT_PROFILE);
+
+    public ProfileCycler(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+
+    // Compiles every known profile against the current base config so that
+    // switching later is a map lookup.
+    public void rebuild() {
+        ModConfig base = configManager.getConfig();
+        JsonObject baseJson = GSON.toJsonTree(base).getAsJsonObject();
+
+        Map<String, ConfigSnapshot> snapshots = new HashMap<>();
+        snapshots.put(
+            DEFAULT_PROFILE,
+            ConfigSnapshot.of(base, DEFAULT_PROFILE)
+        );
+
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : configManager
+            .getProfileManager()
+            .getAllProfiles()
+            .entrySet()) {
+            String name = entry.getKey();
+            if (DEFAULT_PROFILE.equals(name)) {
+                continue;
+            }
+
+            try {
+                ModConfig merged = applyProfile(baseJson, entry.getValue());
+                snapshots.put(name, ConfigSnapshot.of(merged, name));
+                names.add(name);
+            } catch (RuntimeException e) {
+                VillagerReroller.LOGGER.warn(
+                    "Skipping profile {}: {}",
+                    name,
+                    e.getMessage()
+                );
+            }
+        }
+
+        Collections.sort(names);
+        names.add(0, DEFAULT_PROFILE);
+
+        compiled = snapshots;
+        profileNames = List.copyOf(names);
+
+        VillagerReroller.LOGGER.debug(
+            "Compiled {} profiles: {}",
+            profileNames.size(),
+            profileNames
+        );
+    }
+
+    public ConfigSnapshot get(String name) {
+        return compiled.get(name);
+    }
+
+    public ConfigSnapshot getOrDefault(String name) {
+        ConfigSnapshot snapshot = compiled.get(name);
+        return snapshot != null ? snapshot : compiled.get(DEFAULT_PROFILE);
+    }
+
+    public List<String> getProfileNames() {
+        return profileNames;
+    }
+
+    public String next(String current) {
+        int index = profileNames.indexOf(current);
+        return profileNames.get((index + 1) % profileNames.size());
+    }
+
+    private ModConfig applyProfile(JsonObject baseJson, Object profile) {
+        JsonElement profileJson = GSON.toJsonTree(profile);
+        if (!profileJson.isJsonObject()) {
+            throw new JsonParseException("profile is not an object");
+        }
+
+        JsonObject merged = baseJson.deepCopy();
+        for (Map.Entry<String, JsonElement> field : profileJson
+            .getAsJsonObject()
+            .entrySet()) {
+            if (
+                !PROFILE_METADATA.contains(field.getKey()) &&
+                merged.has(field.getKey()) &&
+                !field.getValue().isJsonNull()
+            ) {
+                merged.add(field.getKey(), field.getValue());
+            }
+        }
+        return GSON.fromJson(merged, ModConfig.class);
+    }
+}
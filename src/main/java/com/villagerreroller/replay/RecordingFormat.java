@@ -0,0 +1,23 @@
+package com.villagerreroller.replay;
+
+// Layout of a .vtrr file: the magic, version and start time, then a flat
+// list of records. Each record is a type byte, the milliseconds since the
+// previous record as a varint, and a type-specific payload written with
+// PacketByteBuf primitives.
+final class RecordingFormat {
+
+    static final int MAGIC = 0x56545252; // "VTRR"
+    static final int VERSION = 1;
+    static final String EXTENSION = ".vtrr";
+
+    static final byte RUN_START = 1; // uuid
+    static final byte STATE = 2; // state ordinal
+    static final byte OFFERS = 3; // villager level, offer list bytes
+    static final byte OUTCOME = 4; // outcome ordinal, target price + 1
+    static final byte BLOCK = 5; // block pos, raw block state id
+    static final byte VILLAGER_LOADED = 6; // uuid, block pos
+    static final byte PROFESSION = 7; // uuid, profession id
+    static final byte RUN_STOP = 8; // stop reason ordinal
+
+    private RecordingFormat() {}
+}
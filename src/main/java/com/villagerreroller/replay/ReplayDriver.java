@@ -0,0 +1,338 @@
+package com.villagerreroller.replay;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.automation.RerollController;
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.stats.AttemptTimeSeries;
+import com.villagerreroller.trade.TradeEvaluator;
+import com.villagerreroller.trade.TradeFilter;
+import com.villagerreroller.trade.TradeScanner;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.village.TradeOfferList;
+
+// Feeds a recording back through the trade pipeline as fast as it will go.
+// The controller itself drives the live world and cannot run detached from
+// it, so the replay re-makes the decisions it made for every recorded
+// screen of offers with the current config, times them, and reports where
+// they differ from what happened in the session.
+public class ReplayDriver {
+
+    private static final AttemptTimeSeries.Outcome[] OUTCOMES =
+        AttemptTimeSeries.Outcome.values();
+    private static final RerollController.RerollState[] STATES =
+        RerollController.RerollState.values();
+    private static final String NO_PROFESSION = "minecraft:none";
+
+    private final DynamicRegistryManager registryManager;
+
+    public ReplayDriver(DynamicRegistryManager registryManager) {
+        this.registryManager = registryManager;
+    }
+
+    public Report replay(Path file, ConfigSnapshot config) throws IOException {
+        Report report = new Report();
+        List<Step> steps = load(file, report);
+
+        TradeFilter filter = config.getTradeFilter();
+        TradeEvaluator evaluator = config.getTradeEvaluator();
+        long fingerprint = 0;
+        AttemptTimeSeries.Outcome decided = null;
+        int sink = 0;
+
+        long start = System.nanoTime();
+        for (Step step : steps) {
+            if (step.offers == null) {
+                if (step.runStart) {
+                    fingerprint = 0;
+                    decided = null;
+                } else if (step.outcome != null && decided != null) {
+                    compare(report, decided, step.outcome);
+                    decided = null;
+                }
+                continue;
+            }
+
+            List<TradeScanner.ScannedTrade> trades = new ArrayList<>(
+                step.offers.size()
+            );
+            for (int i = 0; i < step.offers.size(); i++) {
+                trades.add(
+                    new TradeScanner.ScannedTrade(i, step.offers.get(i))
+                );
+            }
+            for (TradeScanner.ScannedTrade trade : trades) {
+                sink += evaluator.evaluateTrade(trade).getScore();
+            }
+
+            long current = TradeScanner.fingerprint(trades);
+            if (!trades.isEmpty() && current == fingerprint) {
+                decided = AttemptTimeSeries.Outcome.UNCHANGED;
+            } else {
+                fingerprint = current;
+                decided = !trades.isEmpty() &&
+                    !filter.filterTrades(trades, step.professionId).isEmpty()
+                    ? AttemptTimeSeries.Outcome.MATCH
+                    : AttemptTimeSeries.Outcome.NO_MATCH;
+            }
+            report.offerSets++;
+        }
+        report.replayNanos = System.nanoTime() - start;
+
+        VillagerReroller.LOGGER.debug("Replay sink: {}", sink);
+        return report;
+    }
+
+    private static void compare(
+        Report report,
+        AttemptTimeSeries.Outcome decided,
+        AttemptTimeSeries.Outcome recorded
+    ) {
+        // Aborted attempts stopped before a decision was made
+        if (recorded == AttemptTimeSeries.Outcome.ABORTED) {
+            return;
+        }
+        report.comparedDecisions++;
+        if (decided != recorded) {
+            report.changedDecisions++;
+            if (decided == AttemptTimeSeries.Outcome.MATCH) {
+                report.newMatches++;
+            } else if (recorded == AttemptTimeSeries.Outcome.MATCH) {
+                report.lostMatches++;
+            }
+        }
+    }
+
+    // Decodes the whole file up front so the timed pass only measures the
+    // pipeline, not I/O or codec work.
+    private List<Step> load(Path file, Report report) throws IOException {
+        PacketByteBuf in = new PacketByteBuf(
+            Unpooled.wrappedBuffer(Files.readAllBytes(file))
+        );
+        if (
+            in.readableBytes() < 13 ||
+            in.readInt() != RecordingFormat.MAGIC ||
+            in.readByte() != RecordingFormat.VERSION
+        ) {
+            throw new IOException("Not a reroll recording: " + file);
+        }
+        in.readLong();
+
+        List<Step> steps = new ArrayList<>();
+        // The controller filters by the profession of the villager it is
+        // rerolling, so each screen is replayed with the last profession
+        // recorded for the run's villager
+        Map<UUID, String> professions = new HashMap<>();
+        UUID runVillager = null;
+        int lastState = -1;
+        try {
+            while (in.isReadable()) {
+                byte type = in.readByte();
+                int deltaMs = in.readVarInt();
+                report.records++;
+                report.recordedMs += deltaMs;
+                if (lastState >= 0) {
+                    report.stateMs[lastState] += deltaMs;
+                }
+
+                switch (type) {
+                    case RecordingFormat.RUN_START -> {
+                        runVillager = in.readUuid();
+                        report.runs++;
+                        steps.add(Step.runStart());
+                    }
+                    case RecordingFormat.STATE -> {
+                        lastState = in.readByte();
+                        if (lastState < 0 || lastState >= STATES.length) {
+                            throw new IOException("Bad state " + lastState);
+                        }
+                    }
+                    case RecordingFormat.OFFERS -> {
+                        in.readVarInt();
+                        int length = in.readVarInt();
+                        RegistryByteBuf offers = new RegistryByteBuf(
+                            in.readSlice(length),
+                            registryManager
+                        );
+                        steps.add(
+                            Step.offers(
+                                TradeOfferList.PACKET_CODEC.decode(offers),
+                                professionOf(professions, runVillager)
+                            )
+                        );
+                    }
+                    case RecordingFormat.OUTCOME -> {
+                        int outcome = in.readByte();
+                        in.readVarInt();
+                        if (outcome < 0 || outcome >= OUTCOMES.length) {
+                            throw new IOException("Bad outcome " + outcome);
+                        }
+                        steps.add(Step.outcome(OUTCOMES[outcome]));
+                    }
+                    case RecordingFormat.BLOCK -> {
+                        in.readBlockPos();
+                        in.readVarInt();
+                        report.blockUpdates++;
+                    }
+                    case RecordingFormat.VILLAGER_LOADED -> {
+                        in.readUuid();
+                        in.readBlockPos();
+                        report.villagersLoaded++;
+                    }
+                    case RecordingFormat.PROFESSION -> {
+                        professions.put(in.readUuid(), in.readString());
+                        report.professionChanges++;
+                    }
+                    case RecordingFormat.RUN_STOP -> {
+                        in.readByte();
+                        runVillager = null;
+                        lastState = -1;
+                    }
+                    default -> throw new IOException(
+                        "Unknown record type " + type
+                    );
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // A recording cut off by a crash still replays up to the tear
+            VillagerReroller.LOGGER.warn(
+                "Recording {} is truncated after {} records",
+                file,
+                report.records
+            );
+        } finally {
+            in.release();
+        }
+        return steps;
+    }
+
+    // Null when the recording never saw the villager's profession, or
+    // only saw it jobless because the tracker had not caught up yet; the
+    // filter then checks every target, as it does without a profession
+    private static String professionOf(
+        Map<UUID, String> professions,
+        UUID villager
+    ) {
+        String professionId = villager != null
+            ? professions.get(villager)
+            : null;
+        return NO_PROFESSION.equals(professionId) ? null : professionId;
+    }
+
+    private static class Step {
+
+        final TradeOfferList offers;
+        final String professionId;
+        final AttemptTimeSeries.Outcome outcome;
+        final boolean runStart;
+
+        private Step(
+            TradeOfferList offers,
+            String professionId,
+            AttemptTimeSeries.Outcome outcome,
+            boolean runStart
+        ) {
+            this.offers = offers;
+            this.professionId = professionId;
+            this.outcome = outcome;
+            this.runStart = runStart;
+        }
+
+        static Step runStart() {
+            return new Step(null, null, null, true);
+        }
+
+        static Step offers(TradeOfferList offers, String professionId) {
+            return new Step(offers, professionId, null, false);
+        }
+
+        static Step outcome(AttemptTimeSeries.Outcome outcome) {
+            return new Step(null, null, outcome, false);
+        }
+    }
+
+    public static class Report {
+
+        private final long[] stateMs = new long[STATES.length];
+        private int records;
+        private int runs;
+        private int offerSets;
+        private int blockUpdates;
+        private int villagersLoaded;
+        private int professionChanges;
+        private int comparedDecisions;
+        private int changedDecisions;
+        private int newMatches;
+        private int lostMatches;
+        private long recordedMs;
+        private long replayNanos;
+
+        public int getRecords() {
+            return records;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getOfferSets() {
+            return offerSets;
+        }
+
+        public int getBlockUpdates() {
+            return blockUpdates;
+        }
+
+        public int getVillagersLoaded() {
+            return villagersLoaded;
+        }
+
+        public int getProfessionChanges() {
+            return professionChanges;
+        }
+
+        public int getComparedDecisions() {
+            return comparedDecisions;
+        }
+
+        public int getChangedDecisions() {
+            return changedDecisions;
+        }
+
+        public int getNewMatches() {
+            return newMatches;
+        }
+
+        public int getLostMatches() {
+            return lostMatches;
+        }
+
+        public long getRecordedMs() {
+            return recordedMs;
+        }
+
+        public long getStateMs(RerollController.RerollState state) {
+            return stateMs[state.ordinal()];
+        }
+
+        public double getNanosPerOfferSet() {
+            return offerSets == 0 ? 0 : (double) replayNanos / offerSets;
+        }
+
+        public double getSpeedup() {
+            return replayNanos == 0
+                ? 0
+                : recordedMs * 1_000_000.0 / replayNanos;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.villagerreroller.replay;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.util.BackgroundIO;
+import io.netty.buffer.Unpooled;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.village.TradeOfferList;
+
+// Captures what the reroll loop consumes from the game into a compact
+// binary file. Records are encoded on the tick thread into an in-memory
+// buffer; creating the file and appending full chunks happen on the shared
+// I/O thread. Everything is called from the client thread.
+public class SessionRecorder {
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private PacketByteBuf buffer;
+    private final BackgroundIO io;
+    // Only touched on the I/O thread
+    private OutputStream file;
+    private Path path;
+    private long lastRecordTime;
+    private int recordCount;
+    private long lastBlockPos;
+    private int lastBlockState = -1;
+
+    public SessionRecorder(BackgroundIO io) {
+        this.io = io;
+        this.directory = FabricLoader.getInstance()
+            .getConfigDir()
+            .resolve(VillagerReroller.MOD_ID)
+            .resolve("recordings");
+    }
+
+    public void register() {
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+            stop()
+        );
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> stop());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean isRecording() {
+        return buffer != null;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    // Recording names without the extension, newest first
+    public List<String> listRecordings() {
+        List<String> names = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return names;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files
+                .map(file -> file.getFileName().toString())
+                .filter(name -> name.endsWith(RecordingFormat.EXTENSION))
+                .map(name ->
+                    name.substring(
+                        0,
+                        name.length() - RecordingFormat.EXTENSION.length()
+                    )
+                )
+                .sorted(Comparator.reverseOrder())
+                .forEach(names::add);
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.warn("Failed to list recordings", e);
+        }
+        return names;
+    }
+
+    public Path resolveRecording(String name) {
+        return directory.resolve(name + RecordingFormat.EXTENSION);
+    }
+
+    public boolean start() {
+        if (isRecording()) {
+            return false;
+        }
+
+        String name =
+            new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) +
+            RecordingFormat.EXTENSION;
+        path = directory.resolve(name);
+        Path target = path;
+        io.execute(() -> {
+            try {
+                Files.createDirectories(directory);
+                file = new BufferedOutputStream(Files.newOutputStream(target));
+            } catch (IOException e) {
+                VillagerReroller.LOGGER.error(
+                    "Failed to create recording {}",
+                    target,
+                    e
+                );
+            }
+        });
+
+        buffer = new PacketByteBuf(Unpooled.buffer(CHUNK_BYTES));
+        lastRecordTime = System.currentTimeMillis();
+        recordCount = 0;
+        lastBlockState = -1;
+
+        buffer.writeInt(RecordingFormat.MAGIC);
+        buffer.writeByte(RecordingFormat.VERSION);
+        buffer.writeLong(lastRecordTime);
+
+        VillagerReroller.LOGGER.info("Recording reroll session to {}", path);
+        return true;
+    }
+
+    public void stop() {
+        if (!isRecording()) {
+            return;
+        }
+
+        flushChunk();
+        io.execute(() -> {
+            if (file == null) {
+                return;
+            }
+            try {
+                file.close();
+            } catch (IOException e) {
+                VillagerReroller.LOGGER.error("Failed to close recording", e);
+            }
+            file = null;
+        });
+
+        VillagerReroller.LOGGER.info(
+            "Recorded {} events to {}",
+            recordCount,
+            path
+        );
+        buffer.release();
+        buffer = null;
+    }
+
+    public void recordRunStart(UUID villager) {
+        if (begin(RecordingFormat.RUN_START)) {
+            buffer.writeUuid(villager);
+            end();
+        }
+    }
+
+    public void recordState(int state) {
+        if (begin(RecordingFormat.STATE)) {
+            buffer.writeByte(state);
+            end();
+        }
+    }
+
+    public void recordOffers(
+        TradeOfferList offers,
+        int villagerLevel,
+        DynamicRegistryManager registryManager
+    ) {
+        if (!isRecording()) {
+            return;
+        }
+
+        RegistryByteBuf encoded = new RegistryByteBuf(
+            Unpooled.buffer(),
+            registryManager
+        );
+        try {
+            TradeOfferList.PACKET_CODEC.encode(encoded, offers);
+            begin(RecordingFormat.OFFERS);
+            buffer.writeVarInt(villagerLevel);
+            buffer.writeVarInt(encoded.readableBytes());
+            buffer.writeBytes(encoded);
+            end();
+        } catch (RuntimeException e) {
+            VillagerReroller.LOGGER.warn("Failed to record offers", e);
+        } finally {
+            encoded.release();
+        }
+    }
+
+    public void recordOutcome(int outcome, int targetPrice) {
+        if (begin(RecordingFormat.OUTCOME)) {
+            buffer.writeByte(outcome);
+            buffer.writeVarInt(targetPrice + 1);
+            end();
+        }
+    }
+
+    // Only changes are written, so this can be called on every transition
+    public void recordBlock(BlockPos pos, BlockState state) {
+        if (!isRecording()) {
+            return;
+        }
+
+        long packed = pos.asLong();
+        int stateId = Block.getRawIdFromState(state);
+        if (packed == lastBlockPos && stateId == lastBlockState) {
+            return;
+        }
+        lastBlockPos = packed;
+        lastBlockState = stateId;
+
+        begin(RecordingFormat.BLOCK);
+        buffer.writeBlockPos(pos);
+        buffer.writeVarInt(stateId);
+        end();
+    }
+
+    public void recordVillagerLoaded(UUID villager, BlockPos pos) {
+        if (begin(RecordingFormat.VILLAGER_LOADED)) {
+            buffer.writeUuid(villager);
+            buffer.writeBlockPos(pos);
+            end();
+        }
+    }
+
+    public void recordProfession(UUID villager, String professionId) {
+        if (begin(RecordingFormat.PROFESSION)) {
+            buffer.writeUuid(villager);
+            buffer.writeString(professionId);
+            end();
+        }
+    }
+
+    public void recordRunStop(int reason) {
+        if (begin(RecordingFormat.RUN_STOP)) {
+            buffer.writeByte(reason);
+            end();
+        }
+    }
+
+    private boolean begin(byte type) {
+        if (!isRecording()) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        buffer.writeByte(type);
+        buffer.writeVarInt(
+            (int) Math.min(Integer.MAX_VALUE, now - lastRecordTime)
+        );
+        lastRecordTime = now;
+        return true;
+    }
+
+    private void end() {
+        recordCount++;
+        if (buffer.readableBytes() >= CHUNK_BYTES) {
+            flushChunk();
+        }
+    }
+
+    private void flushChunk() {
+        if (buffer.readableBytes() == 0) {
+            return;
+        }
+
+        byte[] chunk = new byte[buffer.readableBytes()];
+        buffer.readBytes(chunk);
+        buffer.clear();
+        io.execute(() -> {
+            if (file == null) {
+                return;
+            }
+            try {
+                file.write(chunk);
+            } catch (IOException e) {
+                VillagerReroller.LOGGER.error("Failed to write recording", e);
+            }
+        });
+    }
+}
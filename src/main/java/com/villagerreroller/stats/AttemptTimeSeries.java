@@ -0,0 +1,200 @@
+package com.villagerreroller.stats;
+
+import java.util.Arrays;
+
+public class AttemptTimeSeries {
+
+    public enum Outcome {
+        NO_MATCH,
+        MATCH,
+        UNCHANGED,
+        ABORTED,
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final int capacity;
+    private final int phaseCount;
+    private final long[] timestamps;
+    private final int[] cycleMs;
+    private final int[] phaseMs;
+    private final byte[] outcomes;
+    private final int[] targetPrices;
+    private final int[] scratch;
+
+    private int head = 0;
+    private int size = 0;
+    private long totalRecorded = 0;
+
+    public AttemptTimeSeries(int capacity, int phaseCount) {
+        this.capacity = capacity;
+        this.phaseCount = phaseCount;
+        this.timestamps = new long[capacity];
+        this.cycleMs = new int[capacity];
+        this.phaseMs = new int[capacity * phaseCount];
+        this.outcomes = new byte[capacity];
+        this.targetPrices = new int[capacity];
+        this.scratch = new int[capacity];
+    }
+
+    public synchronized void record(
+        long timestamp,
+        long cycleDurationMs,
+        long[] phaseDurationsMs,
+        Outcome outcome,
+        int targetPrice
+    ) {
+        int slot = head;
+        timestamps[slot] = timestamp;
+        cycleMs[slot] = (int) Math.min(cycleDurationMs, Integer.MAX_VALUE);
+        outcomes[slot] = (byte) outcome.ordinal();
+        targetPrices[slot] = targetPrice;
+
+        int base = slot * phaseCount;
+        for (int i = 0; i < phaseCount; i++) {
+            phaseMs[base + i] =
+                i < phaseDurationsMs.length
+                    ? (int) Math.min(phaseDurationsMs[i], Integer.MAX_VALUE)
+                    : 0;
+        }
+
+        head = (head + 1) % capacity;
+        if (size < capacity) {
+            size++;
+        }
+        totalRecorded++;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+        totalRecorded = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getTotalRecorded() {
+        return totalRecorded;
+    }
+
+    public int getPhaseCount() {
+        return phaseCount;
+    }
+
+    public synchronized int countSince(long since) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (timestamps[slotAt(i)] >= since) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int countSince(long since, Outcome outcome) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = slotAt(i);
+            if (
+                timestamps[slot] >= since &&
+                outcomes[slot] == outcome.ordinal()
+            ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double getRerollsPerMinute(long now) {
+        return countSince(now - 60_000L);
+    }
+
+    public double getSuccessesPerHour(long now) {
+        return countSince(now - 3_600_000L, Outcome.MATCH);
+    }
+
+    public double getSuccessRate(long now, long windowMs) {
+        long since = now - windowMs;
+        int attempts = countSince(since);
+        if (attempts == 0) {
+            return 0;
+        }
+        return (double) countSince(since, Outcome.MATCH) / attempts;
+    }
+
+    public synchronized double getMeanCycleMs(long since) {
+        long total = 0;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = slotAt(i);
+            if (timestamps[slot] >= since) {
+                total += cycleMs[slot];
+                count++;
+            }
+        }
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    public synchronized int getCyclePercentile(double percentile, long since) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = slotAt(i);
+            if (timestamps[slot] >= since) {
+                scratch[count++] = cycleMs[slot];
+            }
+        }
+        return percentileOf(scratch, count, percentile);
+    }
+
+    public synchronized int getTargetPricePercentile(
+        double percentile,
+        long since
+    ) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = slotAt(i);
+            if (timestamps[slot] >= since && targetPrices[slot] >= 0) {
+                scratch[count++] = targetPrices[slot];
+            }
+        }
+        return percentileOf(scratch, count, percentile);
+    }
+
+    public synchronized void sumPhaseMs(long since, long[] out) {
+        Arrays.fill(out, 0);
+        int phases = Math.min(out.length, phaseCount);
+        for (int i = 0; i < size; i++) {
+            int slot = slotAt(i);
+            if (timestamps[slot] < since) {
+                continue;
+            }
+            int base = slot * phaseCount;
+            for (int phase = 0; phase < phases; phase++) {
+                out[phase] += phaseMs[base + phase];
+            }
+        }
+    }
+
+    public synchronized Outcome getLastOutcome() {
+        if (size == 0) {
+            return null;
+        }
+        return OUTCOMES[outcomes[slotAt(size - 1)]];
+    }
+
+    // Index 0 is the oldest record still in the buffer.
+    private int slotAt(int index) {
+        return (head - size + index + capacity) % capacity;
+    }
+
+    private static int percentileOf(int[] values, int count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(values, 0, count);
+        int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return values[Math.max(0, Math.min(count - 1, rank))];
+    }
+}
@@ -0,0 +1,178 @@
+package com.villagerreroller.stats;
+
+import com.villagerreroller.trade.TradeScanner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.enchantment.EnchantmentHelper;
+import net.minecraft.enchantment.EnchantmentLevelEntry;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.village.TradeOffer;
+import net.minecraft.village.TradedItem;
+import net.minecraft.world.BlockView;
+
+// Inputs shared by the in-game benchmark and the JMH benchmarks, built the
+// same way every time so results stay comparable between runs and between
+// machines: librarian-like trade screens and a fixed trading hall for the
+// block sweeps instead of whatever happens to be around the player.
+public final class BenchmarkFixtures {
+
+    public static final int OFFERS_PER_VILLAGER = 8;
+    public static final int OFFER_SETS = 32;
+    public static final String PROFESSION = "minecraft:librarian";
+
+    public static final BlockPos HALL_CENTER = new BlockPos(0, 64, 0);
+    public static final int JOB_SITE_REACH = 8;
+    public static final int JOB_SITE_VERTICAL_REACH = 3;
+    public static final int PLACEMENT_REACH = 6;
+    // The neighbors' lecterns, already claimed by earlier batch runs
+    public static final Set<BlockPos> RESERVED_JOB_SITES = Set.of(
+        new BlockPos(5, 64, 0),
+        new BlockPos(-5, 64, 0),
+        new BlockPos(0, 64, 5),
+        new BlockPos(0, 64, -5)
+    );
+
+    private static final int BOOTH_RADIUS = 3;
+    private static final int LECTERN_SPACING = 5;
+    private static final Item[] FILLER_ITEMS = {
+        Items.PAPER,
+        Items.BOOKSHELF,
+        Items.LANTERN,
+        Items.CLOCK,
+        Items.COMPASS,
+        Items.NAME_TAG,
+    };
+
+    private BenchmarkFixtures() {}
+
+    // Mostly enchanted books at varying levels and prices, plus a few plain
+    // item trades, cycled through the enchantments so consecutive sets do
+    // not share one
+    public static List<List<TradeOffer>> offerSets(
+        List<RegistryEntry<Enchantment>> enchantments
+    ) {
+        List<List<TradeOffer>> sets = new ArrayList<>(OFFER_SETS);
+        int seed = 0;
+        for (int set = 0; set < OFFER_SETS; set++) {
+            List<TradeOffer> offers = new ArrayList<>(OFFERS_PER_VILLAGER);
+            for (int slot = 0; slot < OFFERS_PER_VILLAGER; slot++) {
+                seed++;
+                int price = 5 + (seed * 7) % 60;
+                ItemStack sellItem;
+                if (slot % 3 != 2 && !enchantments.isEmpty()) {
+                    RegistryEntry<Enchantment> enchantment = enchantments.get(
+                        seed % enchantments.size()
+                    );
+                    int maxLevel = enchantment.value().getMaxLevel();
+                    int level = 1 + (seed % Math.max(1, maxLevel));
+                    sellItem = EnchantmentHelper.getEnchantedBookWith(
+                        new EnchantmentLevelEntry(enchantment, level)
+                    );
+                } else {
+                    sellItem = new ItemStack(
+                        FILLER_ITEMS[seed % FILLER_ITEMS.length]
+                    );
+                }
+                offers.add(
+                    new TradeOffer(
+                        new TradedItem(Items.EMERALD, Math.min(64, price)),
+                        Optional.of(new TradedItem(Items.BOOK, 1)),
+                        sellItem,
+                        12,
+                        1,
+                        0.05f
+                    )
+                );
+            }
+            sets.add(offers);
+        }
+        return sets;
+    }
+
+    public static List<TradeScanner.ScannedTrade> scan(
+        List<TradeOffer> offers
+    ) {
+        List<TradeScanner.ScannedTrade> trades = new ArrayList<>(
+            offers.size()
+        );
+        for (int i = 0; i < offers.size(); i++) {
+            trades.add(new TradeScanner.ScannedTrade(i, offers.get(i)));
+        }
+        return trades;
+    }
+
+    public static BlockView tradingHall() {
+        return new TradingHall();
+    }
+
+    // A stone floor below y 64 with a lectern every five blocks on it. The
+    // player's own booth around the center is walled in up to three blocks
+    // out, so the placement sweep has to look past it, and the nearest
+    // lecterns are the reserved ones, so the job site sweep has to skip
+    // them.
+    private static final class TradingHall implements BlockView {
+
+        private static final BlockState STONE = Blocks.STONE.getDefaultState();
+        private static final BlockState WALL =
+            Blocks.COBBLESTONE.getDefaultState();
+        private static final BlockState LECTERN =
+            Blocks.LECTERN.getDefaultState();
+        private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+        @Override
+        public BlockState getBlockState(BlockPos pos) {
+            int x = pos.getX() - HALL_CENTER.getX();
+            int y = pos.getY() - HALL_CENTER.getY();
+            int z = pos.getZ() - HALL_CENTER.getZ();
+            if (y < 0) {
+                return STONE;
+            }
+            if (y > 1) {
+                return AIR;
+            }
+            int distance = Math.max(Math.abs(x), Math.abs(z));
+            if (distance <= BOOTH_RADIUS) {
+                return distance == 0 ? AIR : WALL;
+            }
+            if (
+                y == 0 &&
+                Math.floorMod(x, LECTERN_SPACING) == 0 &&
+                Math.floorMod(z, LECTERN_SPACING) == 0
+            ) {
+                return LECTERN;
+            }
+            return AIR;
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos pos) {
+            return getBlockState(pos).getFluidState();
+        }
+
+        @Override
+        public BlockEntity getBlockEntity(BlockPos pos) {
+            return null;
+        }
+
+        @Override
+        public int getHeight() {
+            return 384;
+        }
+
+        @Override
+        public int getBottomY() {
+            return -64;
+        }
+    }
+}
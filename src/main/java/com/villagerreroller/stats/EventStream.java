@@ -0,0 +1,464 @@
+package com.villagerreroller.stats;
+
+import com.google.gson.stream.JsonWriter;
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.trade.TradeScanner;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+
+public class EventStream {
+
+    public static final int DEFAULT_PORT = 25590;
+
+    private static final int PROTOCOL_VERSION = 1;
+    private static final int MAX_QUEUED = 2048;
+    private static final int METRICS_INTERVAL_TICKS = 20;
+    private static final long IDLE_PARK_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long STOP_TIMEOUT_MS = 1000;
+
+    private final Queue<Event> queue;
+    private final AtomicInteger queued;
+    private final AtomicLong dropped;
+    private final List<Client> clients;
+
+    private volatile boolean running = false;
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private Thread writerThread;
+    private int ticksUntilMetrics = METRICS_INTERVAL_TICKS;
+
+    public EventStream() {
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.queued = new AtomicInteger();
+        this.dropped = new AtomicLong();
+        this.clients = new CopyOnWriteArrayList<>();
+    }
+
+    public void register() {
+        ClientTickEvents.END_CLIENT_TICK.register(client -> tickMetrics());
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> stop());
+    }
+
+    public synchronized boolean start(int port) {
+        if (running) {
+            return false;
+        }
+
+        try {
+            serverSocket = new ServerSocket(
+                port,
+                4,
+                InetAddress.getLoopbackAddress()
+            );
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.error(
+                "Failed to open event stream on port {}",
+                port,
+                e
+            );
+            return false;
+        }
+
+        running = true;
+        acceptThread = new Thread(this::acceptLoop, "VTR Event Stream Accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        writerThread = new Thread(this::writeLoop, "VTR Event Stream");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        VillagerReroller.LOGGER.info(
+            "Event stream listening on {}:{}",
+            serverSocket.getInetAddress().getHostAddress(),
+            serverSocket.getLocalPort()
+        );
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.debug("Error closing event stream", e);
+        }
+        LockSupport.unpark(writerThread);
+
+        for (Client client : clients) {
+            client.close();
+        }
+
+        // Both threads loop on the shared running flag, so a start() right
+        // after this would let the old ones run on next to the new ones
+        // unless they are gone first. Closing the socket and the clients
+        // unblocks them, so this is quick.
+        join(acceptThread);
+        join(writerThread);
+        clients.clear();
+        queue.clear();
+        queued.set(0);
+
+        serverSocket = null;
+        acceptThread = null;
+        writerThread = null;
+        VillagerReroller.LOGGER.info("Event stream stopped");
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            VillagerReroller.LOGGER.warn(
+                "{} did not stop within {} ms",
+                thread.getName(),
+                STOP_TIMEOUT_MS
+            );
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    // Publishers run on the tick thread and only build an event when someone
+    // is listening; nothing here waits on the network.
+    public boolean isActive() {
+        return running && !clients.isEmpty();
+    }
+
+    public void publishState(String from, String to, int attempts) {
+        if (isActive()) {
+            offer(
+                new Event("state", "from", from, "to", to, "attempts", attempts)
+            );
+        }
+    }
+
+    public void publishAttempt(
+        String outcome,
+        int attempts,
+        long cycleMs,
+        int targetPrice
+    ) {
+        if (isActive()) {
+            offer(
+                new Event(
+                    "attempt",
+                    "outcome",
+                    outcome,
+                    "attempts",
+                    attempts,
+                    "cycleMs",
+                    cycleMs,
+                    "targetPrice",
+                    targetPrice
+                )
+            );
+        }
+    }
+
+    public void publishMatch(
+        int attempts,
+        List<TradeScanner.ScannedTrade> trades
+    ) {
+        if (isActive()) {
+            String[] descriptions = new String[trades.size()];
+            for (int i = 0; i < descriptions.length; i++) {
+                descriptions[i] = trades.get(i).toString();
+            }
+            offer(
+                new Event(
+                    "match",
+                    "attempts",
+                    attempts,
+                    "trades",
+                    descriptions
+                )
+            );
+        }
+    }
+
+    public void publishStop(String reason, String state, int attempts) {
+        if (isActive()) {
+            offer(
+                new Event(
+                    "stop",
+                    "reason",
+                    reason,
+                    "state",
+                    state,
+                    "attempts",
+                    attempts
+                )
+            );
+        }
+    }
+
+    public void publishError(String message) {
+        if (isActive()) {
+            offer(new Event("error", "message", message));
+        }
+    }
+
+    private void tickMetrics() {
+        if (--ticksUntilMetrics > 0) {
+            return;
+        }
+        ticksUntilMetrics = METRICS_INTERVAL_TICKS;
+        if (!isActive()) {
+            return;
+        }
+
+        VillagerReroller mod = VillagerReroller.getInstance();
+        StatisticsTracker tracker = mod.getStatisticsTracker();
+        AttemptTimeSeries attempts = tracker.getSessionAttempts();
+        TickCostMeter tickCost = mod.getTickCostMeter();
+        long now = System.currentTimeMillis();
+
+        offer(
+            new Event(
+                "metrics",
+                "state",
+                mod.getRerollController().getCurrentState().name(),
+                "sessionRerolls",
+                tracker.getSessionRerolls(),
+                "sessionSuccesses",
+                tracker.getSessionSuccesses(),
+                "rerollsPerMinute",
+                attempts.getRerollsPerMinute(now),
+                "successRate",
+                attempts.getSuccessRate(now, 3_600_000L),
+                "tickMicros",
+                tickCost.getAverageMicros(),
+                "peakTickMicros",
+                tickCost.getPeakMicros(),
+                "tickAllocBytes",
+                tickCost.getAverageAllocatedBytes(),
+                "droppedEvents",
+                dropped.get()
+            )
+        );
+    }
+
+    private void offer(Event event) {
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offer(event);
+    }
+
+    private void acceptLoop() {
+        ServerSocket server = serverSocket;
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                socket.shutdownInput();
+                clients.add(new Client(socket));
+                VillagerReroller.LOGGER.info(
+                    "Event stream client connected from {}",
+                    socket.getRemoteSocketAddress()
+                );
+            } catch (SocketException e) {
+                // Closed by stop()
+            } catch (IOException e) {
+                VillagerReroller.LOGGER.warn("Event stream accept failed", e);
+            }
+        }
+    }
+
+    // Single consumer of the queue: serializes each event once and fans the
+    // line out. A slow client only stalls this thread; the queue is bounded
+    // and drops on overflow instead of pushing back on the tick thread.
+    private void writeLoop() {
+        StringWriter buffer = new StringWriter();
+        while (running) {
+            Event event = queue.poll();
+            if (event == null) {
+                flushClients();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            queued.decrementAndGet();
+
+            buffer.getBuffer().setLength(0);
+            try {
+                event.write(buffer);
+            } catch (IOException e) {
+                VillagerReroller.LOGGER.warn(
+                    "Failed to serialize {} event",
+                    event.type,
+                    e
+                );
+                continue;
+            }
+            String line = buffer.append('\n').toString();
+
+            for (Client client : clients) {
+                if (!client.greeted) {
+                    client.greeted = true;
+                    send(client, hello());
+                }
+                send(client, line);
+            }
+        }
+    }
+
+    private String hello() {
+        StringWriter hello = new StringWriter();
+        try {
+            new Event(
+                "hello",
+                "version",
+                PROTOCOL_VERSION,
+                "droppedEvents",
+                dropped.get()
+            ).write(hello);
+        } catch (IOException e) {
+            // StringWriter does not throw
+        }
+        return hello.append('\n').toString();
+    }
+
+    private void send(Client client, String line) {
+        try {
+            client.writer.write(line);
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private void flushClients() {
+        for (Client client : clients) {
+            try {
+                client.writer.flush();
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    private void disconnect(Client client) {
+        if (clients.remove(client)) {
+            client.close();
+            VillagerReroller.LOGGER.info(
+                "Event stream client disconnected from {}",
+                client.socket.getRemoteSocketAddress()
+            );
+        }
+    }
+
+    private static class Client {
+
+        final Socket socket;
+        final Writer writer;
+        boolean greeted = false;
+
+        Client(Socket socket) throws IOException {
+            this.socket = socket;
+            this.writer = new BufferedWriter(
+                new OutputStreamWriter(
+                    socket.getOutputStream(),
+                    StandardCharsets.UTF_8
+                )
+            );
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    // Fields are stored as alternating name/value pairs and only turned into
+    // JSON on the stream thread.
+    private static class Event {
+
+        final String type;
+        final long timestamp;
+        final Object[] fields;
+
+        Event(String type, Object... fields) {
+            this.type = type;
+            this.timestamp = System.currentTimeMillis();
+            this.fields = fields;
+        }
+
+        void write(Writer out) throws IOException {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("type").value(type);
+            json.name("ts").value(timestamp);
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                json.name((String) fields[i]);
+                writeValue(json, fields[i + 1]);
+            }
+            json.endObject();
+            json.flush();
+        }
+
+        private static void writeValue(JsonWriter json, Object value)
+            throws IOException {
+            if (value instanceof Double number && !Double.isFinite(number)) {
+                json.nullValue();
+            } else if (value instanceof Number number) {
+                json.value(number);
+            } else if (value instanceof Boolean bool) {
+                json.value(bool);
+            } else if (value instanceof String[] values) {
+                json.beginArray();
+                for (String element : values) {
+                    json.value(element);
+                }
+                json.endArray();
+            } else if (value == null) {
+                json.nullValue();
+            } else {
+                json.value(value.toString());
+            }
+        }
+    }
+}
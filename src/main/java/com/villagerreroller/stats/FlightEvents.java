@@ -0,0 +1,233 @@
+package com.villagerreroller.stats;
+
+import java.util.UUID;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import net.minecraft.util.math.BlockPos;
+
+// Java Flight Recorder events for the mod's own work, so a JFR capture shows
+// reroll phases, scans and searches instead of anonymous tick frames. The
+// begin methods return null unless a recording has the event enabled, which
+// keeps the hot path free of allocation when nobody is profiling.
+public final class FlightEvents {
+
+    private static final EventType STATE_SPAN = EventType.getEventType(
+        StateSpan.class
+    );
+    private static final EventType TRADE_SCAN = EventType.getEventType(
+        TradeScan.class
+    );
+    private static final EventType TRADE_EVALUATION = EventType.getEventType(
+        TradeEvaluation.class
+    );
+    private static final EventType BLOCK_SEARCH = EventType.getEventType(
+        BlockSearch.class
+    );
+    private static final EventType PLACEMENT = EventType.getEventType(
+        Placement.class
+    );
+    private static final EventType STATISTICS_WRITE = EventType.getEventType(
+        StatisticsWrite.class
+    );
+
+    private FlightEvents() {}
+
+    public static StateSpan beginStateSpan(
+        String state,
+        UUID villager,
+        int attempt
+    ) {
+        if (!STATE_SPAN.isEnabled()) {
+            return null;
+        }
+        StateSpan event = new StateSpan();
+        event.state = state;
+        event.villager = villager != null ? villager.toString() : null;
+        event.attempt = attempt;
+        event.begin();
+        return event;
+    }
+
+    public static TradeScan beginTradeScan(UUID villager, int attempt) {
+        if (!TRADE_SCAN.isEnabled()) {
+            return null;
+        }
+        TradeScan event = new TradeScan();
+        event.villager = villager.toString();
+        event.attempt = attempt;
+        event.begin();
+        return event;
+    }
+
+    public static TradeEvaluation beginTradeEvaluation(
+        int slot,
+        String itemId
+    ) {
+        if (!TRADE_EVALUATION.isEnabled()) {
+            return null;
+        }
+        TradeEvaluation event = new TradeEvaluation();
+        event.slot = slot;
+        event.itemId = itemId;
+        event.begin();
+        return event;
+    }
+
+    public static BlockSearch beginBlockSearch(String kind, int reach) {
+        if (!BLOCK_SEARCH.isEnabled()) {
+            return null;
+        }
+        BlockSearch event = new BlockSearch();
+        event.kind = kind;
+        event.reach = reach;
+        event.begin();
+        return event;
+    }
+
+    public static Placement beginPlacement(String kind, BlockPos target) {
+        if (!PLACEMENT.isEnabled()) {
+            return null;
+        }
+        Placement event = new Placement();
+        event.kind = kind;
+        event.x = target.getX();
+        event.y = target.getY();
+        event.z = target.getZ();
+        event.begin();
+        return event;
+    }
+
+    public static StatisticsWrite beginStatisticsWrite() {
+        if (!STATISTICS_WRITE.isEnabled()) {
+            return null;
+        }
+        StatisticsWrite event = new StatisticsWrite();
+        event.begin();
+        return event;
+    }
+
+    @Name("villagerreroller.StateSpan")
+    @Label("Reroll State")
+    @Description("Time spent in one reroll controller state")
+    @Category({ "Villager Reroller", "Reroll" })
+    @StackTrace(false)
+    public static class StateSpan extends Event {
+
+        @Label("State")
+        public String state;
+
+        @Label("Villager")
+        public String villager;
+
+        @Label("Attempt")
+        public int attempt;
+
+        @Label("Next State")
+        public String next;
+    }
+
+    @Name("villagerreroller.TradeScan")
+    @Label("Trade Scan")
+    @Description("Reading and filtering one screen of villager offers")
+    @Category({ "Villager Reroller", "Trades" })
+    @StackTrace(false)
+    public static class TradeScan extends Event {
+
+        @Label("Villager")
+        public String villager;
+
+        @Label("Attempt")
+        public int attempt;
+
+        @Label("Offers")
+        public int offers;
+
+        @Label("Matches")
+        public int matches;
+
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("villagerreroller.TradeEvaluation")
+    @Label("Trade Evaluation")
+    @Description("Scoring one offer with the trade evaluator")
+    @Category({ "Villager Reroller", "Trades" })
+    @StackTrace(false)
+    public static class TradeEvaluation extends Event {
+
+        @Label("Slot")
+        public int slot;
+
+        @Label("Item")
+        public String itemId;
+
+        @Label("Score")
+        public int score;
+    }
+
+    @Name("villagerreroller.BlockSearch")
+    @Label("Block Search")
+    @Description("A sweep of the blocks around a position")
+    @Category({ "Villager Reroller", "World" })
+    @StackTrace(false)
+    public static class BlockSearch extends Event {
+
+        @Label("Kind")
+        public String kind;
+
+        @Label("Reach")
+        public int reach;
+
+        @Label("Candidates")
+        @Description("Positions examined before the search ended")
+        public int candidates;
+
+        @Label("Found")
+        public boolean found;
+    }
+
+    @Name("villagerreroller.Placement")
+    @Label("Workstation Placement")
+    @Description("Placing a workstation, including fallback positions")
+    @Category({ "Villager Reroller", "World" })
+    @StackTrace(false)
+    public static class Placement extends Event {
+
+        @Label("Kind")
+        public String kind;
+
+        @Label("X")
+        public int x;
+
+        @Label("Y")
+        public int y;
+
+        @Label("Z")
+        public int z;
+
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("villagerreroller.StatisticsWrite")
+    @Label("Statistics Write")
+    @Description("Serializing and saving statistics.json")
+    @Category({ "Villager Reroller", "Persistence" })
+    @StackTrace(false)
+    public static class StatisticsWrite extends Event {
+
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+
+        @Label("Success")
+        public boolean success;
+    }
+}
@@ -0,0 +1,290 @@
+package com.villagerreroller.stats;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.automation.RerollController;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+
+public class MetricsExporter {
+
+    public static final int DEFAULT_PORT = 25591;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+    private static final AttemptTimeSeries.Outcome[] OUTCOMES =
+        AttemptTimeSeries.Outcome.values();
+    private static final RerollController.StopReason[] REASONS =
+        RerollController.StopReason.values();
+    private static final RerollController.RerollState[] STATES =
+        RerollController.RerollState.values();
+
+    private final SessionMetrics metrics;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsExporter(SessionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void register() {
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> stop());
+    }
+
+    public synchronized boolean start(int port) {
+        if (server != null) {
+            return false;
+        }
+
+        try {
+            server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                0
+            );
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.error(
+                "Failed to open metrics exporter on port {}",
+                port,
+                e
+            );
+            return false;
+        }
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VTR Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+
+        VillagerReroller.LOGGER.info(
+            "Metrics exporter listening on http://{}:{}/metrics",
+            server.getAddress().getAddress().getHostAddress(),
+            server.getAddress().getPort()
+        );
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+        VillagerReroller.LOGGER.info("Metrics exporter stopped");
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Runs on the exporter thread and only reads atomics; the gauges taken
+    // from the mod are single volatile or primitive reads.
+    private String render() {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "vtr_attempts_total", "counter", "Reroll attempts");
+        for (AttemptTimeSeries.Outcome outcome : OUTCOMES) {
+            sample(
+                out,
+                "vtr_attempts_total",
+                "outcome",
+                lower(outcome),
+                metrics.getAttempts(outcome.ordinal())
+            );
+        }
+
+        header(out, "vtr_matches_total", "counter", "Runs ending in a match");
+        sample(
+            out,
+            "vtr_matches_total",
+            null,
+            null,
+            metrics.getStops(RerollController.StopReason.MATCH.ordinal())
+        );
+
+        header(
+            out,
+            "vtr_failures_total",
+            "counter",
+            "Runs stopped without a match"
+        );
+        for (RerollController.StopReason reason : REASONS) {
+            if (reason != RerollController.StopReason.MATCH) {
+                sample(
+                    out,
+                    "vtr_failures_total",
+                    "reason",
+                    lower(reason),
+                    metrics.getStops(reason.ordinal())
+                );
+            }
+        }
+
+        header(
+            out,
+            "vtr_state_seconds_total",
+            "counter",
+            "Time spent in each reroll state"
+        );
+        for (RerollController.RerollState state : STATES) {
+            if (state != RerollController.RerollState.IDLE) {
+                sample(
+                    out,
+                    "vtr_state_seconds_total",
+                    "state",
+                    lower(state),
+                    metrics.getStateMillis(state.ordinal()) / 1000.0
+                );
+            }
+        }
+
+        histogram(
+            out,
+            "vtr_cycle_seconds",
+            "Duration of one reroll cycle",
+            metrics.getCycleSeconds()
+        );
+        histogram(
+            out,
+            "vtr_pickup_distance_blocks",
+            "Distance to the dropped workstation when pickup starts",
+            metrics.getPickupDistanceBlocks()
+        );
+        histogram(
+            out,
+            "vtr_tick_cpu_seconds",
+            "Time the mod spends per client tick",
+            metrics.getTickCpuSeconds()
+        );
+        histogram(
+            out,
+            "vtr_tick_alloc_bytes",
+            "Bytes the mod allocates per client tick",
+            metrics.getTickAllocationBytes()
+        );
+
+        VillagerReroller mod = VillagerReroller.getInstance();
+        header(
+            out,
+            "vtr_interactions_total",
+            "counter",
+            "Entity interactions sent"
+        );
+        sample(
+            out,
+            "vtr_interactions_total",
+            null,
+            null,
+            mod.getInteractionBudget().getTotalInteractions()
+        );
+
+        header(out, "vtr_running", "gauge", "1 while a reroll is running");
+        sample(
+            out,
+            "vtr_running",
+            null,
+            null,
+            mod.getRerollController().isRunning() ? 1 : 0
+        );
+
+        return out.toString();
+    }
+
+    private static void histogram(
+        StringBuilder out,
+        String name,
+        String help,
+        SessionMetrics.Histogram histogram
+    ) {
+        header(out, name, "histogram", help);
+        long[] cumulative = new long[histogram.getBucketCount() + 1];
+        long count = histogram.snapshotCumulative(cumulative);
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            sample(
+                out,
+                name + "_bucket",
+                "le",
+                format(histogram.getUpperBound(i)),
+                cumulative[i]
+            );
+        }
+        sample(out, name + "_bucket", "le", "+Inf", count);
+        sample(out, name + "_sum", null, null, histogram.getSum());
+        sample(out, name + "_count", null, null, count);
+    }
+
+    private static void header(
+        StringBuilder out,
+        String name,
+        String type,
+        String help
+    ) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(
+        StringBuilder out,
+        String name,
+        String label,
+        String labelValue,
+        double value
+    ) {
+        out.append(name);
+        if (label != null) {
+            out
+                .append('{')
+                .append(label)
+                .append("=\"")
+                .append(labelValue)
+                .append("\"}");
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String lower(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,387 @@
+package com.villagerreroller.stats;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.automation.JobSiteHandler;
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.trade.TradeEvaluator;
+import com.villagerreroller.trade.TradeFilter;
+import com.villagerreroller.trade.TradeScanner;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.village.TradeOffer;
+import net.minecraft.world.BlockView;
+
+// In-game microbenchmarks for the hot paths of a reroll cycle, run against
+// the mod's current config: trade offers are built from the live
+// registries, and the sweeps search BenchmarkFixtures' fixed trading hall
+// rather than the blocks around the player, so runs in different places
+// stay comparable with the baseline. Each client tick runs one short slice
+// of the current measurement, so the game keeps running while it goes.
+// Results are compared against a saved baseline that only changes when a
+// run is started as a re-baseline. The same paths, and those that need no
+// game at all, have JMH benchmarks in src/jmh.
+public class PipelineBenchmark {
+
+    private static final long WARMUP_NANOS = TimeUnit.MILLISECONDS.toNanos(
+        100
+    );
+    private static final long MEASURE_NANOS = TimeUnit.MILLISECONDS.toNanos(
+        250
+    );
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int BATCH_SIZE = 16;
+    private static final double REGRESSION_THRESHOLD = 0.25;
+    private static final Gson GSON = new Gson();
+
+    private final MinecraftClient client;
+    private final Path baselineFile;
+    private final com.sun.management.ThreadMXBean threads;
+    private final List<Case> cases = new ArrayList<>();
+    private final List<Result> results = new ArrayList<>();
+    private Map<String, Double> baseline = Map.of();
+    private boolean rebaseline = false;
+    private Consumer<List<Result>> onFinished = null;
+    private int caseIndex = 0;
+    private long warmedNanos = 0;
+    private long measuredNanos = 0;
+    private long measuredOps = 0;
+    private long measuredBytes = 0;
+    private int sink = 0;
+
+    public PipelineBenchmark() {
+        this.client = MinecraftClient.getInstance();
+        this.baselineFile = FabricLoader.getInstance()
+            .getConfigDir()
+            .resolve(VillagerReroller.MOD_ID)
+            .resolve("benchmark.json");
+        this.threads = allocationCounter();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (
+            ManagementFactory.getThreadMXBean() instanceof
+                com.sun.management.ThreadMXBean threads &&
+            threads.isThreadAllocatedMemorySupported()
+        ) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    public void register() {
+        ClientTickEvents.END_CLIENT_TICK.register(client -> tick());
+    }
+
+    public boolean isRunning() {
+        return !cases.isEmpty();
+    }
+
+    public boolean hasBaseline() {
+        return Files.exists(baselineFile);
+    }
+
+    // Returns false without a world to measure in. onFinished runs on the
+    // client thread once every case is done; a re-baseline then saves the
+    // results as the new baseline.
+    public boolean start(
+        boolean rebaseline,
+        Consumer<List<Result>> onFinished
+    ) {
+        if (isRunning() || client.world == null || client.player == null) {
+            return false;
+        }
+
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
+        List<RegistryEntry<Enchantment>> enchantments = new ArrayList<>();
+        client.world
+            .getRegistryManager()
+            .getOrThrow(RegistryKeys.ENCHANTMENT)
+            .streamEntries()
+            .forEach(enchantments::add);
+        List<List<TradeOffer>> offerSets = BenchmarkFixtures.offerSets(
+            enchantments
+        );
+        List<List<TradeScanner.ScannedTrade>> tradeSets = new ArrayList<>();
+        for (List<TradeOffer> offers : offerSets) {
+            tradeSets.add(BenchmarkFixtures.scan(offers));
+        }
+        int[] next = { 0 };
+
+        cases.add(
+            new Case("scan", () -> {
+                List<TradeOffer> offers = offerSets.get(
+                    next[0]++ % offerSets.size()
+                );
+                return BenchmarkFixtures.scan(offers).size();
+            })
+        );
+
+        TradeFilter filter = config.getTradeFilter();
+        cases.add(
+            new Case("filter", () ->
+                filter
+                    .filterTrades(
+                        tradeSets.get(next[0]++ % tradeSets.size()),
+                        BenchmarkFixtures.PROFESSION
+                    )
+                    .size()
+            )
+        );
+
+        TradeEvaluator evaluator = config.getTradeEvaluator();
+        cases.add(
+            new Case("evaluate", () -> {
+                int total = 0;
+                for (TradeScanner.ScannedTrade trade : tradeSets.get(
+                    next[0]++ % tradeSets.size()
+                )) {
+                    total += evaluator.evaluateTrade(trade).getScore();
+                }
+                return total;
+            })
+        );
+
+        BlockView hall = BenchmarkFixtures.tradingHall();
+        cases.add(
+            new Case("jobSiteSweep", () -> {
+                BlockPos found = JobSiteHandler.findJobSiteBlock(
+                    hall,
+                    BenchmarkFixtures.HALL_CENTER,
+                    BenchmarkFixtures.JOB_SITE_REACH,
+                    BenchmarkFixtures.JOB_SITE_VERTICAL_REACH,
+                    BenchmarkFixtures.RESERVED_JOB_SITES
+                );
+                return found != null ? found.getY() : 0;
+            })
+        );
+
+        cases.add(
+            new Case("placementSweep", () -> {
+                BlockPos found = JobSiteHandler.findPlacementPosition(
+                    hall,
+                    BenchmarkFixtures.HALL_CENTER,
+                    BenchmarkFixtures.PLACEMENT_REACH
+                );
+                return found != null ? found.getY() : 0;
+            })
+        );
+
+        this.baseline = loadBaseline();
+        this.rebaseline = rebaseline;
+        this.onFinished = onFinished;
+        results.clear();
+        caseIndex = 0;
+        resetCase();
+        return true;
+    }
+
+    private void tick() {
+        if (!isRunning()) {
+            return;
+        }
+        if (client.world == null || client.player == null) {
+            VillagerReroller.LOGGER.info("Benchmark cancelled, left the world");
+            cases.clear();
+            onFinished = null;
+            return;
+        }
+
+        Case current = cases.get(caseIndex);
+        if (warmedNanos < WARMUP_NANOS) {
+            long start = System.nanoTime();
+            runFor(SLICE_NANOS, current.operation);
+            warmedNanos += System.nanoTime() - start;
+            return;
+        }
+
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        measuredOps += runFor(SLICE_NANOS, current.operation);
+        measuredNanos += System.nanoTime() - start;
+        measuredBytes += allocatedBytes() - startBytes;
+        if (measuredNanos < MEASURE_NANOS) {
+            return;
+        }
+
+        results.add(result(current.name));
+        caseIndex++;
+        resetCase();
+        if (caseIndex < cases.size()) {
+            return;
+        }
+
+        cases.clear();
+        if (rebaseline) {
+            saveBaseline(results);
+        }
+        VillagerReroller.LOGGER.debug("Benchmark sink: {}", sink);
+        Consumer<List<Result>> callback = onFinished;
+        onFinished = null;
+        callback.accept(List.copyOf(results));
+    }
+
+    private void resetCase() {
+        warmedNanos = 0;
+        measuredNanos = 0;
+        measuredOps = 0;
+        measuredBytes = 0;
+    }
+
+    private Result result(String name) {
+        double nanosPerOp = (double) measuredNanos / measuredOps;
+        double bytesPerOp = threads != null
+            ? (double) measuredBytes / measuredOps
+            : -1;
+        Double previous = baseline.get(name);
+        Result result = new Result(
+            name,
+            nanosPerOp,
+            bytesPerOp,
+            previous != null ? previous : -1
+        );
+        VillagerReroller.LOGGER.info("Benchmark {}", result);
+        return result;
+    }
+
+    private long runFor(long nanos, IntSupplier operation) {
+        long deadline = System.nanoTime() + nanos;
+        long ops = 0;
+        do {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                sink += operation.getAsInt();
+            }
+            ops += BATCH_SIZE;
+        } while (System.nanoTime() < deadline);
+        return ops;
+    }
+
+    private long allocatedBytes() {
+        return threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private Map<String, Double> loadBaseline() {
+        if (!Files.exists(baselineFile)) {
+            return new HashMap<>();
+        }
+        try {
+            Map<String, Double> baseline = GSON.fromJson(
+                Files.readString(baselineFile, StandardCharsets.UTF_8),
+                new TypeToken<Map<String, Double>>() {}.getType()
+            );
+            return baseline != null ? baseline : new HashMap<>();
+        } catch (IOException | JsonParseException e) {
+            VillagerReroller.LOGGER.warn(
+                "Failed to read benchmark baseline",
+                e
+            );
+            return new HashMap<>();
+        }
+    }
+
+    private void saveBaseline(List<Result> results) {
+        Map<String, Double> baseline = new HashMap<>();
+        for (Result result : results) {
+            baseline.put(result.getName(), result.getNanosPerOp());
+        }
+        byte[] json = GSON.toJson(baseline).getBytes(StandardCharsets.UTF_8);
+        VillagerReroller.getInstance()
+            .getBackgroundIO()
+            .write(baselineFile, () -> json);
+    }
+
+    private static class Case {
+
+        final String name;
+        final IntSupplier operation;
+
+        Case(String name, IntSupplier operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+    }
+
+    public static class Result {
+
+        private final String name;
+        private final double nanosPerOp;
+        private final double bytesPerOp;
+        private final double baselineNanosPerOp;
+
+        Result(
+            String name,
+            double nanosPerOp,
+            double bytesPerOp,
+            double baselineNanosPerOp
+        ) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.baselineNanosPerOp = baselineNanosPerOp;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getNanosPerOp() {
+            return nanosPerOp;
+        }
+
+        public double getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+        public boolean hasBaseline() {
+            return baselineNanosPerOp > 0;
+        }
+
+        public double getChange() {
+            return hasBaseline() ? nanosPerOp / baselineNanosPerOp - 1 : 0;
+        }
+
+        public boolean isRegression() {
+            return getChange() > REGRESSION_THRESHOLD;
+        }
+
+        @Override
+        public String toString() {
+            String text = String.format(
+                "%s: %.0f ns/op, %s",
+                name,
+                nanosPerOp,
+                bytesPerOp >= 0
+                    ? String.format("%.0f B/op", bytesPerOp)
+                    : "alloc n/a"
+            );
+            if (hasBaseline()) {
+                text += String.format(
+                    " (%+.0f%% vs baseline)",
+                    getChange() * 100
+                );
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.villagerreroller.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+// Monotonic counters and fixed-bucket histograms written from the tick
+// thread and read from the exporter thread. Every field is an atomic, so a
+// reader never blocks a writer; a scrape may straddle an update by one
+// observation, which Prometheus tolerates.
+public class SessionMetrics {
+
+    private static final double[] CYCLE_BUCKETS_SECONDS = {
+        0.25,
+        0.5,
+        1,
+        2,
+        3,
+        5,
+        8,
+        13,
+        20,
+        30,
+    };
+    private static final double[] PICKUP_BUCKETS_BLOCKS = {
+        0.5,
+        1,
+        2,
+        3,
+        4,
+        6,
+        8,
+        10,
+    };
+    private static final double[] TICK_BUCKETS_SECONDS = {
+        0.00005,
+        0.0001,
+        0.00025,
+        0.0005,
+        0.001,
+        0.0025,
+        0.005,
+        0.01,
+    };
+    private static final double[] TICK_ALLOCATION_BUCKETS_BYTES = {
+        0,
+        256,
+        1024,
+        2048,
+        4096,
+        16384,
+        65536,
+        262144,
+    };
+
+    private final AtomicLongArray attemptsByOutcome;
+    private final AtomicLongArray stopsByReason;
+    private final AtomicLongArray stateMillis;
+    private final Histogram cycleSeconds;
+    private final Histogram pickupDistanceBlocks;
+    private final Histogram tickCpuSeconds;
+    private final Histogram tickAllocationBytes;
+
+    public SessionMetrics(int outcomeCount, int reasonCount, int stateCount) {
+        this.attemptsByOutcome = new AtomicLongArray(outcomeCount);
+        this.stopsByReason = new AtomicLongArray(reasonCount);
+        this.stateMillis = new AtomicLongArray(stateCount);
+        this.cycleSeconds = new Histogram(CYCLE_BUCKETS_SECONDS);
+        this.pickupDistanceBlocks = new Histogram(PICKUP_BUCKETS_BLOCKS);
+        this.tickCpuSeconds = new Histogram(TICK_BUCKETS_SECONDS);
+        this.tickAllocationBytes = new Histogram(TICK_ALLOCATION_BUCKETS_BYTES);
+    }
+
+    public void recordAttempt(
+        int outcome,
+        long cycleMs,
+        long[] phaseDurationsMs
+    ) {
+        attemptsByOutcome.incrementAndGet(outcome);
+        cycleSeconds.observe(cycleMs / 1000.0);
+        int states = Math.min(phaseDurationsMs.length, stateMillis.length());
+        for (int i = 0; i < states; i++) {
+            if (phaseDurationsMs[i] > 0) {
+                stateMillis.addAndGet(i, phaseDurationsMs[i]);
+            }
+        }
+    }
+
+    public void recordStop(int reason) {
+        stopsByReason.incrementAndGet(reason);
+    }
+
+    public void recordPickupDistance(double blocks) {
+        pickupDistanceBlocks.observe(blocks);
+    }
+
+    public void recordTickCpu(long nanos) {
+        tickCpuSeconds.observe(nanos / 1_000_000_000.0);
+    }
+
+    public void recordTickAllocation(long bytes) {
+        tickAllocationBytes.observe(bytes);
+    }
+
+    public long getAttempts(int outcome) {
+        return attemptsByOutcome.get(outcome);
+    }
+
+    public long getStops(int reason) {
+        return stopsByReason.get(reason);
+    }
+
+    public long getStateMillis(int state) {
+        return stateMillis.get(state);
+    }
+
+    public Histogram getCycleSeconds() {
+        return cycleSeconds;
+    }
+
+    public Histogram getPickupDistanceBlocks() {
+        return pickupDistanceBlocks;
+    }
+
+    public Histogram getTickCpuSeconds() {
+        return tickCpuSeconds;
+    }
+
+    public Histogram getTickAllocationBytes() {
+        return tickAllocationBytes;
+    }
+
+    public static class Histogram {
+
+        private final double[] upperBounds;
+        private final AtomicLongArray counts;
+        private final DoubleAdder sum;
+
+        Histogram(double[] upperBounds) {
+            this.upperBounds = upperBounds;
+            // Last slot counts observations above the highest bound
+            this.counts = new AtomicLongArray(upperBounds.length + 1);
+            this.sum = new DoubleAdder();
+        }
+
+        void observe(double value) {
+            int bucket = 0;
+            while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            sum.add(value);
+        }
+
+        public int getBucketCount() {
+            return upperBounds.length;
+        }
+
+        public double getUpperBound(int bucket) {
+            return upperBounds[bucket];
+        }
+
+        // Fills out with cumulative counts, one per bound plus +Inf, and
+        // returns the total so _count always equals the +Inf bucket.
+        public long snapshotCumulative(long[] out) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+                out[i] = total;
+            }
+            return total;
+        }
+
+        public double getSum() {
+            return sum.sum();
+        }
+    }
+}
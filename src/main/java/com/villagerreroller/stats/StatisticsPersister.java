@@ -0,0 +1,69 @@
+package com.villagerreroller.stats;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.util.BackgroundIO;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class StatisticsPersister {
+
+    private static final long WRITE_DELAY_MS = 2000;
+
+    private final Path file;
+    private final Supplier<String> serializer;
+    private final BackgroundIO io;
+    private final AtomicBoolean dirty;
+
+    public StatisticsPersister(
+        Path file,
+        Supplier<String> serializer,
+        BackgroundIO io
+    ) {
+        this.file = file;
+        this.serializer = serializer;
+        this.io = io;
+        this.dirty = new AtomicBoolean(false);
+    }
+
+    // Repeated calls while a write is waiting fold into that write
+    public void markDirty() {
+        dirty.set(true);
+        io.schedule(file, this::writeIfDirty, WRITE_DELAY_MS);
+    }
+
+    // Queues an immediate write if one is owed; BackgroundIO drains it on
+    // shutdown
+    public void flush() {
+        if (dirty.get()) {
+            io.schedule(file, this::writeIfDirty, 0);
+        }
+    }
+
+    private void writeIfDirty() throws IOException {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
+        FlightEvents.StatisticsWrite event =
+            FlightEvents.beginStatisticsWrite();
+        byte[] json = serializer.get().getBytes(StandardCharsets.UTF_8);
+        try {
+            BackgroundIO.writeAtomically(file, json);
+            VillagerReroller.LOGGER.debug("Saved statistics to {}", file);
+            if (event != null) {
+                event.success = true;
+            }
+        } catch (IOException e) {
+            dirty.set(true);
+            throw e;
+        } finally {
+            if (event != null) {
+                event.bytes = json.length;
+                event.commit();
+            }
+        }
+    }
+}
@@ -2,14 +2,19 @@ package com.villagerreroller.stats;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.automation.RerollController;
+import com.villagerreroller.util.BackgroundIO;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.loader.api.FabricLoader;
 
 public class StatisticsTracker {
@@ -17,18 +22,42 @@ public class StatisticsTracker {
     private static final Gson GSON = new GsonBuilder()
         .setPrettyPrinting()
         .create();
+    private static final Gson COMPACT_GSON = new Gson();
+    private static final int MAX_BEST_TRADES = 10;
+    private static final int ATTEMPT_HISTORY_SIZE = 4096;
     private final Path statsFile;
+    private final StatisticsPersister persister;
 
     private Statistics allTimeStats;
     private Statistics sessionStats;
+    private final AttemptTimeSeries sessionAttempts;
+    private final SessionMetrics metrics;
 
-    public StatisticsTracker() {
+    public StatisticsTracker(BackgroundIO io) {
         Path configDir = FabricLoader.getInstance()
             .getConfigDir()
             .resolve(VillagerReroller.MOD_ID);
         this.statsFile = configDir.resolve("statistics.json");
         this.sessionStats = new Statistics();
+        this.sessionAttempts = new AttemptTimeSeries(
+            ATTEMPT_HISTORY_SIZE,
+            RerollController.RerollState.values().length
+        );
+        this.metrics = new SessionMetrics(
+            AttemptTimeSeries.Outcome.values().length,
+            RerollController.StopReason.values().length,
+            RerollController.RerollState.values().length
+        );
+        this.persister = new StatisticsPersister(
+            statsFile,
+            this::serializeAllTimeStats,
+            io
+        );
         loadStatistics();
+
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client ->
+            persister.flush()
+        );
     }
 
     private void loadStatistics() {
@@ -41,25 +70,25 @@ public class StatisticsTracker {
                     "Loaded statistics from {}",
                     statsFile
                 );
-            } catch (IOException e) {
+            } catch (IOException | JsonParseException e) {
                 VillagerReroller.LOGGER.error("Failed to load statistics", e);
-                allTimeStats = new Statistics();
             }
-        } else {
+        }
+
+        if (allTimeStats == null) {
             allTimeStats = new Statistics();
         }
     }
 
     public void saveStatistics() {
-        try (FileWriter writer = new FileWriter(statsFile.toFile())) {
-            GSON.toJson(allTimeStats, writer);
-            VillagerReroller.LOGGER.debug("Saved statistics to {}", statsFile);
-        } catch (IOException e) {
-            VillagerReroller.LOGGER.error("Failed to save statistics", e);
-        }
+        persister.markDirty();
     }
 
-    public void recordSuccessfulReroll(int attempts) {
+    private synchronized String serializeAllTimeStats() {
+        return COMPACT_GSON.toJson(allTimeStats);
+    }
+
+    public synchronized void recordSuccessfulReroll(int attempts) {
         sessionStats.totalRerolls++;
         sessionStats.successfulRerolls++;
         sessionStats.totalAttempts += attempts;
@@ -78,7 +107,7 @@ public class StatisticsTracker {
         );
     }
 
-    public void recordFailedReroll(int attempts) {
+    public synchronized void recordFailedReroll(int attempts) {
         sessionStats.totalRerolls++;
         sessionStats.failedRerolls++;
         sessionStats.totalAttempts += attempts;
@@ -95,14 +124,49 @@ public class StatisticsTracker {
         );
     }
 
-    public void recordEmeraldsSaved(int emeralds) {
+    public synchronized void recordEmeraldsSaved(int emeralds) {
         sessionStats.emeraldsSaved += emeralds;
         allTimeStats.emeraldsSaved += emeralds;
         saveStatistics();
     }
 
+    public synchronized void recordUnchangedOffers() {
+        sessionStats.unchangedOffers++;
+        allTimeStats.unchangedOffers++;
+        saveStatistics();
+    }
+
+    public void recordAttempt(
+        long cycleDurationMs,
+        long[] phaseDurationsMs,
+        AttemptTimeSeries.Outcome outcome,
+        int targetPrice
+    ) {
+        sessionAttempts.record(
+            System.currentTimeMillis(),
+            cycleDurationMs,
+            phaseDurationsMs,
+            outcome,
+            targetPrice
+        );
+        metrics.recordAttempt(
+            outcome.ordinal(),
+            cycleDurationMs,
+            phaseDurationsMs
+        );
+    }
+
+    public AttemptTimeSeries getSessionAttempts() {
+        return sessionAttempts;
+    }
+
+    public SessionMetrics getMetrics() {
+        return metrics;
+    }
+
     public void resetSessionStats() {
         sessionStats = new Statistics();
+        sessionAttempts.clear();
         VillagerReroller.LOGGER.info("Reset session statistics");
     }
 
@@ -129,8 +193,12 @@ public class StatisticsTracker {
         return sessionStats.emeraldsSaved;
     }
 
+    public int getSessionUnchangedOffers() {
+        return sessionStats.unchangedOffers;
+    }
+
     public List<TradeRecord> getSessionBestTrades() {
-        return new ArrayList<>(sessionStats.bestTrades);
+        return sessionStats.getBestTrades();
     }
 
     public int getAllTimeRerolls() {
@@ -167,8 +235,12 @@ public class StatisticsTracker {
         return allTimeStats.emeraldsSaved;
     }
 
+    public int getAllTimeUnchangedOffers() {
+        return allTimeStats.unchangedOffers;
+    }
+
     public List<TradeRecord> getAllTimeBestTrades() {
-        return new ArrayList<>(allTimeStats.bestTrades);
+        return allTimeStats.getBestTrades();
     }
 
     private static class Statistics {
@@ -178,23 +250,35 @@ public class StatisticsTracker {
         int failedRerolls = 0;
         int totalAttempts = 0;
         int emeraldsSaved = 0;
-        List<TradeRecord> bestTrades = new ArrayList<>();
+        int unchangedOffers = 0;
+        PriorityQueue<TradeRecord> bestTrades = new PriorityQueue<>();
 
         void recordBestTrade(int attempts) {
-            TradeRecord record = new TradeRecord(
-                System.currentTimeMillis(),
-                attempts
-            );
-            bestTrades.add(record);
+            if (
+                bestTrades.size() >= MAX_BEST_TRADES &&
+                bestTrades.peek().attempts <= attempts
+            ) {
+                return;
+            }
 
-            bestTrades.sort((a, b) -> Integer.compare(a.attempts, b.attempts));
-            if (bestTrades.size() > 10) {
-                bestTrades = new ArrayList<>(bestTrades.subList(0, 10));
+            bestTrades.offer(
+                new TradeRecord(System.currentTimeMillis(), attempts)
+            );
+            if (bestTrades.size() > MAX_BEST_TRADES) {
+                bestTrades.poll();
             }
         }
+
+        List<TradeRecord> getBestTrades() {
+            List<TradeRecord> sorted = new ArrayList<>(bestTrades);
+            sorted.sort(Comparator.comparingInt(TradeRecord::getAttempts));
+            return sorted;
+        }
     }
 
-    public static class TradeRecord {
+    // Ordered worst-first so the head of the best-trades heap is the record
+    // to evict once it is full.
+    public static class TradeRecord implements Comparable<TradeRecord> {
 
         long timestamp;
         int attempts;
@@ -233,6 +317,11 @@ public class StatisticsTracker {
         public int getEmeraldCost() {
             return emeraldCost;
         }
+
+        @Override
+        public int compareTo(TradeRecord other) {
+            return Integer.compare(other.attempts, this.attempts);
+        }
     }
 
     public String exportStatistics() {
@@ -0,0 +1,145 @@
+package com.villagerreroller.stats;
+
+import com.villagerreroller.VillagerReroller;
+import java.lang.management.ManagementFactory;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+
+public class TickCostMeter {
+
+    private static final double SMOOTHING = 0.05;
+
+    // Steady-state ticks should allocate next to nothing; a sustained
+    // average above this means something on the hot path regressed.
+    public static final long ALLOCATION_BUDGET_BYTES = 2048;
+    private static final int BUDGET_WARMUP_TICKS = 200;
+    // One second of ticks, for readers that want a recent peak rather than
+    // the session's
+    private static final int RECENT_TICKS = 20;
+
+    private final SessionMetrics metrics;
+    private final com.sun.management.ThreadMXBean threads;
+
+    private long handlerStartNanos = 0;
+    private long handlerStartBytes = 0;
+    private long currentTickNanos = 0;
+    private long currentTickBytes = 0;
+    private volatile double averageNanos = 0;
+    private volatile long peakNanos = 0;
+    private final long[] recentNanos = new long[RECENT_TICKS];
+    private int recentIndex = 0;
+    private volatile double averageBytes = 0;
+    private int measuredTicks = 0;
+    private boolean overBudgetReported = false;
+
+    public TickCostMeter(SessionMetrics metrics) {
+        this.metrics = metrics;
+        this.threads = allocationCounter();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (
+            ManagementFactory.getThreadMXBean() instanceof
+                com.sun.management.ThreadMXBean threads &&
+            threads.isThreadAllocatedMemorySupported()
+        ) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    public void register() {
+        ClientTickEvents.START_CLIENT_TICK.register(client -> rollOver());
+    }
+
+    // Tick handlers bracket their work with begin() and end(); the total
+    // for a tick is folded into the averages when the next tick starts.
+    public void begin() {
+        handlerStartBytes = allocatedBytes();
+        handlerStartNanos = System.nanoTime();
+    }
+
+    public void end() {
+        currentTickNanos += System.nanoTime() - handlerStartNanos;
+        currentTickBytes += allocatedBytes() - handlerStartBytes;
+    }
+
+    public double getAverageMicros() {
+        return averageNanos / 1000.0;
+    }
+
+    public double getPeakMicros() {
+        return peakNanos / 1000.0;
+    }
+
+    // Read on the client thread: every reader sees the same window, so
+    // none of them has to reset anything another one relies on
+    public double getRecentPeakMicros() {
+        long peak = 0;
+        for (long nanos : recentNanos) {
+            peak = Math.max(peak, nanos);
+        }
+        return peak / 1000.0;
+    }
+
+    public boolean isMeasuringAllocation() {
+        return threads != null;
+    }
+
+    public double getAverageAllocatedBytes() {
+        return averageBytes;
+    }
+
+    public boolean isOverAllocationBudget() {
+        return (
+            measuredTicks >= BUDGET_WARMUP_TICKS &&
+            averageBytes > ALLOCATION_BUDGET_BYTES
+        );
+    }
+
+    private long allocatedBytes() {
+        return threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private void rollOver() {
+        long nanos = currentTickNanos;
+        long bytes = currentTickBytes;
+        currentTickNanos = 0;
+        currentTickBytes = 0;
+
+        if (nanos > 0) {
+            metrics.recordTickCpu(nanos);
+            if (threads != null) {
+                metrics.recordTickAllocation(bytes);
+                averageBytes += (bytes - averageBytes) * SMOOTHING;
+                measuredTicks++;
+                checkAllocationBudget();
+            }
+        } else {
+            measuredTicks = 0;
+        }
+        averageNanos += (nanos - averageNanos) * SMOOTHING;
+        if (nanos > peakNanos) {
+            peakNanos = nanos;
+        }
+        recentNanos[recentIndex] = nanos;
+        recentIndex = (recentIndex + 1) % RECENT_TICKS;
+    }
+
+    // Warns once per breach, and again only after the average has come
+    // back well under the budget
+    private void checkAllocationBudget() {
+        if (!overBudgetReported && isOverAllocationBudget()) {
+            overBudgetReported = true;
+            VillagerReroller.LOGGER.warn(
+                "Tick handlers allocate {} bytes per tick on average, over the {} byte budget",
+                Math.round(averageBytes),
+                ALLOCATION_BUDGET_BYTES
+            );
+        } else if (
+            overBudgetReported && averageBytes < ALLOCATION_BUDGET_BYTES / 2
+        ) {
+            overBudgetReported = false;
+        }
+    }
+}
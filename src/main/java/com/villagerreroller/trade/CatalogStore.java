@@ -0,0 +1,548 @@
+package com.villagerreroller.trade;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.util.BackgroundIO;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.util.math.BlockPos;
+
+public class CatalogStore implements OfferCatalog.UpdateListener {
+
+    private static final String DATA_FILE = "offers.dat";
+    private static final String INDEX_FILE = "offers.idx";
+    private static final int RECORD_VERSION = 1;
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final int MIN_COMPACTION_ENTRIES = 256;
+
+    private final MinecraftClient client;
+    private final OfferCatalog catalog;
+    private final Path catalogRoot;
+    private final BackgroundIO io;
+
+    // Only touched on the I/O thread.
+    private final Map<UUID, Long> index;
+    private Path storeDir = null;
+    private int indexEntries = 0;
+
+    // Bumped on the client thread whenever the store is opened or closed so
+    // late hydration results from a previous world are dropped.
+    private int session = 0;
+    private boolean open = false;
+
+    public CatalogStore(OfferCatalog catalog, BackgroundIO io) {
+        this.client = MinecraftClient.getInstance();
+        this.catalog = catalog;
+        this.catalogRoot = FabricLoader.getInstance()
+            .getConfigDir()
+            .resolve(VillagerReroller.MOD_ID)
+            .resolve("catalog");
+        this.io = io;
+        this.index = new HashMap<>();
+    }
+
+    public void register() {
+        catalog.setUpdateListener(this);
+
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) ->
+            open(getWorldKey())
+        );
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+            close()
+        );
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                hydrate(villager.getUuid());
+            }
+        });
+    }
+
+    private void open(String worldKey) {
+        session++;
+        open = true;
+        catalog.clear();
+
+        Path dir = catalogRoot.resolve(worldKey);
+        io.execute(() -> {
+            storeDir = dir;
+            index.clear();
+            indexEntries = 0;
+            try {
+                Files.createDirectories(dir);
+                readIndex();
+                VillagerReroller.LOGGER.info(
+                    "Opened offer catalog {} ({} villagers)",
+                    worldKey,
+                    index.size()
+                );
+            } catch (IOException e) {
+                VillagerReroller.LOGGER.error(
+                    "Failed to open offer catalog {}",
+                    dir,
+                    e
+                );
+            }
+        });
+    }
+
+    private void close() {
+        if (!open) {
+            return;
+        }
+        session++;
+        open = false;
+        catalog.clear();
+
+        io.execute(() -> {
+            if (storeDir == null) {
+                return;
+            }
+            if (
+                indexEntries >= MIN_COMPACTION_ENTRIES &&
+                indexEntries > index.size() * 2
+            ) {
+                compact();
+            }
+            storeDir = null;
+            index.clear();
+            indexEntries = 0;
+        });
+    }
+
+    private void hydrate(UUID villagerUuid) {
+        if (!open || catalog.contains(villagerUuid)) {
+            return;
+        }
+
+        int expectedSession = session;
+        io.execute(() -> {
+            Long offset = index.get(villagerUuid);
+            if (offset == null || storeDir == null) {
+                return;
+            }
+
+            try {
+                StoredRecord record = readRecord(offset);
+                client.execute(() -> {
+                    if (
+                        session == expectedSession &&
+                        !catalog.contains(villagerUuid)
+                    ) {
+                        catalog.load(
+                            villagerUuid,
+                            record.entries,
+                            record.locked
+                        );
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                VillagerReroller.LOGGER.warn(
+                    "Failed to read catalog record for {}",
+                    villagerUuid,
+                    e
+                );
+            }
+        });
+    }
+
+    @Override
+    public void onVillagerUpdated(
+        UUID villagerUuid,
+        List<OfferCatalog.CatalogEntry> entries,
+        boolean locked
+    ) {
+        if (!open) {
+            return;
+        }
+
+        byte[] record;
+        try {
+            record = encodeRecord(villagerUuid, entries, locked);
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.error("Failed to encode catalog record", e);
+            return;
+        }
+
+        io.execute(() -> {
+            if (storeDir == null) {
+                return;
+            }
+            try {
+                append(villagerUuid, record);
+            } catch (IOException e) {
+                VillagerReroller.LOGGER.error(
+                    "Failed to append catalog record for {}",
+                    villagerUuid,
+                    e
+                );
+            }
+        });
+    }
+
+    private String getWorldKey() {
+        ServerInfo server = client.getCurrentServerEntry();
+        String key;
+        if (server != null) {
+            key = "server_" + server.address;
+        } else if (client.getServer() != null) {
+            key =
+                "world_" +
+                client.getServer().getSaveProperties().getLevelName();
+        } else {
+            key = "unknown";
+        }
+        return key.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    private void readIndex() throws IOException {
+        Path dataFile = storeDir.resolve(DATA_FILE);
+        Path indexFile = storeDir.resolve(INDEX_FILE);
+        if (!Files.exists(dataFile)) {
+            Files.deleteIfExists(indexFile);
+            return;
+        }
+        if (!Files.exists(indexFile)) {
+            rebuildIndex();
+            return;
+        }
+
+        long dataLength = Files.size(dataFile);
+        long maxOffset = -1;
+
+        try (
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile))
+            )
+        ) {
+            while (true) {
+                long mostSig;
+                try {
+                    mostSig = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                long leastSig = in.readLong();
+                long offset = in.readLong();
+                index.put(new UUID(mostSig, leastSig), offset);
+                indexEntries++;
+                maxOffset = Math.max(maxOffset, offset);
+            }
+        } catch (EOFException e) {
+            VillagerReroller.LOGGER.warn(
+                "Offer catalog index {} ends in a partial entry, ignoring it",
+                indexFile
+            );
+        }
+
+        if (maxOffset >= dataLength) {
+            VillagerReroller.LOGGER.warn(
+                "Offer catalog index {} points past the data file, rebuilding it",
+                indexFile
+            );
+            rebuildIndex();
+        }
+    }
+
+    // Recovers the index from the records themselves, which carry their
+    // villager's UUID. Later records win, as they do when appending, and a
+    // truncated tail from a crash mid-append is dropped.
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        try (
+            RandomAccessFile data = new RandomAccessFile(
+                storeDir.resolve(DATA_FILE).toFile(),
+                "r"
+            )
+        ) {
+            long offset = 0;
+            long length = data.length();
+            while (offset + 4 <= length) {
+                byte[] record;
+                try {
+                    record = readRecordBytes(data, offset);
+                } catch (IOException e) {
+                    VillagerReroller.LOGGER.warn(
+                        "Offer catalog {} is damaged after {} bytes, dropping the rest",
+                        storeDir,
+                        offset
+                    );
+                    break;
+                }
+                DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(record)
+                );
+                if (in.readUnsignedByte() == RECORD_VERSION) {
+                    index.put(new UUID(in.readLong(), in.readLong()), offset);
+                }
+                offset += 4 + record.length;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+            index.size() * INDEX_ENTRY_BYTES
+        );
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Map.Entry<UUID, Long> entry : index.entrySet()) {
+            out.writeLong(entry.getKey().getMostSignificantBits());
+            out.writeLong(entry.getKey().getLeastSignificantBits());
+            out.writeLong(entry.getValue());
+        }
+        BackgroundIO.writeAtomically(
+            storeDir.resolve(INDEX_FILE),
+            bytes.toByteArray()
+        );
+        indexEntries = index.size();
+        VillagerReroller.LOGGER.info(
+            "Rebuilt offer catalog index {} ({} villagers)",
+            storeDir,
+            index.size()
+        );
+    }
+
+    private void append(UUID villagerUuid, byte[] record) throws IOException {
+        long offset;
+        try (
+            RandomAccessFile data = new RandomAccessFile(
+                storeDir.resolve(DATA_FILE).toFile(),
+                "rw"
+            )
+        ) {
+            offset = data.length();
+            data.seek(offset);
+            data.writeInt(record.length);
+            data.write(record);
+        }
+
+        try (
+            RandomAccessFile indexFile = new RandomAccessFile(
+                storeDir.resolve(INDEX_FILE).toFile(),
+                "rw"
+            )
+        ) {
+            long length = indexFile.length();
+            indexFile.seek(length - (length % INDEX_ENTRY_BYTES));
+            indexFile.writeLong(villagerUuid.getMostSignificantBits());
+            indexFile.writeLong(villagerUuid.getLeastSignificantBits());
+            indexFile.writeLong(offset);
+        }
+
+        index.put(villagerUuid, offset);
+        indexEntries++;
+    }
+
+    private StoredRecord readRecord(long offset) throws IOException {
+        byte[] record;
+        try (
+            RandomAccessFile data = new RandomAccessFile(
+                storeDir.resolve(DATA_FILE).toFile(),
+                "r"
+            )
+        ) {
+            record = readRecordBytes(data, offset);
+        }
+        return decodeRecord(new ByteArrayInputStream(record));
+    }
+
+    // The length prefix is checked against the file before allocating, so
+    // a stale offset or a damaged file fails as an IOException
+    private static byte[] readRecordBytes(RandomAccessFile data, long offset)
+        throws IOException {
+        data.seek(offset);
+        int length = data.readInt();
+        if (length <= 0 || length > data.length() - offset - 4) {
+            throw new IOException(
+                "Bad catalog record length " + length + " at " + offset
+            );
+        }
+        byte[] record = new byte[length];
+        data.readFully(record);
+        return record;
+    }
+
+    private void compact() {
+        Path dataFile = storeDir.resolve(DATA_FILE);
+        Path indexFile = storeDir.resolve(INDEX_FILE);
+        Path tempData = storeDir.resolve(DATA_FILE + ".tmp");
+        Path tempIndex = storeDir.resolve(INDEX_FILE + ".tmp");
+
+        try (
+            RandomAccessFile source = new RandomAccessFile(
+                dataFile.toFile(),
+                "r"
+            );
+            DataOutputStream dataOut = new DataOutputStream(
+                Files.newOutputStream(tempData)
+            );
+            DataOutputStream indexOut = new DataOutputStream(
+                Files.newOutputStream(tempIndex)
+            )
+        ) {
+            long offset = 0;
+            for (Map.Entry<UUID, Long> entry : index.entrySet()) {
+                byte[] record = readRecordBytes(source, entry.getValue());
+
+                dataOut.writeInt(record.length);
+                dataOut.write(record);
+                indexOut.writeLong(entry.getKey().getMostSignificantBits());
+                indexOut.writeLong(entry.getKey().getLeastSignificantBits());
+                indexOut.writeLong(offset);
+                offset += 4 + record.length;
+            }
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.error(
+                "Failed to compact offer catalog {}",
+                storeDir,
+                e
+            );
+            return;
+        }
+
+        // The old index goes first: a crash before the new one is in place
+        // leaves a data file without an index, which the next open rebuilds
+        // from the records instead of trusting offsets into the wrong file
+        try {
+            Files.deleteIfExists(indexFile);
+            Files.move(
+                tempData,
+                dataFile,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+            Files.move(
+                tempIndex,
+                indexFile,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+            VillagerReroller.LOGGER.info(
+                "Compacted offer catalog {} from {} to {} records",
+                storeDir,
+                indexEntries,
+                index.size()
+            );
+        } catch (IOException e) {
+            VillagerReroller.LOGGER.error(
+                "Failed to replace offer catalog {}",
+                storeDir,
+                e
+            );
+        }
+    }
+
+    private static byte[] encodeRecord(
+        UUID villagerUuid,
+        List<OfferCatalog.CatalogEntry> entries,
+        boolean locked
+    ) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+            64 + entries.size() * 48
+        );
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        OfferCatalog.CatalogEntry first = entries.isEmpty()
+            ? null
+            : entries.get(0);
+
+        out.writeByte(RECORD_VERSION);
+        out.writeLong(villagerUuid.getMostSignificantBits());
+        out.writeLong(villagerUuid.getLeastSignificantBits());
+        out.writeLong(
+            first != null ? first.getTimestamp() : System.currentTimeMillis()
+        );
+        out.writeBoolean(locked);
+        out.writeLong(first != null ? first.getVillagerPos().asLong() : 0L);
+        out.writeUTF(first != null ? first.getProfession() : "");
+        out.writeShort(entries.size());
+
+        for (OfferCatalog.CatalogEntry entry : entries) {
+            out.writeByte(entry.getSlotIndex());
+            out.writeUTF(entry.getItemId());
+            out.writeShort(entry.getEmeraldCost());
+            out.writeByte(entry.getEnchantments().size());
+            for (Map.Entry<String, Integer> enchant : entry
+                .getEnchantments()
+                .entrySet()) {
+                out.writeUTF(enchant.getKey());
+                out.writeByte(enchant.getValue());
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static StoredRecord decodeRecord(InputStream stream)
+        throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+
+        int version = in.readUnsignedByte();
+        if (version != RECORD_VERSION) {
+            throw new IOException("Unknown catalog record version " + version);
+        }
+
+        UUID villagerUuid = new UUID(in.readLong(), in.readLong());
+        long timestamp = in.readLong();
+        boolean locked = in.readBoolean();
+        BlockPos villagerPos = BlockPos.fromLong(in.readLong());
+        String profession = in.readUTF();
+        int count = in.readUnsignedShort();
+
+        List<OfferCatalog.CatalogEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slotIndex = in.readUnsignedByte();
+            String itemId = in.readUTF();
+            int emeraldCost = in.readUnsignedShort();
+            int enchantCount = in.readUnsignedByte();
+
+            Map<String, Integer> enchantments = new HashMap<>();
+            for (int j = 0; j < enchantCount; j++) {
+                enchantments.put(in.readUTF(), in.readUnsignedByte());
+            }
+
+            entries.add(
+                new OfferCatalog.CatalogEntry(
+                    villagerUuid,
+                    villagerPos,
+                    profession,
+                    slotIndex,
+                    itemId,
+                    enchantments,
+                    emeraldCost,
+                    timestamp
+                )
+            );
+        }
+
+        return new StoredRecord(entries, locked);
+    }
+
+    private static class StoredRecord {
+
+        final List<OfferCatalog.CatalogEntry> entries;
+        final boolean locked;
+
+        StoredRecord(List<OfferCatalog.CatalogEntry> entries, boolean locked) {
+            this.entries = entries;
+            this.locked = locked;
+        }
+    }
+}
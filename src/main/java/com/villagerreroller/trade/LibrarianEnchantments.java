@@ -1,61 +1,129 @@
 package com.villagerreroller.trade;
 
+import com.villagerreroller.VillagerReroller;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.EnchantmentTags;
+import net.minecraft.util.Identifier;
 
 public class LibrarianEnchantments {
 
-    public static final List<EnchantmentOption> ALL_ENCHANTMENTS = new ArrayList<>();
-
-    static {
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:mending", "Mending", 1));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:unbreaking", "Unbreaking", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:protection", "Protection", 4));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:fire_protection", "Fire Protection", 4));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:blast_protection", "Blast Protection", 4));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:projectile_protection", "Projectile Protection", 4));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:feather_falling", "Feather Falling", 4));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:thorns", "Thorns", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:respiration", "Respiration", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:aqua_affinity", "Aqua Affinity", 1));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:depth_strider", "Depth Strider", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:frost_walker", "Frost Walker", 2));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:sharpness", "Sharpness", 5));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:smite", "Smite", 5));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:bane_of_arthropods", "Bane of Arthropods", 5));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:knockback", "Knockback", 2));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:fire_aspect", "Fire Aspect", 2));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:looting", "Looting", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:sweeping_edge", "Sweeping Edge", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:efficiency", "Efficiency", 5));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:silk_touch", "Silk Touch", 1));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:fortune", "Fortune", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:power", "Power", 5));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:punch", "Punch", 2));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:flame", "Flame", 1));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:infinity", "Infinity", 1));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:luck_of_the_sea", "Luck of the Sea", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:lure", "Lure", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:loyalty", "Loyalty", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:impaling", "Impaling", 5));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:riptide", "Riptide", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:channeling", "Channeling", 1));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:multishot", "Multishot", 1));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:quick_charge", "Quick Charge", 3));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:piercing", "Piercing", 4));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:density", "Density", 5));
-        ALL_ENCHANTMENTS.add(new EnchantmentOption("minecraft:breach", "Breach", 4));
+    private static final List<EnchantmentOption> DEFAULT_ENCHANTMENTS = List.of(
+        new EnchantmentOption("minecraft:mending", "Mending", 1),
+        new EnchantmentOption("minecraft:unbreaking", "Unbreaking", 3),
+        new EnchantmentOption("minecraft:protection", "Protection", 4),
+        new EnchantmentOption("minecraft:fire_protection", "Fire Protection", 4),
+        new EnchantmentOption("minecraft:blast_protection", "Blast Protection", 4),
+        new EnchantmentOption("minecraft:projectile_protection", "Projectile Protection", 4),
+        new EnchantmentOption("minecraft:feather_falling", "Feather Falling", 4),
+        new EnchantmentOption("minecraft:thorns", "Thorns", 3),
+        new EnchantmentOption("minecraft:respiration", "Respiration", 3),
+        new EnchantmentOption("minecraft:aqua_affinity", "Aqua Affinity", 1),
+        new EnchantmentOption("minecraft:depth_strider", "Depth Strider", 3),
+        new EnchantmentOption("minecraft:frost_walker", "Frost Walker", 2),
+        new EnchantmentOption("minecraft:sharpness", "Sharpness", 5),
+        new EnchantmentOption("minecraft:smite", "Smite", 5),
+        new EnchantmentOption("minecraft:bane_of_arthropods", "Bane of Arthropods", 5),
+        new EnchantmentOption("minecraft:knockback", "Knockback", 2),
+        new EnchantmentOption("minecraft:fire_aspect", "Fire Aspect", 2),
+        new EnchantmentOption("minecraft:looting", "Looting", 3),
+        new EnchantmentOption("minecraft:sweeping_edge", "Sweeping Edge", 3),
+        new EnchantmentOption("minecraft:efficiency", "Efficiency", 5),
+        new EnchantmentOption("minecraft:silk_touch", "Silk Touch", 1),
+        new EnchantmentOption("minecraft:fortune", "Fortune", 3),
+        new EnchantmentOption("minecraft:power", "Power", 5),
+        new EnchantmentOption("minecraft:punch", "Punch", 2),
+        new EnchantmentOption("minecraft:flame", "Flame", 1),
+        new EnchantmentOption("minecraft:infinity", "Infinity", 1),
+        new EnchantmentOption("minecraft:luck_of_the_sea", "Luck of the Sea", 3),
+        new EnchantmentOption("minecraft:lure", "Lure", 3),
+        new EnchantmentOption("minecraft:loyalty", "Loyalty", 3),
+        new EnchantmentOption("minecraft:impaling", "Impaling", 5),
+        new EnchantmentOption("minecraft:riptide", "Riptide", 3),
+        new EnchantmentOption("minecraft:channeling", "Channeling", 1),
+        new EnchantmentOption("minecraft:multishot", "Multishot", 1),
+        new EnchantmentOption("minecraft:quick_charge", "Quick Charge", 3),
+        new EnchantmentOption("minecraft:piercing", "Piercing", 4),
+        new EnchantmentOption("minecraft:density", "Density", 5),
+        new EnchantmentOption("minecraft:breach", "Breach", 4)
+    );
+
+    private static volatile OptionTable table = new OptionTable(
+        DEFAULT_ENCHANTMENTS,
+        0
+    );
+
+    public static void rebuild(DynamicRegistryManager registryManager) {
+        Registry<Enchantment> registry = registryManager.getOrThrow(
+            RegistryKeys.ENCHANTMENT
+        );
+
+        List<EnchantmentOption> tradeable = new ArrayList<>();
+        List<EnchantmentOption> other = new ArrayList<>();
+
+        registry
+            .streamEntries()
+            .forEach(entry -> {
+                boolean isTradeable = entry.isIn(EnchantmentTags.TRADEABLE);
+                EnchantmentOption option = new EnchantmentOption(
+                    entry.registryKey().getValue().toString(),
+                    entry.value().description().getString(),
+                    entry.value().getMaxLevel(),
+                    isTradeable
+                );
+                (isTradeable ? tradeable : other).add(option);
+            });
+
+        if (tradeable.isEmpty() && other.isEmpty()) {
+            VillagerReroller.LOGGER.warn(
+                "Enchantment registry is empty, keeping built-in table"
+            );
+            return;
+        }
+
+        int tradeableCount = tradeable.size();
+        tradeable.sort(Comparator.comparing(EnchantmentOption::getId));
+        other.sort(Comparator.comparing(EnchantmentOption::getId));
+        tradeable.addAll(other);
+
+        table = new OptionTable(tradeable, table.version + 1);
+        VillagerReroller.LOGGER.info(
+            "Built enchantment table from registry: {} entries ({} tradeable)",
+            tradeable.size(),
+            tradeableCount
+        );
     }
 
     public static class EnchantmentOption {
         private final String id;
         private final String displayName;
         private final int maxLevel;
+        private final boolean tradeable;
 
         public EnchantmentOption(String id, String displayName, int maxLevel) {
+            this(id, displayName, maxLevel, true);
+        }
+
+        public EnchantmentOption(
+            String id,
+            String displayName,
+            int maxLevel,
+            boolean tradeable
+        ) {
             this.id = id;
             this.displayName = displayName;
             this.maxLevel = maxLevel;
+            this.tradeable = tradeable;
         }
 
         public String getId() {
@@ -70,6 +138,10 @@ public class LibrarianEnchantments {
             return maxLevel;
         }
 
+        public boolean isTradeable() {
+            return tradeable;
+        }
+
         public String getFilterString(int level) {
             return id + ":" + level;
         }
@@ -93,20 +165,66 @@ public class LibrarianEnchantments {
         }
     }
 
-    public static int getIndex(String enchantmentId, int level) {
-        for (int i = 0; i < ALL_ENCHANTMENTS.size(); i++) {
-            EnchantmentOption opt = ALL_ENCHANTMENTS.get(i);
-            if (opt.getId().equals(enchantmentId)) {
-                return i;
+    private static class OptionTable {
+
+        final EnchantmentOption[] options;
+        final Map<String, Integer> indexById;
+        final Map<Identifier, Integer> indexByIdentifier;
+        final int version;
+
+        OptionTable(List<EnchantmentOption> options, int version) {
+            this.version = version;
+            this.options = options.toArray(new EnchantmentOption[0]);
+            this.indexById = new HashMap<>();
+            this.indexByIdentifier = new HashMap<>();
+            for (int i = 0; i < this.options.length; i++) {
+                indexById.put(this.options[i].getId(), i);
+                Identifier identifier = Identifier.tryParse(
+                    this.options[i].getId()
+                );
+                if (identifier != null) {
+                    indexByIdentifier.put(identifier, i);
+                }
             }
         }
-        return 0;
+    }
+
+    public static List<EnchantmentOption> getAll() {
+        return List.of(table.options);
+    }
+
+    public static int size() {
+        return table.options.length;
+    }
+
+    public static int getVersion() {
+        return table.version;
+    }
+
+    public static int getIndex(String enchantmentId) {
+        int index = indexOf(enchantmentId);
+        return index >= 0 ? index : 0;
+    }
+
+    public static int indexOf(String enchantmentId) {
+        Integer index = table.indexById.get(enchantmentId);
+        return index != null ? index : -1;
+    }
+
+    public static int indexOf(RegistryEntry<Enchantment> enchantment) {
+        Optional<RegistryKey<Enchantment>> key = enchantment.getKey();
+        if (key.isEmpty()) {
+            return -1;
+        }
+        Integer index = table.indexByIdentifier.get(key.get().getValue());
+        return index != null ? index : -1;
     }
 
     public static EnchantmentOption getByIndex(int index) {
-        if (index < 0 || index >= ALL_ENCHANTMENTS.size()) {
-            return ALL_ENCHANTMENTS.get(0);
+        EnchantmentOption[] options = table.options;
+        if (index < 0 || index >= options.length) {
+            return options[0];
         }
-        return ALL_ENCHANTMENTS.get(index);
+        return options[index];
     }
 }
@@ -0,0 +1,57 @@
+package com.villagerreroller.trade;
+
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.screen.MerchantScreenHandler;
+import net.minecraft.village.TradeOffer;
+import net.minecraft.village.TradeOfferList;
+
+// A villager's trades are fixed for good once anyone has traded with it:
+// it gains experience, its offers record uses, and past the first level
+// it keeps its profession even without a workstation.
+public final class LockDetector {
+
+    public enum Reason {
+        NONE,
+        LEVEL,
+        EXPERIENCE,
+        USED_OFFER,
+    }
+
+    private LockDetector() {}
+
+    public static Reason fromVillager(VillagerEntity villager) {
+        return villager.getVillagerData().level() > 1
+            ? Reason.LEVEL
+            : Reason.NONE;
+    }
+
+    public static Reason fromScreen(
+        MerchantScreenHandler handler,
+        VillagerEntity villager
+    ) {
+        Reason reason = villager != null
+            ? fromVillager(villager)
+            : Reason.NONE;
+        if (reason != Reason.NONE) {
+            return reason;
+        }
+
+        if (handler.getLevelProgress() > 1) {
+            return Reason.LEVEL;
+        }
+
+        if (handler.isLeveled() && handler.getExperience() > 0) {
+            return Reason.EXPERIENCE;
+        }
+
+        TradeOfferList offers = handler.getRecipes();
+        for (int i = 0; i < offers.size(); i++) {
+            TradeOffer offer = offers.get(i);
+            if (offer.getUses() > 0) {
+                return Reason.USED_OFFER;
+            }
+        }
+
+        return Reason.NONE;
+    }
+}
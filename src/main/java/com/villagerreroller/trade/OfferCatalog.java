@@ -0,0 +1,341 @@
+package com.villagerreroller.trade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.util.math.BlockPos;
+
+public class OfferCatalog {
+
+    private final Map<UUID, List<CatalogEntry>> byVillager;
+    private final Map<String, List<CatalogEntry>> byItem;
+    private final Map<String, List<CatalogEntry>> byEnchantment;
+    private final Set<UUID> lockedVillagers;
+    private UpdateListener updateListener;
+
+    public OfferCatalog() {
+        this.byVillager = new HashMap<>();
+        this.byItem = new HashMap<>();
+        this.byEnchantment = new HashMap<>();
+        this.lockedVillagers = new HashSet<>();
+    }
+
+    public void setUpdateListener(UpdateListener updateListener) {
+        this.updateListener = updateListener;
+    }
+
+    public void record(
+        VillagerEntity villager,
+        List<TradeScanner.ScannedTrade> trades
+    ) {
+        record(villager, trades, isLocked(villager.getUuid()));
+    }
+
+    public void record(
+        VillagerEntity villager,
+        List<TradeScanner.ScannedTrade> trades,
+        boolean locked
+    ) {
+        String profession = villager
+            .getVillagerData()
+            .profession()
+            .value()
+            .id()
+            .getString();
+        long now = System.currentTimeMillis();
+
+        List<CatalogEntry> entries = new ArrayList<>(trades.size());
+        for (TradeScanner.ScannedTrade trade : trades) {
+            entries.add(
+                new CatalogEntry(
+                    villager.getUuid(),
+                    villager.getBlockPos().toImmutable(),
+                    profession,
+                    trade.getSlotIndex(),
+                    trade.getItemId(),
+                    getEnchantmentLevels(trade),
+                    trade.getEmeraldCost(),
+                    now
+                )
+            );
+        }
+
+        replace(villager.getUuid(), entries);
+        if (locked) {
+            lockedVillagers.add(villager.getUuid());
+        } else {
+            lockedVillagers.remove(villager.getUuid());
+        }
+        notifyUpdated(villager.getUuid());
+    }
+
+    public void setLocked(UUID villagerUuid, boolean locked) {
+        boolean changed = locked
+            ? lockedVillagers.add(villagerUuid)
+            : lockedVillagers.remove(villagerUuid);
+        if (changed) {
+            notifyUpdated(villagerUuid);
+        }
+    }
+
+    public boolean isLocked(UUID villagerUuid) {
+        return lockedVillagers.contains(villagerUuid);
+    }
+
+    public void load(
+        UUID villagerUuid,
+        List<CatalogEntry> entries,
+        boolean locked
+    ) {
+        replace(villagerUuid, entries);
+        if (locked) {
+            lockedVillagers.add(villagerUuid);
+        } else {
+            lockedVillagers.remove(villagerUuid);
+        }
+    }
+
+    private void notifyUpdated(UUID villagerUuid) {
+        if (updateListener != null) {
+            updateListener.onVillagerUpdated(
+                villagerUuid,
+                getVillagerOffers(villagerUuid),
+                isLocked(villagerUuid)
+            );
+        }
+    }
+
+    private void replace(UUID villagerUuid, List<CatalogEntry> entries) {
+        remove(villagerUuid);
+
+        byVillager.put(villagerUuid, entries);
+        for (CatalogEntry entry : entries) {
+            insertSorted(byItem, entry.getItemId(), entry);
+            for (String enchantId : entry.getEnchantments().keySet()) {
+                insertSorted(byEnchantment, enchantId, entry);
+            }
+        }
+    }
+
+    private void remove(UUID villagerUuid) {
+        List<CatalogEntry> previous = byVillager.remove(villagerUuid);
+        if (previous == null) {
+            return;
+        }
+
+        for (CatalogEntry entry : previous) {
+            removeFrom(byItem, entry.getItemId(), entry);
+            for (String enchantId : entry.getEnchantments().keySet()) {
+                removeFrom(byEnchantment, enchantId, entry);
+            }
+        }
+    }
+
+    public void clear() {
+        byVillager.clear();
+        byItem.clear();
+        byEnchantment.clear();
+        lockedVillagers.clear();
+    }
+
+    public List<CatalogEntry> findByEnchantment(
+        String enchantmentId,
+        int minLevel
+    ) {
+        List<CatalogEntry> entries = byEnchantment.getOrDefault(
+            enchantmentId,
+            List.of()
+        );
+        if (minLevel <= 1) {
+            return Collections.unmodifiableList(entries);
+        }
+
+        List<CatalogEntry> result = new ArrayList<>();
+        for (CatalogEntry entry : entries) {
+            if (entry.getEnchantmentLevel(enchantmentId) >= minLevel) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public List<CatalogEntry> findByItem(String itemId) {
+        return Collections.unmodifiableList(
+            byItem.getOrDefault(itemId, List.of())
+        );
+    }
+
+    public List<CatalogEntry> findByMaxPrice(String itemId, int maxEmeralds) {
+        List<CatalogEntry> entries = byItem.getOrDefault(itemId, List.of());
+        int end = upperBound(entries, maxEmeralds);
+        return Collections.unmodifiableList(entries.subList(0, end));
+    }
+
+    public List<CatalogEntry> getVillagerOffers(UUID villagerUuid) {
+        return Collections.unmodifiableList(
+            byVillager.getOrDefault(villagerUuid, List.of())
+        );
+    }
+
+    public boolean contains(UUID villagerUuid) {
+        return byVillager.containsKey(villagerUuid);
+    }
+
+    public int getVillagerCount() {
+        return byVillager.size();
+    }
+
+    private static Map<String, Integer> getEnchantmentLevels(
+        TradeScanner.ScannedTrade trade
+    ) {
+        Map<String, Integer> levels = new HashMap<>();
+        for (Map.Entry<
+            RegistryEntry<Enchantment>,
+            Integer
+        > entry : trade.getEnchantments().entrySet()) {
+            entry
+                .getKey()
+                .getKey()
+                .ifPresent(key ->
+                    levels.put(key.getValue().toString(), entry.getValue())
+                );
+        }
+        return levels;
+    }
+
+    private static void insertSorted(
+        Map<String, List<CatalogEntry>> index,
+        String key,
+        CatalogEntry entry
+    ) {
+        List<CatalogEntry> entries = index.computeIfAbsent(key, k ->
+            new ArrayList<>()
+        );
+        entries.add(upperBound(entries, entry.getEmeraldCost()), entry);
+    }
+
+    private static void removeFrom(
+        Map<String, List<CatalogEntry>> index,
+        String key,
+        CatalogEntry entry
+    ) {
+        List<CatalogEntry> entries = index.get(key);
+        if (entries == null) {
+            return;
+        }
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static int upperBound(List<CatalogEntry> entries, int price) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries.get(mid).getEmeraldCost() <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public interface UpdateListener {
+        void onVillagerUpdated(
+            UUID villagerUuid,
+            List<CatalogEntry> entries,
+            boolean locked
+        );
+    }
+
+    public static class CatalogEntry {
+
+        private final UUID villagerUuid;
+        private final BlockPos villagerPos;
+        private final String profession;
+        private final int slotIndex;
+        private final String itemId;
+        private final Map<String, Integer> enchantments;
+        private final int emeraldCost;
+        private final long timestamp;
+
+        public CatalogEntry(
+            UUID villagerUuid,
+            BlockPos villagerPos,
+            String profession,
+            int slotIndex,
+            String itemId,
+            Map<String, Integer> enchantments,
+            int emeraldCost,
+            long timestamp
+        ) {
+            this.villagerUuid = villagerUuid;
+            this.villagerPos = villagerPos;
+            this.profession = profession;
+            this.slotIndex = slotIndex;
+            this.itemId = itemId;
+            this.enchantments = Collections.unmodifiableMap(enchantments);
+            this.emeraldCost = emeraldCost;
+            this.timestamp = timestamp;
+        }
+
+        public UUID getVillagerUuid() {
+            return villagerUuid;
+        }
+
+        public BlockPos getVillagerPos() {
+            return villagerPos;
+        }
+
+        public String getProfession() {
+            return profession;
+        }
+
+        public int getSlotIndex() {
+            return slotIndex;
+        }
+
+        public String getItemId() {
+            return itemId;
+        }
+
+        public Map<String, Integer> getEnchantments() {
+            return enchantments;
+        }
+
+        public int getEnchantmentLevel(String enchantmentId) {
+            return enchantments.getOrDefault(enchantmentId, 0);
+        }
+
+        public int getEmeraldCost() {
+            return emeraldCost;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%s at %s: %s %s for %d emeralds",
+                profession,
+                villagerPos.toShortString(),
+                itemId,
+                enchantments,
+                emeraldCost
+            );
+        }
+    }
+}
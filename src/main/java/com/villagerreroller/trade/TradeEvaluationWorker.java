@@ -0,0 +1,44 @@
+package com.villagerreroller.trade;
+
+import com.villagerreroller.config.ConfigSnapshot;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs the trade filter and evaluator off the client thread. The caller
+// hands over scanned trades, which are detached copies of the offers, and
+// polls the future from its tick; nothing here touches the world, the
+// screen or the player.
+public class TradeEvaluationWorker {
+
+    private final ExecutorService executor;
+
+    public TradeEvaluationWorker() {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VTR Trade Evaluation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<TradeVerdict> submit(
+        ConfigSnapshot config,
+        List<TradeScanner.ScannedTrade> trades,
+        String professionId
+    ) {
+        List<TradeScanner.ScannedTrade> snapshot = List.copyOf(trades);
+        TradeFilter filter = config.getTradeFilter();
+        TradeEvaluator evaluator = config.getTradeEvaluator();
+        return CompletableFuture.supplyAsync(
+            () ->
+                TradeVerdict.evaluate(
+                    filter,
+                    evaluator,
+                    snapshot,
+                    professionId
+                ),
+            executor
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package com.villagerreroller.trade;
 
-import com.villagerreroller.config.ModConfig;
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.stats.FlightEvents;
 import java.util.HashMap;
 import java.util.Map;
 import net.minecraft.enchantment.Enchantment;
@@ -8,12 +9,17 @@ import net.minecraft.registry.entry.RegistryEntry;
 
 public class TradeEvaluator {
 
-    private final ModConfig config;
+    private static final int DEFAULT_PRIORITY = 50;
+
+    private final ConfigSnapshot config;
     private final Map<String, Integer> enchantmentPriority;
+    private int[] priorityByIndex;
+    private int priorityTableVersion = -1;
 
-    public TradeEvaluator(ModConfig config) {
+    public TradeEvaluator(ConfigSnapshot config) {
         this.config = config;
         this.enchantmentPriority = initializeEnchantmentPriority();
+        getPriorityTable();
     }
 
     private Map<String, Integer> initializeEnchantmentPriority() {
@@ -38,7 +44,7 @@ public class TradeEvaluator {
 
         priority.put("minecraft:fire_aspect", 60);
         priority.put("minecraft:knockback", 50);
-        priority.put("minecraft:sweeping", 55);
+        priority.put("minecraft:sweeping_edge", 55);
 
         priority.put("minecraft:power", 70);
         priority.put("minecraft:punch", 60);
@@ -53,11 +59,33 @@ public class TradeEvaluator {
         return priority;
     }
 
+    // Trades are scored on the evaluation worker and by the overlay on the
+    // client thread, so the lazily rebuilt table is guarded.
+    private synchronized int[] getPriorityTable() {
+        int version = LibrarianEnchantments.getVersion();
+        if (priorityByIndex == null || priorityTableVersion != version) {
+            int[] table = new int[LibrarianEnchantments.size()];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = enchantmentPriority.getOrDefault(
+                    LibrarianEnchantments.getByIndex(i).getId(),
+                    DEFAULT_PRIORITY
+                );
+            }
+            priorityByIndex = table;
+            priorityTableVersion = version;
+        }
+        return priorityByIndex;
+    }
+
     public TradeScore evaluateTrade(TradeScanner.ScannedTrade trade) {
+        FlightEvents.TradeEvaluation event = FlightEvents.beginTradeEvaluation(
+            trade.getSlotIndex(),
+            trade.getItemId()
+        );
         int score = 0;
         StringBuilder reason = new StringBuilder();
 
-        int maxCost = getMaxCostForItem(trade);
+        int maxCost = TradeTarget.getMaxCost(config, trade);
         int emeraldCost = trade.getEmeraldCost();
 
         if (emeraldCost <= maxCost) {
@@ -102,11 +130,16 @@ public class TradeEvaluator {
             reason.setLength(reason.length() - 2);
         }
 
+        if (event != null) {
+            event.score = score;
+            event.commit();
+        }
         return new TradeScore(trade, score, reason.toString());
     }
 
     private int calculateEnchantmentScore(TradeScanner.ScannedTrade trade) {
-        int[] scoreRef = { 0 };
+        int[] priorities = getPriorityTable();
+        int score = 0;
 
         for (Map.Entry<RegistryEntry<Enchantment>, Integer> entry : trade
             .getEnchantments()
@@ -114,65 +147,20 @@ public class TradeEvaluator {
             RegistryEntry<Enchantment> enchantEntry = entry.getKey();
             int level = entry.getValue();
 
-            enchantEntry
-                .getKey()
-                .ifPresent(key -> {
-                    String enchantId = key.getValue().toString();
+            int index = LibrarianEnchantments.indexOf(enchantEntry);
+            int priority = index >= 0 ? priorities[index] : DEFAULT_PRIORITY;
 
-                    int priority = enchantmentPriority.getOrDefault(
-                        enchantId,
-                        50
-                    );
+            int enchantScore = priority * level;
 
-                    int enchantScore = priority * level;
+            Enchantment enchantment = enchantEntry.value();
+            if (level == enchantment.getMaxLevel()) {
+                enchantScore += 20;
+            }
 
-                    Enchantment enchantment = enchantEntry.value();
-                    if (level == enchantment.getMaxLevel()) {
-                        enchantScore += 20;
-                    }
-
-                    scoreRef[0] += enchantScore;
-                });
-        }
-
-        return scoreRef[0];
-    }
-
-    private int getMaxCostForItem(TradeScanner.ScannedTrade trade) {
-        if (trade.isEnchantedBook()) {
-            return config.getMaxEmeraldsBooks();
-        }
-
-        String itemId = trade.getItemId();
-
-        if (isToolItem(itemId)) {
-            return config.getMaxEmeraldsTools();
-        }
-
-        if (isArmorItem(itemId)) {
-            return config.getMaxEmeraldsArmor();
+            score += enchantScore;
         }
 
-        return config.getMaxEmeraldsMisc();
-    }
-
-    private boolean isToolItem(String itemId) {
-        return (
-            itemId.contains("_pickaxe") ||
-            itemId.contains("_axe") ||
-            itemId.contains("_shovel") ||
-            itemId.contains("_hoe") ||
-            itemId.contains("_sword")
-        );
-    }
-
-    private boolean isArmorItem(String itemId) {
-        return (
-            itemId.contains("_helmet") ||
-            itemId.contains("_chestplate") ||
-            itemId.contains("_leggings") ||
-            itemId.contains("_boots")
-        );
+        return score;
     }
 
     public static class TradeScore implements Comparable<TradeScore> {
@@ -1,106 +1,273 @@
 package com.villagerreroller.trade;
 
 import com.villagerreroller.VillagerReroller;
-import com.villagerreroller.config.ModConfig;
+import com.villagerreroller.config.ConfigSnapshot;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.registry.entry.RegistryEntry;
 
 public class TradeFilter {
 
-    private final ModConfig config;
+    private static final String LIBRARIAN = "minecraft:librarian";
 
-    public TradeFilter(ModConfig config) {
+    private final ConfigSnapshot config;
+    private final int targetIndex;
+
+    // Item targets by the profession that can sell them; every list also
+    // holds the targets no profession could be pinned to.
+    private final List<TradeTarget> allTargets;
+    private final List<TradeTarget> anyProfessionTargets;
+    private final Map<String, List<TradeTarget>> targetsByProfession;
+    private final List<String> targetProfessions;
+
+    public TradeFilter(ConfigSnapshot config) {
         this.config = config;
+        this.targetIndex = LibrarianEnchantments.indexOf(
+            config.getSelectedEnchantment()
+        );
+
+        if (targetIndex < 0) {
+            VillagerReroller.LOGGER.warn(
+                "Target enchantment {} is not in the enchantment table",
+                config.getSelectedEnchantment()
+            );
+        }
+
+        List<TradeTarget> targets = new ArrayList<>();
+        for (String entry : config.getItemWhitelist()) {
+            TradeTarget target = TradeTarget.parse(entry);
+            if (target != null) {
+                targets.add(target);
+            }
+        }
+        this.allTargets = List.copyOf(targets);
+        this.anyProfessionTargets = targets
+            .stream()
+            .filter(target -> target.getProfessions().isEmpty())
+            .toList();
+
+        Map<String, List<TradeTarget>> byProfession = new HashMap<>();
+        for (TradeTarget target : targets) {
+            for (String profession : target.getProfessions()) {
+                byProfession
+                    .computeIfAbsent(profession, key ->
+                        new ArrayList<>(anyProfessionTargets)
+                    )
+                    .add(target);
+            }
+        }
+        byProfession.replaceAll((profession, list) -> List.copyOf(list));
+        this.targetsByProfession = Map.copyOf(byProfession);
+
+        // Gear targets are explicit picks, so their professions come before
+        // the librarian the selected enchantment implies
+        List<String> professions = new ArrayList<>();
+        if (anyProfessionTargets.isEmpty()) {
+            professions.addAll(targetsByProfession.keySet());
+            Collections.sort(professions);
+            professions.remove(LIBRARIAN);
+            if (
+                targetIndex >= 0 ||
+                targetsByProfession.containsKey(LIBRARIAN)
+            ) {
+                professions.add(LIBRARIAN);
+            }
+        } else {
+            VillagerReroller.LOGGER.info(
+                "Trade targets {} can come from any profession, so the workstation is not chosen by profession",
+                anyProfessionTargets
+            );
+        }
+        this.targetProfessions = List.copyOf(professions);
+    }
+
+    // Professions a villager has to hold for any target to come up, best
+    // first; empty when some target could come from anyone.
+    public List<String> getTargetProfessions() {
+        return targetProfessions;
+    }
+
+    // Null means the profession is not known, which checks every target
+    private List<TradeTarget> targetsFor(String professionId) {
+        if (professionId == null) {
+            return allTargets;
+        }
+        return targetsByProfession.getOrDefault(
+            professionId,
+            anyProfessionTargets
+        );
     }
 
     public List<TradeScanner.ScannedTrade> filterTrades(
         List<TradeScanner.ScannedTrade> trades
+    ) {
+        return filterTrades(trades, null);
+    }
+
+    public List<TradeScanner.ScannedTrade> filterTrades(
+        List<TradeScanner.ScannedTrade> trades,
+        String professionId
     ) {
         List<TradeScanner.ScannedTrade> filtered = new ArrayList<>();
+        List<TradeTarget> targets = targetsFor(professionId);
+        // Runs for every scanned screen, so the trace is debug-only and
+        // costs nothing unless it is switched on
+        boolean debug = VillagerReroller.LOGGER.isDebugEnabled();
 
-        VillagerReroller.LOGGER.info("=== TRADE FILTER DEBUG ===");
-        VillagerReroller.LOGGER.info("Scanning {} trades", trades.size());
-        VillagerReroller.LOGGER.info(
-            "Target: {} level {}",
-            config.getSelectedEnchantment(),
-            config.getSelectedEnchantmentLevel()
-        );
-        VillagerReroller.LOGGER.info(
-            "Max emerald cost: {}",
-            config.getMaxEmeraldsBooks()
-        );
+        if (debug) {
+            VillagerReroller.LOGGER.debug("=== TRADE FILTER DEBUG ===");
+            VillagerReroller.LOGGER.debug("Scanning {} trades", trades.size());
+            VillagerReroller.LOGGER.debug(
+                "Target: {} level {}",
+                config.getSelectedEnchantment(),
+                config.getSelectedEnchantmentLevel()
+            );
+            VillagerReroller.LOGGER.debug(
+                "Max emerald cost: {}",
+                config.getMaxEmeraldsBooks()
+            );
+            if (!targets.isEmpty()) {
+                VillagerReroller.LOGGER.debug("Item targets: {}", targets);
+            }
+        }
 
         for (TradeScanner.ScannedTrade trade : trades) {
-            boolean matches = matchesCriteria(trade);
-            VillagerReroller.LOGGER.info(
-                "  Trade [Slot {}]: {} - MATCH: {}",
-                trade.getSlotIndex(),
-                trade.getItemId(),
-                matches ? "YES ✓" : "NO"
-            );
-            if (trade.isEnchantedBook()) {
-                VillagerReroller.LOGGER.info(
-                    "    → Enchantments: {}",
-                    trade.getEnchantmentNames()
-                );
-                VillagerReroller.LOGGER.info(
-                    "    → Cost: {} emeralds",
-                    trade.getEmeraldCost()
+            boolean matches = matchesCriteria(trade, targets);
+            if (debug) {
+                VillagerReroller.LOGGER.debug(
+                    "  Trade [Slot {}]: {} - MATCH: {}",
+                    trade.getSlotIndex(),
+                    trade.getItemId(),
+                    matches ? "YES ✓" : "NO"
                 );
+                if (!trade.getEnchantments().isEmpty()) {
+                    VillagerReroller.LOGGER.debug(
+                        "    → Enchantments: {}",
+                        trade.getEnchantmentNames()
+                    );
+                    VillagerReroller.LOGGER.debug(
+                        "    → Cost: {} emeralds",
+                        trade.getEmeraldCost()
+                    );
+                }
             }
 
             if (matches) {
                 filtered.add(trade);
-                VillagerReroller.LOGGER.info(
-                    "    ★★★ TRADE MATCHED CRITERIA ★★★"
-                );
+                if (debug) {
+                    VillagerReroller.LOGGER.debug(
+                        "    ★★★ TRADE MATCHED CRITERIA ★★★"
+                    );
+                }
             }
         }
 
-        VillagerReroller.LOGGER.info(
-            "Filter result: {} matching trades from {} total",
-            filtered.size(),
-            trades.size()
-        );
+        if (debug) {
+            VillagerReroller.LOGGER.debug(
+                "Filter result: {} matching trades from {} total",
+                filtered.size(),
+                trades.size()
+            );
+        }
         return filtered;
     }
 
     public boolean matchesCriteria(TradeScanner.ScannedTrade trade) {
-        if (!trade.isEnchantedBook()) {
-            return false;
-        }
+        return matchesCriteria(trade, allTargets);
+    }
 
+    private boolean matchesCriteria(
+        TradeScanner.ScannedTrade trade,
+        List<TradeTarget> targets
+    ) {
         if (!checkPriceThreshold(trade)) {
             return false;
         }
 
-        return checkSelectedEnchantment(trade);
+        return matchesTarget(trade, targets);
+    }
+
+    private boolean matchesTarget(
+        TradeScanner.ScannedTrade trade,
+        List<TradeTarget> targets
+    ) {
+        if (trade.isEnchantedBook() && checkSelectedEnchantment(trade)) {
+            return true;
+        }
+        for (TradeTarget target : targets) {
+            if (target.matches(trade)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean checkSelectedEnchantment(TradeScanner.ScannedTrade trade) {
-        String targetEnchant = config.getSelectedEnchantment();
-        int targetLevel = config.getSelectedEnchantmentLevel();
+        if (targetIndex < 0) {
+            return false;
+        }
 
-        for (String tradeEnchant : trade.getEnchantmentNames()) {
-            String[] parts = tradeEnchant.split(":");
-            if (parts.length >= 2) {
-                String enchantId = parts[0] + ":" + parts[1];
-                int level = parts.length > 2 ? Integer.parseInt(parts[2]) : 1;
+        int targetLevel = config.getSelectedEnchantmentLevel();
 
-                if (enchantId.equals(targetEnchant) && level >= targetLevel) {
-                    return true;
-                }
+        for (Map.Entry<RegistryEntry<Enchantment>, Integer> entry : trade
+            .getEnchantments()
+            .entrySet()) {
+            if (
+                entry.getValue() >= targetLevel &&
+                LibrarianEnchantments.indexOf(entry.getKey()) == targetIndex
+            ) {
+                return true;
             }
         }
         return false;
     }
 
+    // Cheapest price the villager asks for any target regardless of the
+    // configured price ceiling, or -1 when none is offered at all.
+    public int getTargetPrice(List<TradeScanner.ScannedTrade> trades) {
+        return getTargetPrice(trades, null);
+    }
+
+    public int getTargetPrice(
+        List<TradeScanner.ScannedTrade> trades,
+        String professionId
+    ) {
+        List<TradeTarget> targets = targetsFor(professionId);
+        int cheapest = -1;
+        for (TradeScanner.ScannedTrade trade : trades) {
+            if (
+                matchesTarget(trade, targets) &&
+                (cheapest < 0 || trade.getEmeraldCost() < cheapest)
+            ) {
+                cheapest = trade.getEmeraldCost();
+            }
+        }
+        return cheapest;
+    }
+
     private boolean checkPriceThreshold(TradeScanner.ScannedTrade trade) {
         int emeraldCost = trade.getEmeraldCost();
-        return emeraldCost <= config.getMaxEmeraldsBooks();
+        return emeraldCost <= TradeTarget.getMaxCost(config, trade);
     }
 
     public boolean hasAnyMatchingTrade(List<TradeScanner.ScannedTrade> trades) {
-        return filterTrades(trades).size() > 0;
+        return hasAnyMatchingTrade(trades, null);
+    }
+
+    public boolean hasAnyMatchingTrade(
+        List<TradeScanner.ScannedTrade> trades,
+        String professionId
+    ) {
+        List<TradeTarget> targets = targetsFor(professionId);
+        for (TradeScanner.ScannedTrade trade : trades) {
+            if (matchesCriteria(trade, targets)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
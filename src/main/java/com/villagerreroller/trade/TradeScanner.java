@@ -16,6 +16,9 @@ import net.minecraft.village.TradeOfferList;
 
 public class TradeScanner {
 
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     private final MinecraftClient client;
     private List<ScannedTrade> lastScannedTrades;
     private long lastScanTime;
@@ -64,10 +67,41 @@ public class TradeScanner {
         return lastScanTime;
     }
 
+    public static long fingerprint(List<ScannedTrade> trades) {
+        long hash = FNV_OFFSET;
+        for (ScannedTrade trade : trades) {
+            hash = mix(hash, trade.getFingerprint());
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, ItemStack stack) {
+        if (stack.isEmpty()) {
+            return mix(hash, 0L);
+        }
+        hash = mix(hash, Registries.ITEM.getId(stack.getItem()).toString());
+        return mix(hash, stack.getCount());
+    }
+
     public static class ScannedTrade {
 
         private final int slotIndex;
-        private final TradeOffer offer;
         private final ItemStack sellItem;
         private final ItemStack buyItem;
         private final ItemStack secondBuyItem;
@@ -75,10 +109,13 @@ public class TradeScanner {
         private final Map<RegistryEntry<Enchantment>, Integer> enchantments;
         private final String itemId;
         private final boolean isEnchantedBook;
+        private final long fingerprint;
 
+        // Keeps copies, never the offer itself: scanned trades are handed to
+        // the evaluation worker while the client thread keeps updating the
+        // live offer
         public ScannedTrade(int slotIndex, TradeOffer offer) {
             this.slotIndex = slotIndex;
-            this.offer = offer;
             this.sellItem = offer.getSellItem().copy();
             this.buyItem = offer.getFirstBuyItem().itemStack().copy();
             this.secondBuyItem = offer
@@ -89,6 +126,31 @@ public class TradeScanner {
             this.enchantments = getEnchantmentsFromItem(sellItem);
             this.itemId = Registries.ITEM.getId(sellItem.getItem()).toString();
             this.isEnchantedBook = sellItem.getItem() == Items.ENCHANTED_BOOK;
+            this.fingerprint = calculateFingerprint();
+        }
+
+        private long calculateFingerprint() {
+            long hash = mix(FNV_OFFSET, slotIndex);
+            hash = mix(hash, itemId);
+            hash = mix(hash, sellItem.getCount());
+            hash = mix(hash, buyItem);
+            hash = mix(hash, secondBuyItem);
+
+            // Enchantments come from a HashMap, so combine them with an
+            // order-independent sum to keep the hash stable across scans.
+            long enchantHash = 0;
+            for (Map.Entry<
+                RegistryEntry<Enchantment>,
+                Integer
+            > entry : enchantments.entrySet()) {
+                String enchantId = entry
+                    .getKey()
+                    .getKey()
+                    .map(key -> key.getValue().toString())
+                    .orElse("");
+                enchantHash += mix(mix(FNV_OFFSET, enchantId), entry.getValue());
+            }
+            return mix(hash, enchantHash);
         }
 
         private static Map<
@@ -129,10 +191,6 @@ public class TradeScanner {
             return slotIndex;
         }
 
-        public TradeOffer getOffer() {
-            return offer;
-        }
-
         public ItemStack getSellItem() {
             return sellItem;
         }
@@ -161,6 +219,10 @@ public class TradeScanner {
             return isEnchantedBook;
         }
 
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
         public boolean hasEnchantment(RegistryEntry<Enchantment> enchantment) {
             return enchantments.containsKey(enchantment);
         }
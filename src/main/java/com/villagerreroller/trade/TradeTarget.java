@@ -0,0 +1,274 @@
+package com.villagerreroller.trade;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.config.ConfigSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+// An offer worth stopping for, parsed from an item whitelist entry that
+// carries a bracketed requirement list: an item ID or #tag followed by the
+// enchantments it must have, e.g. minecraft:diamond_sword[sharpness:4] or
+// #minecraft:foot_armor[feather_falling:4]. Empty brackets accept the item
+// as is, and a missing level means any. Entries without brackets keep
+// their plain whitelist meaning and are not targets.
+public final class TradeTarget {
+
+    private static final String ARMORER = "minecraft:armorer";
+    private static final String TOOLSMITH = "minecraft:toolsmith";
+    private static final String WEAPONSMITH = "minecraft:weaponsmith";
+    private static final String FLETCHER = "minecraft:fletcher";
+    private static final String FISHERMAN = "minecraft:fisherman";
+    private static final String LEATHERWORKER = "minecraft:leatherworker";
+    private static final String LIBRARIAN = "minecraft:librarian";
+
+    private final String spec;
+    private final String itemId;
+    private final TagKey<Item> tag;
+    private final int[] enchantmentIndices;
+    private final int[] minLevels;
+    private final List<String> professions;
+
+    private TradeTarget(
+        String spec,
+        String itemId,
+        TagKey<Item> tag,
+        int[] enchantmentIndices,
+        int[] minLevels
+    ) {
+        this.spec = spec;
+        this.itemId = itemId;
+        this.tag = tag;
+        this.enchantmentIndices = enchantmentIndices;
+        this.minLevels = minLevels;
+        this.professions = itemId != null
+            ? professionsSelling(itemId)
+            : professionsSelling(tag);
+    }
+
+    // Returns null for entries that are not targets: plain whitelist
+    // entries, and malformed ones or those naming unknown enchantments.
+    static TradeTarget parse(String entry) {
+        String spec = entry.trim().toLowerCase(Locale.ROOT);
+        int bracket = spec.indexOf('[');
+        if (bracket < 0) {
+            return null;
+        }
+        if (bracket == 0 || !spec.endsWith("]")) {
+            VillagerReroller.LOGGER.warn(
+                "Ignoring malformed trade target {}",
+                entry
+            );
+            return null;
+        }
+
+        String item = spec.substring(0, bracket);
+        String requirements = spec.substring(bracket + 1, spec.length() - 1);
+
+        String itemId = null;
+        TagKey<Item> tag = null;
+        if (item.startsWith("#")) {
+            Identifier tagId = Identifier.tryParse(
+                normalizeId(item.substring(1))
+            );
+            if (tagId == null) {
+                VillagerReroller.LOGGER.warn("Ignoring bad item tag {}", item);
+                return null;
+            }
+            tag = TagKey.of(RegistryKeys.ITEM, tagId);
+        } else {
+            itemId = normalizeId(item);
+        }
+
+        List<String> parts = new ArrayList<>();
+        for (String part : requirements.split(",")) {
+            if (!part.isBlank()) {
+                parts.add(part.trim());
+            }
+        }
+        int[] indices = new int[parts.size()];
+        int[] levels = new int[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            String part = parts.get(i);
+            int colon = part.lastIndexOf(':');
+            String enchantment = part;
+            levels[i] = 1;
+            if (colon >= 0 && isNumber(part.substring(colon + 1))) {
+                enchantment = part.substring(0, colon);
+                levels[i] = Integer.parseInt(part.substring(colon + 1));
+            }
+            indices[i] = LibrarianEnchantments.indexOf(
+                normalizeId(enchantment)
+            );
+            if (indices[i] < 0) {
+                VillagerReroller.LOGGER.warn(
+                    "Ignoring trade target {}: unknown enchantment {}",
+                    entry,
+                    enchantment
+                );
+                return null;
+            }
+        }
+
+        return new TradeTarget(spec, itemId, tag, indices, levels);
+    }
+
+    private static String normalizeId(String id) {
+        return id.contains(":") ? id : "minecraft:" + id;
+    }
+
+    private static boolean isNumber(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Which professions can offer an item at all, so a villager is only
+    // checked against targets it could ever roll. Empty means unknown:
+    // items outside the gear and book trades are checked for everyone.
+    private static List<String> professionsSelling(String itemId) {
+        if (itemId.equals("minecraft:enchanted_book")) {
+            return List.of(LIBRARIAN);
+        }
+        if (itemId.startsWith("minecraft:leather_")) {
+            return List.of(LEATHERWORKER);
+        }
+        if (isArmorItem(itemId) || itemId.equals("minecraft:shield")) {
+            return List.of(ARMORER);
+        }
+        if (itemId.contains("_axe")) {
+            return List.of(TOOLSMITH, WEAPONSMITH);
+        }
+        if (itemId.contains("_sword")) {
+            return List.of(WEAPONSMITH);
+        }
+        if (isToolItem(itemId)) {
+            return List.of(TOOLSMITH);
+        }
+        if (
+            itemId.equals("minecraft:bow") ||
+            itemId.equals("minecraft:crossbow")
+        ) {
+            return List.of(FLETCHER);
+        }
+        if (itemId.equals("minecraft:fishing_rod")) {
+            return List.of(FISHERMAN);
+        }
+        return List.of();
+    }
+
+    // A tag is pinned to the professions of its items, unless one of them
+    // could come from anyone. Item tags are synced before the join that
+    // rebuilds the config snapshot, so they are loaded by the time this runs.
+    private static List<String> professionsSelling(TagKey<Item> tag) {
+        Set<String> professions = new TreeSet<>();
+        for (RegistryEntry<Item> entry : Registries.ITEM.iterateEntries(tag)) {
+            List<String> selling = professionsSelling(
+                Registries.ITEM.getId(entry.value()).toString()
+            );
+            if (selling.isEmpty()) {
+                return List.of();
+            }
+            professions.addAll(selling);
+        }
+        return List.copyOf(professions);
+    }
+
+    static boolean isToolItem(String itemId) {
+        return (
+            itemId.contains("_pickaxe") ||
+            itemId.contains("_axe") ||
+            itemId.contains("_shovel") ||
+            itemId.contains("_hoe") ||
+            itemId.contains("_sword")
+        );
+    }
+
+    static boolean isArmorItem(String itemId) {
+        return (
+            itemId.contains("_helmet") ||
+            itemId.contains("_chestplate") ||
+            itemId.contains("_leggings") ||
+            itemId.contains("_boots")
+        );
+    }
+
+    static int getMaxCost(
+        ConfigSnapshot config,
+        TradeScanner.ScannedTrade trade
+    ) {
+        if (trade.isEnchantedBook()) {
+            return config.getMaxEmeraldsBooks();
+        }
+
+        String itemId = trade.getItemId();
+        if (isToolItem(itemId)) {
+            return config.getMaxEmeraldsTools();
+        }
+        if (isArmorItem(itemId)) {
+            return config.getMaxEmeraldsArmor();
+        }
+        return config.getMaxEmeraldsMisc();
+    }
+
+    // Item and enchantments only; the price ceiling is the filter's call
+    boolean matches(TradeScanner.ScannedTrade trade) {
+        if (itemId != null) {
+            if (!itemId.equals(trade.getItemId())) {
+                return false;
+            }
+        } else if (!trade.getSellItem().isIn(tag)) {
+            return false;
+        }
+
+        for (int i = 0; i < enchantmentIndices.length; i++) {
+            if (!hasEnchantment(trade, enchantmentIndices[i], minLevels[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasEnchantment(
+        TradeScanner.ScannedTrade trade,
+        int index,
+        int minLevel
+    ) {
+        for (Map.Entry<RegistryEntry<Enchantment>, Integer> entry : trade
+            .getEnchantments()
+            .entrySet()) {
+            if (
+                entry.getValue() >= minLevel &&
+                LibrarianEnchantments.indexOf(entry.getKey()) == index
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getProfessions() {
+        return professions;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,63 @@
+package com.villagerreroller.trade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// What the filter and evaluator made of one screen of offers. Built on the
+// evaluation worker from ScannedTrades, which copy everything they need out
+// of the offers, and read back on the client thread.
+public final class TradeVerdict {
+
+    private final List<TradeScanner.ScannedTrade> matches;
+    private final int targetPrice;
+    private final List<TradeEvaluator.TradeScore> scores;
+
+    private TradeVerdict(
+        List<TradeScanner.ScannedTrade> matches,
+        int targetPrice,
+        List<TradeEvaluator.TradeScore> scores
+    ) {
+        this.matches = matches;
+        this.targetPrice = targetPrice;
+        this.scores = scores;
+    }
+
+    static TradeVerdict evaluate(
+        TradeFilter filter,
+        TradeEvaluator evaluator,
+        List<TradeScanner.ScannedTrade> trades,
+        String professionId
+    ) {
+        List<TradeEvaluator.TradeScore> scores = new ArrayList<>(
+            trades.size()
+        );
+        for (TradeScanner.ScannedTrade trade : trades) {
+            scores.add(evaluator.evaluateTrade(trade));
+        }
+        Collections.sort(scores);
+
+        return new TradeVerdict(
+            List.copyOf(filter.filterTrades(trades, professionId)),
+            filter.getTargetPrice(trades, professionId),
+            Collections.unmodifiableList(scores)
+        );
+    }
+
+    public boolean isMatch() {
+        return !matches.isEmpty();
+    }
+
+    public List<TradeScanner.ScannedTrade> getMatches() {
+        return matches;
+    }
+
+    public int getTargetPrice() {
+        return targetPrice;
+    }
+
+    // Best first
+    public List<TradeEvaluator.TradeScore> getScores() {
+        return scores;
+    }
+}
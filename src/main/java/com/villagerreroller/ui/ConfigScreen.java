@@ -26,7 +26,7 @@ public class ConfigScreen {
             .setParentScreen(parent)
             .setTitle(Text.literal("Villager Trade Reroller Config"))
             .setSavingRunnable(() -> {
-                VillagerReroller.getInstance().getConfigManager().save();
+                VillagerReroller.getInstance().saveConfig();
                 VillagerReroller.LOGGER.info("Configuration saved");
             });
 
@@ -218,11 +218,9 @@ public class ConfigScreen {
                 .build()
         );
 
-        List<EnchantmentOption> enchantments =
-            LibrarianEnchantments.ALL_ENCHANTMENTS;
+        List<EnchantmentOption> enchantments = LibrarianEnchantments.getAll();
         int currentEnchantIndex = LibrarianEnchantments.getIndex(
-            config.getSelectedEnchantment(),
-            config.getSelectedEnchantmentLevel()
+            config.getSelectedEnchantment()
         );
 
         filters.addEntry(
@@ -283,8 +281,7 @@ public class ConfigScreen {
                 .setTextGetter(value -> {
                     EnchantmentOption opt = LibrarianEnchantments.getByIndex(
                         LibrarianEnchantments.getIndex(
-                            config.getSelectedEnchantment(),
-                            1
+                            config.getSelectedEnchantment()
                         )
                     );
                     return Text.literal(opt.getDisplayString(value));
@@ -2,8 +2,9 @@ package com.villagerreroller.ui;
 
 import com.villagerreroller.VillagerReroller;
 import com.villagerreroller.automation.RerollController;
-import com.villagerreroller.config.ModConfig;
+import com.villagerreroller.config.ConfigSnapshot;
 import com.villagerreroller.stats.StatisticsTracker;
+import com.villagerreroller.stats.TickCostMeter;
 import com.villagerreroller.trade.TradeEvaluator;
 import com.villagerreroller.trade.TradeScanner;
 import java.util.ArrayList;
@@ -31,18 +32,59 @@ public class OverlayRenderer {
     private static final int COLOR_TEXT = 0xFFFFFFFF;
     private static final int COLOR_TEXT_DIM = 0xFFAAAAAA;
 
+    private static final long PERFORMANCE_REFRESH_MS = 250;
+    private static final int PERFORMANCE_BAR_HEIGHT = 6;
+    private static final int PERFORMANCE_LEGEND_SIZE = 3;
+    private static final int STATUS_FRAMES = 4;
+    private static final int[] PHASE_COLORS = {
+        0xFF555555,
+        0xFF9B59B6,
+        0xFF7F8C8D,
+        0xFFD9534F,
+        0xFFF0AD4E,
+        0xFFE67E22,
+        0xFF4A90E2,
+        0xFF1ABC9C,
+        0xFF5CB85C,
+        0xFFF1C40F,
+    };
+
     private final MinecraftClient client;
     private final TradeScanner tradeScanner;
-    private final TradeEvaluator tradeEvaluator;
 
     private float animationTicks = 0;
 
+    private boolean performancePageVisible = false;
+    private PerformanceSnapshot performanceSnapshot = null;
+    private final List<String> performanceLines = new ArrayList<>();
+    private final List<Integer> performanceLineColors = new ArrayList<>();
+    private int performanceHeaderLines = 0;
+    private int performancePanelWidth = 0;
+    private int[] performancePanelRects;
+
+    private String[] overlayLines;
+    private int[] overlayLineColors;
+    private int[] overlayLineX;
+    private int overlayStatusLine = -1;
+    private final String[] overlayStatusFrames = new String[STATUS_FRAMES];
+    private final int[] overlayStatusFrameX = new int[STATUS_FRAMES];
+    private int overlayTextY;
+    private int[] overlayPanelRects;
+    private int overlayProgressBarX;
+    private int overlayProgressBarWidth;
+    private float overlayProgress;
+
+    private boolean layoutRunning;
+    private int layoutAttempts;
+    private boolean layoutHasVillager;
+    private int layoutSuccesses;
+    private long layoutConfigVersion;
+    private int layoutScreenWidth;
+    private int layoutScreenHeight;
+
     public OverlayRenderer() {
         this.client = MinecraftClient.getInstance();
         this.tradeScanner = new TradeScanner();
-        this.tradeEvaluator = new TradeEvaluator(
-            VillagerReroller.getInstance().getConfigManager().getConfig()
-        );
 
         HudRenderCallback.EVENT.register(this::onRenderHud);
     }
@@ -51,9 +93,8 @@ public class OverlayRenderer {
         DrawContext context,
         RenderTickCounter tickCounter
     ) {
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
 
         if (!config.isEnabled() || !config.isShowOverlay()) {
             return;
@@ -69,53 +110,126 @@ public class OverlayRenderer {
 
         renderMainOverlay(context, textRenderer, config, controller);
 
+        if (performancePageVisible) {
+            renderPerformancePage(context, textRenderer);
+        }
+
         if (
             config.isShowTradeQuality() &&
             client.currentScreen instanceof MerchantScreen
         ) {
-            renderTradeQuality(context, textRenderer);
+            renderTradeQuality(context, textRenderer, config);
         }
     }
 
     private void renderMainOverlay(
         DrawContext context,
         TextRenderer textRenderer,
-        ModConfig config,
+        ConfigSnapshot config,
         RerollController controller
     ) {
+        StatisticsTracker stats =
+            VillagerReroller.getInstance().getStatisticsTracker();
+
+        boolean running = controller.isRunning();
+        int attempts = controller.getCurrentAttempts();
+        boolean hasVillager = controller.getCurrentVillager() != null;
+        int successes = stats.getSessionSuccesses();
         int screenWidth = client.getWindow().getScaledWidth();
         int screenHeight = client.getWindow().getScaledHeight();
 
-        int hotbarHeight = 22;
-        int bottomMargin = 25;
+        if (
+            overlayLines == null ||
+            running != layoutRunning ||
+            attempts != layoutAttempts ||
+            hasVillager != layoutHasVillager ||
+            successes != layoutSuccesses ||
+            config.getVersion() != layoutConfigVersion ||
+            screenWidth != layoutScreenWidth ||
+            screenHeight != layoutScreenHeight
+        ) {
+            layoutRunning = running;
+            layoutAttempts = attempts;
+            layoutHasVillager = hasVillager;
+            layoutSuccesses = successes;
+            layoutConfigVersion = config.getVersion();
+            layoutScreenWidth = screenWidth;
+            layoutScreenHeight = screenHeight;
+            rebuildOverlayLayout(textRenderer, config, stats);
+        }
+
+        drawRects(context, overlayPanelRects);
+
+        int textY = overlayTextY;
+        for (int i = 0; i < overlayLines.length; i++) {
+            if (i == overlayStatusLine) {
+                int frame = (int) (animationTicks / 10) % STATUS_FRAMES;
+                context.drawText(
+                    textRenderer,
+                    overlayStatusFrames[frame],
+                    overlayStatusFrameX[frame],
+                    textY,
+                    overlayLineColors[i],
+                    true
+                );
+            } else {
+                context.drawText(
+                    textRenderer,
+                    overlayLines[i],
+                    overlayLineX[i],
+                    textY,
+                    overlayLineColors[i],
+                    true
+                );
+            }
+            textY += LINE_HEIGHT;
+        }
 
+        if (overlayProgressBarWidth > 0) {
+            renderEnhancedProgressBar(
+                context,
+                overlayProgressBarX,
+                textY + 2,
+                overlayProgressBarWidth,
+                6,
+                overlayProgress
+            );
+        }
+    }
+
+    // Runs only when one of the observed values in renderMainOverlay
+    // changes; per frame the overlay just replays the cached layout.
+    private void rebuildOverlayLayout(
+        TextRenderer textRenderer,
+        ConfigSnapshot config,
+        StatisticsTracker stats
+    ) {
         List<String> lines = new ArrayList<>();
         List<Integer> lineColors = new ArrayList<>();
+        int statusLine = -1;
 
-        if (controller.isRunning()) {
+        if (layoutRunning) {
             lines.add("⚙ Trade Reroller Active");
             lineColors.add(COLOR_ACCENT);
 
             lines.add(
                 String.format(
                     "Attempt: %d/%d",
-                    controller.getCurrentAttempts(),
+                    layoutAttempts,
                     config.getMaxRerollAttempts()
                 )
             );
             lineColors.add(COLOR_TEXT);
 
-            String stateInfo = getStateDisplayText(controller);
-            lines.add(stateInfo);
+            statusLine = lines.size();
+            lines.add(getStateDisplayText(STATUS_FRAMES - 1));
             lineColors.add(COLOR_TEXT_DIM);
 
-            StatisticsTracker stats =
-                VillagerReroller.getInstance().getStatisticsTracker();
-            if (stats.getSessionSuccesses() > 0) {
+            if (layoutSuccesses > 0) {
                 lines.add(
                     String.format(
                         "✓ Found: %d | Avg: %.1f tries",
-                        stats.getSessionSuccesses(),
+                        layoutSuccesses,
                         stats.getSessionAverageAttempts()
                     )
                 );
@@ -132,150 +246,312 @@ public class OverlayRenderer {
             lines.add("Mode: " + modeText);
             lineColors.add(COLOR_TEXT_DIM);
 
-            StatisticsTracker stats =
-                VillagerReroller.getInstance().getStatisticsTracker();
-            if (stats.getSessionSuccesses() > 0) {
+            if (layoutSuccesses > 0) {
                 lines.add(
-                    String.format(
-                        "Session: %d found",
-                        stats.getSessionSuccesses()
-                    )
+                    String.format("Session: %d found", layoutSuccesses)
                 );
                 lineColors.add(COLOR_TEXT_DIM);
             }
         }
 
+        int hotbarHeight = 22;
+        int bottomMargin = 25;
+
+        int[] widths = new int[lines.size()];
         int maxWidth = 0;
-        for (String line : lines) {
-            int width = textRenderer.getWidth(line);
-            if (width > maxWidth) {
-                maxWidth = width;
-            }
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = textRenderer.getWidth(lines.get(i));
+            maxWidth = Math.max(maxWidth, widths[i]);
         }
 
         int panelWidth = maxWidth + PADDING * 2;
         int panelHeight = lines.size() * LINE_HEIGHT + PADDING * 2;
 
-        int progressBarHeight = 0;
-        if (controller.isRunning() && config.isShowProgressBar()) {
-            progressBarHeight = 8;
-            panelHeight += progressBarHeight + 3;
+        boolean showProgressBar = layoutRunning && config.isShowProgressBar();
+        if (showProgressBar) {
+            panelHeight += 8 + 3;
+        }
+
+        int panelX = (layoutScreenWidth - panelWidth) / 2;
+        int panelY =
+            layoutScreenHeight - hotbarHeight - bottomMargin - panelHeight;
+
+        overlayLines = lines.toArray(new String[0]);
+        overlayLineColors = new int[lineColors.size()];
+        overlayLineX = new int[widths.length];
+        for (int i = 0; i < widths.length; i++) {
+            overlayLineColors[i] = lineColors.get(i);
+            overlayLineX[i] = panelX + PADDING + (maxWidth - widths[i]) / 2;
+        }
+
+        overlayStatusLine = statusLine;
+        if (statusLine >= 0) {
+            for (int frame = 0; frame < STATUS_FRAMES; frame++) {
+                String text = getStateDisplayText(frame);
+                overlayStatusFrames[frame] = text;
+                overlayStatusFrameX[frame] =
+                    panelX +
+                    PADDING +
+                    (maxWidth - textRenderer.getWidth(text)) / 2;
+            }
+        }
+
+        overlayTextY = panelY + PADDING;
+        overlayPanelRects = buildPanelRects(
+            panelX,
+            panelY,
+            panelWidth,
+            panelHeight
+        );
+
+        if (showProgressBar) {
+            overlayProgressBarX = panelX + PADDING;
+            overlayProgressBarWidth = panelWidth - PADDING * 2;
+            overlayProgress =
+                (float) layoutAttempts / config.getMaxRerollAttempts();
+        } else {
+            overlayProgressBarWidth = 0;
+        }
+    }
+
+    public void togglePerformancePage() {
+        performancePageVisible = !performancePageVisible;
+        performanceSnapshot = null;
+    }
+
+    public boolean isPerformancePageVisible() {
+        return performancePageVisible;
+    }
+
+    private void renderPerformancePage(
+        DrawContext context,
+        TextRenderer textRenderer
+    ) {
+        long now = System.currentTimeMillis();
+        if (
+            performanceSnapshot == null ||
+            now - performanceSnapshot.getCapturedAt() >= PERFORMANCE_REFRESH_MS
+        ) {
+            performanceSnapshot = PerformanceSnapshot.capture(
+                performanceSnapshot
+            );
+            rebuildPerformanceLines(textRenderer);
         }
 
-        int panelX = (screenWidth - panelWidth) / 2;
-        int panelY = screenHeight - hotbarHeight - bottomMargin - panelHeight;
+        int panelX = PANEL_MARGIN + 2;
+        int panelY = PANEL_MARGIN + 2;
 
-        drawStyledPanel(context, panelX, panelY, panelWidth, panelHeight);
+        drawRects(context, performancePanelRects);
 
+        int textX = panelX + PADDING;
         int textY = panelY + PADDING;
-        for (int i = 0; i < lines.size(); i++) {
-            int textX =
-                panelX +
-                PADDING +
-                (panelWidth -
-                    PADDING * 2 -
-                    textRenderer.getWidth(lines.get(i))) /
-                2;
+        for (int i = 0; i < performanceLines.size(); i++) {
+            if (i == performanceHeaderLines) {
+                renderPhaseBar(
+                    context,
+                    textX,
+                    textY + 1,
+                    performancePanelWidth - PADDING * 2
+                );
+                textY += PERFORMANCE_BAR_HEIGHT + 4;
+            }
             context.drawText(
                 textRenderer,
-                lines.get(i),
+                performanceLines.get(i),
                 textX,
                 textY,
-                lineColors.get(i),
+                performanceLineColors.get(i),
                 true
             );
             textY += LINE_HEIGHT;
         }
+    }
 
-        if (controller.isRunning() && config.isShowProgressBar()) {
-            float progress =
-                (float) controller.getCurrentAttempts() /
-                config.getMaxRerollAttempts();
-            int barWidth = panelWidth - PADDING * 2;
-            int barX = panelX + PADDING;
-            int barY = textY + 2;
-            renderEnhancedProgressBar(
-                context,
-                barX,
-                barY,
-                barWidth,
-                6,
-                progress
+    private void rebuildPerformanceLines(TextRenderer textRenderer) {
+        PerformanceSnapshot snapshot = performanceSnapshot;
+        performanceLines.clear();
+        performanceLineColors.clear();
+
+        addPerformanceLine("⏱ Reroll Performance", COLOR_BORDER);
+        addPerformanceLine("State: " + snapshot.getState(), COLOR_TEXT);
+        addPerformanceLine(
+            String.format("Rerolls/min: %.1f", snapshot.getRerollsPerMinute()),
+            COLOR_TEXT
+        );
+        addPerformanceLine(
+            String.format(
+                "Cycle: mean %.1fs | p95 %.1fs",
+                snapshot.getMeanCycleMs() / 1000.0,
+                snapshot.getP95CycleMs() / 1000.0
+            ),
+            COLOR_TEXT
+        );
+        addPerformanceLine(
+            String.format(
+                "Interactions: %.2f/s",
+                snapshot.getInteractionsPerSecond()
+            ),
+            COLOR_TEXT
+        );
+        addPerformanceLine(
+            String.format(
+                "Tick cost: %.0fµs (peak %.0fµs)",
+                snapshot.getTickMicros(),
+                snapshot.getPeakTickMicros()
+            ),
+            snapshot.getPeakTickMicros() > 1000 ? COLOR_WARNING : COLOR_TEXT
+        );
+        if (snapshot.getTickAllocatedBytes() >= 0) {
+            addPerformanceLine(
+                String.format(
+                    "Tick alloc: %.0f B/tick (budget %d)",
+                    snapshot.getTickAllocatedBytes(),
+                    TickCostMeter.ALLOCATION_BUDGET_BYTES
+                ),
+                snapshot.isOverAllocationBudget() ? COLOR_WARNING : COLOR_TEXT
             );
         }
-    }
+        performanceHeaderLines = performanceLines.size();
 
-    private String getStateDisplayText(RerollController controller) {
-        if (controller.getCurrentVillager() == null) {
-            return "Status: Idle";
+        long total = snapshot.getPhaseTotalMs();
+        if (total == 0) {
+            addPerformanceLine("No completed attempts yet", COLOR_TEXT_DIM);
+        } else {
+            RerollController.RerollState[] states =
+                RerollController.RerollState.values();
+            long shown = Long.MAX_VALUE;
+            int shownPhase = -1;
+            for (int rank = 0; rank < PERFORMANCE_LEGEND_SIZE; rank++) {
+                int best = -1;
+                for (int phase = 0; phase < snapshot.getPhaseCount(); phase++) {
+                    long ms = snapshot.getPhaseMs(phase);
+                    boolean below =
+                        ms < shown || (ms == shown && phase > shownPhase);
+                    if (
+                        ms > 0 &&
+                        below &&
+                        (best < 0 || ms > snapshot.getPhaseMs(best))
+                    ) {
+                        best = phase;
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                shown = snapshot.getPhaseMs(best);
+                shownPhase = best;
+                addPerformanceLine(
+                    String.format(
+                        "%s %d%%",
+                        states[best],
+                        Math.round(shown * 100.0 / total)
+                    ),
+                    PHASE_COLORS[best % PHASE_COLORS.length]
+                );
+            }
         }
 
-        int attempts = controller.getCurrentAttempts();
-
-        if (attempts == 0) {
-            return "Status: Initializing...";
-        } else {
-            int dots = (int) (animationTicks / 10) % 4;
-            String dotString = ".".repeat(dots);
-            return "Status: Working" + dotString;
+        int maxWidth = 120;
+        for (String line : performanceLines) {
+            maxWidth = Math.max(maxWidth, textRenderer.getWidth(line));
         }
+        performancePanelWidth = maxWidth + PADDING * 2;
+        performancePanelRects = buildPanelRects(
+            PANEL_MARGIN + 2,
+            PANEL_MARGIN + 2,
+            performancePanelWidth,
+            performanceLines.size() * LINE_HEIGHT +
+                PADDING * 2 +
+                PERFORMANCE_BAR_HEIGHT +
+                4
+        );
+    }
+
+    private void addPerformanceLine(String line, int color) {
+        performanceLines.add(line);
+        performanceLineColors.add(color);
     }
 
-    private void drawStyledPanel(
+    private void renderPhaseBar(
         DrawContext context,
         int x,
         int y,
-        int width,
-        int height
+        int width
     ) {
-        context.fill(x - 1, y - 1, x + width + 1, y + height + 1, 0x40000000);
+        PerformanceSnapshot snapshot = performanceSnapshot;
+        context.fill(x, y, x + width, y + PERFORMANCE_BAR_HEIGHT, 0xFF1A1A1A);
 
-        context.fill(x, y, x + width, y + height, COLOR_BACKGROUND);
+        long total = snapshot.getPhaseTotalMs();
+        if (total == 0) {
+            return;
+        }
 
-        drawGlowingBorder(context, x, y, width, height);
+        long accumulated = 0;
+        int segmentStart = x;
+        for (int phase = 0; phase < snapshot.getPhaseCount(); phase++) {
+            accumulated += snapshot.getPhaseMs(phase);
+            int segmentEnd = x + (int) (width * accumulated / total);
+            if (segmentEnd > segmentStart) {
+                context.fill(
+                    segmentStart,
+                    y,
+                    segmentEnd,
+                    y + PERFORMANCE_BAR_HEIGHT,
+                    PHASE_COLORS[phase % PHASE_COLORS.length]
+                );
+                segmentStart = segmentEnd;
+            }
+        }
     }
 
-    private void drawGlowingBorder(
-        DrawContext context,
-        int x,
-        int y,
-        int width,
-        int height
-    ) {
+    private String getStateDisplayText(int frame) {
+        if (!layoutHasVillager) {
+            return "Status: Idle";
+        }
+
+        if (layoutAttempts == 0) {
+            return "Status: Initializing...";
+        } else {
+            return "Status: Working" + ".".repeat(frame);
+        }
+    }
+
+    // Background, shadow and glowing border of a panel as flat
+    // (x1, y1, x2, y2, color) quintuples for drawRects.
+    private static int[] buildPanelRects(int x, int y, int width, int height) {
         int glowColor = (COLOR_BORDER & 0x00FFFFFF) | 0x40000000;
-        context.fill(x - 2, y - 2, x + width + 2, y - 1, glowColor);
-        context.fill(
-            x - 2,
-            y + height + 1,
-            x + width + 2,
-            y + height + 2,
-            glowColor
-        );
-        context.fill(x - 2, y - 1, x - 1, y + height + 1, glowColor);
-        context.fill(
-            x + width + 1,
-            y - 1,
-            x + width + 2,
-            y + height + 1,
-            glowColor
-        );
+        return new int[] {
+            x - 1, y - 1, x + width + 1, y + height + 1, 0x40000000,
+            x, y, x + width, y + height, COLOR_BACKGROUND,
+            x - 2, y - 2, x + width + 2, y - 1, glowColor,
+            x - 2, y + height + 1, x + width + 2, y + height + 2, glowColor,
+            x - 2, y - 1, x - 1, y + height + 1, glowColor,
+            x + width + 1, y - 1, x + width + 2, y + height + 1, glowColor,
+            x - 1, y - 1, x + width + 1, y, COLOR_BORDER,
+            x - 1, y + height, x + width + 1, y + height + 1, COLOR_BORDER,
+            x - 1, y, x, y + height, COLOR_BORDER,
+            x + width, y, x + width + 1, y + height, COLOR_BORDER,
+        };
+    }
 
-        context.fill(x - 1, y - 1, x + width + 1, y, COLOR_BORDER);
-        context.fill(
-            x - 1,
-            y + height,
-            x + width + 1,
-            y + height + 1,
-            COLOR_BORDER
-        );
-        context.fill(x - 1, y, x, y + height, COLOR_BORDER);
-        context.fill(x + width, y, x + width + 1, y + height, COLOR_BORDER);
+    private static void drawRects(DrawContext context, int[] rects) {
+        for (int i = 0; i < rects.length; i += 5) {
+            context.fill(
+                rects[i],
+                rects[i + 1],
+                rects[i + 2],
+                rects[i + 3],
+                rects[i + 4]
+            );
+        }
     }
 
     private void renderTradeQuality(
         DrawContext context,
-        TextRenderer textRenderer
+        TextRenderer textRenderer,
+        ConfigSnapshot config
     ) {
+        TradeEvaluator tradeEvaluator = config.getTradeEvaluator();
         List<TradeScanner.ScannedTrade> trades =
             tradeScanner.scanCurrentTrades();
 
@@ -0,0 +1,156 @@
+package com.villagerreroller.ui;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.automation.RerollController;
+import com.villagerreroller.stats.AttemptTimeSeries;
+import com.villagerreroller.stats.TickCostMeter;
+
+public class PerformanceSnapshot {
+
+    private static final long CYCLE_WINDOW_MS = 5 * 60_000L;
+
+    private final long capturedAt;
+    private final long totalInteractions;
+    private final RerollController.RerollState state;
+    private final double rerollsPerMinute;
+    private final double meanCycleMs;
+    private final int p95CycleMs;
+    private final long[] phaseMs;
+    private final long phaseTotalMs;
+    private final double interactionsPerSecond;
+    private final double tickMicros;
+    private final double peakTickMicros;
+    private final double tickAllocatedBytes;
+    private final boolean overAllocationBudget;
+
+    private PerformanceSnapshot(
+        long capturedAt,
+        long totalInteractions,
+        RerollController.RerollState state,
+        double rerollsPerMinute,
+        double meanCycleMs,
+        int p95CycleMs,
+        long[] phaseMs,
+        double interactionsPerSecond,
+        double tickMicros,
+        double peakTickMicros,
+        double tickAllocatedBytes,
+        boolean overAllocationBudget
+    ) {
+        this.capturedAt = capturedAt;
+        this.totalInteractions = totalInteractions;
+        this.state = state;
+        this.rerollsPerMinute = rerollsPerMinute;
+        this.meanCycleMs = meanCycleMs;
+        this.p95CycleMs = p95CycleMs;
+        this.phaseMs = phaseMs;
+        this.interactionsPerSecond = interactionsPerSecond;
+        this.tickMicros = tickMicros;
+        this.peakTickMicros = peakTickMicros;
+        this.tickAllocatedBytes = tickAllocatedBytes;
+        this.overAllocationBudget = overAllocationBudget;
+
+        long total = 0;
+        for (long ms : phaseMs) {
+            total += ms;
+        }
+        this.phaseTotalMs = total;
+    }
+
+    public static PerformanceSnapshot capture(PerformanceSnapshot previous) {
+        VillagerReroller mod = VillagerReroller.getInstance();
+        AttemptTimeSeries attempts = mod
+            .getStatisticsTracker()
+            .getSessionAttempts();
+        TickCostMeter tickCost = mod.getTickCostMeter();
+        long now = System.currentTimeMillis();
+        long since = now - CYCLE_WINDOW_MS;
+
+        long[] phaseMs = new long[attempts.getPhaseCount()];
+        attempts.sumPhaseMs(since, phaseMs);
+
+        long totalInteractions = mod
+            .getInteractionBudget()
+            .getTotalInteractions();
+        double interactionsPerSecond = 0;
+        if (previous != null && now > previous.capturedAt) {
+            double instant =
+                (totalInteractions - previous.totalInteractions) *
+                1000.0 /
+                (now - previous.capturedAt);
+            interactionsPerSecond =
+                previous.interactionsPerSecond +
+                (instant - previous.interactionsPerSecond) * 0.25;
+        }
+
+        return new PerformanceSnapshot(
+            now,
+            totalInteractions,
+            mod.getRerollController().getCurrentState(),
+            attempts.getRerollsPerMinute(now),
+            attempts.getMeanCycleMs(since),
+            attempts.getCyclePercentile(95, since),
+            phaseMs,
+            interactionsPerSecond,
+            tickCost.getAverageMicros(),
+            tickCost.getRecentPeakMicros(),
+            tickCost.isMeasuringAllocation()
+                ? tickCost.getAverageAllocatedBytes()
+                : -1,
+            tickCost.isOverAllocationBudget()
+        );
+    }
+
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+
+    public RerollController.RerollState getState() {
+        return state;
+    }
+
+    public double getRerollsPerMinute() {
+        return rerollsPerMinute;
+    }
+
+    public double getMeanCycleMs() {
+        return meanCycleMs;
+    }
+
+    public int getP95CycleMs() {
+        return p95CycleMs;
+    }
+
+    public long getPhaseMs(int phase) {
+        return phaseMs[phase];
+    }
+
+    public int getPhaseCount() {
+        return phaseMs.length;
+    }
+
+    public long getPhaseTotalMs() {
+        return phaseTotalMs;
+    }
+
+    public double getInteractionsPerSecond() {
+        return interactionsPerSecond;
+    }
+
+    public double getTickMicros() {
+        return tickMicros;
+    }
+
+    public double getPeakTickMicros() {
+        return peakTickMicros;
+    }
+
+    // Negative when the JVM cannot count per-thread allocation
+    public double getTickAllocatedBytes() {
+        return tickAllocatedBytes;
+    }
+
+    public boolean isOverAllocationBudget() {
+        return overAllocationBudget;
+    }
+}
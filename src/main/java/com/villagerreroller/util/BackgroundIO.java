@@ -0,0 +1,121 @@
+package com.villagerreroller.util;
+
+import com.villagerreroller.VillagerReroller;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+
+// The one thread all of the mod's disk I/O runs on, so a slow or networked
+// home directory stalls this thread and never the game. Plain tasks run in
+// submission order. Whole-file writes are coalesced per file: while a write
+// is waiting, later requests for the same file replace it, so only the
+// latest contents reach disk.
+public class BackgroundIO {
+
+    private static final long FLUSH_TIMEOUT_SECONDS = 5;
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws IOException;
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Map<Path, Task> pendingWrites;
+
+    public BackgroundIO() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "VTR IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingWrites = new ConcurrentHashMap<>();
+    }
+
+    // Register after every other CLIENT_STOPPING listener: those queue
+    // their final writes, and this drains them.
+    public void register() {
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> flush());
+    }
+
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public void write(Path file, Supplier<byte[]> contents) {
+        write(file, contents, 0);
+    }
+
+    // The contents are produced on the I/O thread when the write runs, so
+    // the supplier must be safe to call from there.
+    public void write(Path file, Supplier<byte[]> contents, long delayMs) {
+        schedule(file, () -> writeAtomically(file, contents.get()), delayMs);
+    }
+
+    // Coalesced like write(), for files whose owner does its own encoding
+    public void schedule(Path file, Task task, long delayMs) {
+        if (pendingWrites.put(file, task) == null) {
+            executor.schedule(
+                () -> runPending(file),
+                delayMs,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    // Runs every waiting write now, delayed or not, and blocks until the
+    // queue is drained
+    public void flush() {
+        try {
+            executor
+                .submit(() -> {
+                    for (Path file : new ArrayList<>(pendingWrites.keySet())) {
+                        runPending(file);
+                    }
+                })
+                .get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            VillagerReroller.LOGGER.error("Failed to flush pending writes", e);
+        }
+    }
+
+    private void runPending(Path file) {
+        Task task = pendingWrites.remove(file);
+        if (task == null) {
+            return;
+        }
+        try {
+            task.run();
+        } catch (IOException | RuntimeException e) {
+            VillagerReroller.LOGGER.error("Failed to write {}", file, e);
+        }
+    }
+
+    // Writes next to the target and renames over it, so a crash mid-write
+    // leaves the previous file intact
+    public static void writeAtomically(Path file, byte[] contents)
+        throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.getParent());
+        Files.write(tempFile, contents);
+        try {
+            Files.move(
+                tempFile,
+                file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
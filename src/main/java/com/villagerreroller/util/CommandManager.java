@@ -0,0 +1,606 @@
+package com.villagerreroller.util;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.config.ConfigSnapshot;
+import com.villagerreroller.config.ProfileCycler;
+import com.villagerreroller.replay.ReplayDriver;
+import com.villagerreroller.replay.SessionRecorder;
+import com.villagerreroller.stats.EventStream;
+import com.villagerreroller.stats.MetricsExporter;
+import com.villagerreroller.stats.PipelineBenchmark;
+import com.villagerreroller.trade.OfferCatalog;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.command.CommandSource;
+import net.minecraft.text.Text;
+
+public class CommandManager {
+
+    private static final int MAX_RESULTS = 5;
+
+    // Only touched on the client thread
+    private boolean replaying = false;
+
+    public void register() {
+        ClientCommandRegistrationCallback.EVENT.register(
+            (dispatcher, registryAccess) ->
+                dispatcher.register(
+                    ClientCommandManager.literal("vtr")
+                        .then(
+                            ClientCommandManager.literal("survey")
+                                .executes(context -> startSurvey())
+                                .then(
+                                    ClientCommandManager.literal(
+                                        "stop"
+                                    ).executes(context -> stopSurvey())
+                                )
+                        )
+                        .then(
+                            ClientCommandManager.literal("batch")
+                                .executes(context -> startBatch())
+                                .then(
+                                    ClientCommandManager.literal(
+                                        "stop"
+                                    ).executes(context -> stopBatch())
+                                )
+                        )
+                        .then(
+                            ClientCommandManager.literal("stream")
+                                .executes(context ->
+                                    startStream(
+                                        context,
+                                        EventStream.DEFAULT_PORT
+                                    )
+                                )
+                                .then(
+                                    ClientCommandManager.literal(
+                                        "stop"
+                                    ).executes(this::stopStream)
+                                )
+                                .then(
+                                    ClientCommandManager.argument(
+                                        "port",
+                                        IntegerArgumentType.integer(1, 65535)
+                                    ).executes(context ->
+                                        startStream(
+                                            context,
+                                            IntegerArgumentType.getInteger(
+                                                context,
+                                                "port"
+                                            )
+                                        )
+                                    )
+                                )
+                        )
+                        .then(
+                            ClientCommandManager.literal("metrics")
+                                .executes(context ->
+                                    startMetrics(
+                                        context,
+                                        MetricsExporter.DEFAULT_PORT
+                                    )
+                                )
+                                .then(
+                                    ClientCommandManager.literal(
+                                        "stop"
+                                    ).executes(this::stopMetrics)
+                                )
+                                .then(
+                                    ClientCommandManager.argument(
+                                        "port",
+                                        IntegerArgumentType.integer(1, 65535)
+                                    ).executes(context ->
+                                        startMetrics(
+                                            context,
+                                            IntegerArgumentType.getInteger(
+                                                context,
+                                                "port"
+                                            )
+                                        )
+                                    )
+                                )
+                        )
+                        .then(
+                            ClientCommandManager.literal("bench")
+                                .executes(context ->
+                                    runBenchmark(context, false)
+                                )
+                                .then(
+                                    ClientCommandManager.literal(
+                                        "rebaseline"
+                                    ).executes(context ->
+                                        runBenchmark(context, true)
+                                    )
+                                )
+                        )
+                        .then(
+                            ClientCommandManager.literal("record")
+                                .executes(this::startRecording)
+                                .then(
+                                    ClientCommandManager.literal(
+                                        "stop"
+                                    ).executes(this::stopRecording)
+                                )
+                        )
+                        .then(
+                            ClientCommandManager.literal("replay").then(
+                                ClientCommandManager.argument(
+                                    "name",
+                                    StringArgumentType.string()
+                                )
+                                    .suggests((context, builder) ->
+                                        CommandSource.suggestMatching(
+                                            VillagerReroller.getInstance()
+                                                .getSessionRecorder()
+                                                .listRecordings(),
+                                            builder
+                                        )
+                                    )
+                                    .executes(this::replay)
+                            )
+                        )
+                        .then(
+                            ClientCommandManager.literal("find").then(
+                                ClientCommandManager.argument(
+                                    "query",
+                                    StringArgumentType.greedyString()
+                                ).executes(this::find)
+                            )
+                        )
+                        .then(
+                            ClientCommandManager.literal("profile")
+                                .executes(this::listProfiles)
+                                .then(
+                                    ClientCommandManager.literal(
+                                        "next"
+                                    ).executes(this::nextProfile)
+                                )
+                                .then(
+                                    ClientCommandManager.argument(
+                                        "name",
+                                        StringArgumentType.greedyString()
+                                    )
+                                        .suggests((context, builder) ->
+                                            CommandSource.suggestMatching(
+                                                VillagerReroller.getInstance()
+                                                    .getProfileCycler()
+                                                    .getProfileNames(),
+                                                builder
+                                            )
+                                        )
+                                        .executes(this::switchProfile)
+                                )
+                        )
+                )
+        );
+
+        VillagerReroller.LOGGER.info("Registered client commands");
+    }
+
+    private int startSurvey() {
+        return VillagerReroller.getInstance()
+                .getSurveyController()
+                .startSurvey()
+            ? 1
+            : 0;
+    }
+
+    private int stopSurvey() {
+        VillagerReroller.getInstance().getSurveyController().stopSurvey();
+        return 1;
+    }
+
+    private int startBatch() {
+        return VillagerReroller.getInstance().getRerollQueue().start() ? 1 : 0;
+    }
+
+    private int stopBatch() {
+        VillagerReroller.getInstance().getRerollQueue().stop();
+        return 1;
+    }
+
+    private int startStream(
+        CommandContext<FabricClientCommandSource> context,
+        int port
+    ) {
+        EventStream stream = VillagerReroller.getInstance().getEventStream();
+        if (stream.isRunning()) {
+            context
+                .getSource()
+                .sendError(
+                    Text.literal(
+                        "Event stream already running on port " +
+                            stream.getPort()
+                    )
+                );
+            return 0;
+        }
+
+        if (!stream.start(port)) {
+            context
+                .getSource()
+                .sendError(
+                    Text.literal("Could not open event stream on port " + port)
+                );
+            return 0;
+        }
+
+        context
+            .getSource()
+            .sendFeedback(
+                Text.literal(
+                    "§6[VTR]§r Event stream on 127.0.0.1:" + stream.getPort()
+                )
+            );
+        return 1;
+    }
+
+    private int stopStream(CommandContext<FabricClientCommandSource> context) {
+        VillagerReroller.getInstance().getEventStream().stop();
+        context
+            .getSource()
+            .sendFeedback(Text.literal("§6[VTR]§r Event stream stopped"));
+        return 1;
+    }
+
+    private int startMetrics(
+        CommandContext<FabricClientCommandSource> context,
+        int port
+    ) {
+        MetricsExporter exporter =
+            VillagerReroller.getInstance().getMetricsExporter();
+        if (exporter.isRunning()) {
+            context
+                .getSource()
+                .sendError(
+                    Text.literal(
+                        "Metrics exporter already running on port " +
+                            exporter.getPort()
+                    )
+                );
+            return 0;
+        }
+
+        if (!exporter.start(port)) {
+            context
+                .getSource()
+                .sendError(
+                    Text.literal(
+                        "Could not open metrics exporter on port " + port
+                    )
+                );
+            return 0;
+        }
+
+        context
+            .getSource()
+            .sendFeedback(
+                Text.literal(
+                    "§6[VTR]§r Metrics at http://127.0.0.1:" +
+                        exporter.getPort() +
+                        "/metrics"
+                )
+            );
+        return 1;
+    }
+
+    private int stopMetrics(CommandContext<FabricClientCommandSource> context) {
+        VillagerReroller.getInstance().getMetricsExporter().stop();
+        context
+            .getSource()
+            .sendFeedback(Text.literal("§6[VTR]§r Metrics exporter stopped"));
+        return 1;
+    }
+
+    private int runBenchmark(
+        CommandContext<FabricClientCommandSource> context,
+        boolean rebaseline
+    ) {
+        VillagerReroller mod = VillagerReroller.getInstance();
+        if (
+            mod.getRerollController().isRunning() ||
+            mod.getSurveyController().isRunning()
+        ) {
+            context
+                .getSource()
+                .sendError(Text.literal("Stop rerolling before benchmarking"));
+            return 0;
+        }
+
+        PipelineBenchmark benchmark = mod.getPipelineBenchmark();
+        if (benchmark.isRunning()) {
+            context
+                .getSource()
+                .sendError(Text.literal("A benchmark is already running"));
+            return 0;
+        }
+
+        boolean started = benchmark.start(rebaseline, results -> {
+            NotificationHelper.displayClientMessage(
+                "§6[VTR]§r Benchmark results:"
+            );
+            for (PipelineBenchmark.Result result : results) {
+                NotificationHelper.displayClientMessage(
+                    (result.isRegression() ? "  §c" : "  §7") + result
+                );
+            }
+            if (rebaseline) {
+                NotificationHelper.displayClientMessage(
+                    "§6[VTR]§r Saved these results as the new baseline"
+                );
+            } else if (!benchmark.hasBaseline()) {
+                NotificationHelper.displayClientMessage(
+                    "§7No baseline yet, save one with /vtr bench rebaseline"
+                );
+            }
+        });
+        if (!started) {
+            context
+                .getSource()
+                .sendError(Text.literal("Join a world before benchmarking"));
+            return 0;
+        }
+
+        context
+            .getSource()
+            .sendFeedback(
+                Text.literal(
+                    "§6[VTR]§r Benchmarking in the background, results follow in a few seconds"
+                )
+            );
+        return 1;
+    }
+
+    private int startRecording(
+        CommandContext<FabricClientCommandSource> context
+    ) {
+        SessionRecorder recorder =
+            VillagerReroller.getInstance().getSessionRecorder();
+        if (recorder.isRecording()) {
+            context
+                .getSource()
+                .sendError(
+                    Text.literal(
+                        "Already recording to " +
+                            recorder.getPath().getFileName()
+                    )
+                );
+            return 0;
+        }
+
+        if (!recorder.start()) {
+            context
+                .getSource()
+                .sendError(Text.literal("Could not start recording"));
+            return 0;
+        }
+
+        context
+            .getSource()
+            .sendFeedback(
+                Text.literal(
+                    "§6[VTR]§r Recording to " + recorder.getPath().getFileName()
+                )
+            );
+        return 1;
+    }
+
+    private int stopRecording(
+        CommandContext<FabricClientCommandSource> context
+    ) {
+        SessionRecorder recorder =
+            VillagerReroller.getInstance().getSessionRecorder();
+        if (!recorder.isRecording()) {
+            context.getSource().sendError(Text.literal("Not recording"));
+            return 0;
+        }
+
+        Path path = recorder.getPath();
+        int records = recorder.getRecordCount();
+        recorder.stop();
+        context
+            .getSource()
+            .sendFeedback(
+                Text.literal(
+                    "§6[VTR]§r Saved " +
+                        records +
+                        " events to " +
+                        path.getFileName()
+                )
+            );
+        return 1;
+    }
+
+    private int replay(CommandContext<FabricClientCommandSource> context) {
+        VillagerReroller mod = VillagerReroller.getInstance();
+        MinecraftClient client = MinecraftClient.getInstance();
+        String name = StringArgumentType.getString(context, "name");
+        Path file = mod.getSessionRecorder().resolveRecording(name);
+        if (client.world == null || !Files.isRegularFile(file)) {
+            context
+                .getSource()
+                .sendError(Text.literal("Unknown recording: " + name));
+            return 0;
+        }
+        if (replaying) {
+            context
+                .getSource()
+                .sendError(Text.literal("A replay is already running"));
+            return 0;
+        }
+
+        // Decoding and re-deciding a long session takes a while, so it runs
+        // on its own thread and the report comes back to the client thread
+        ReplayDriver driver = new ReplayDriver(
+            client.world.getRegistryManager()
+        );
+        ConfigSnapshot config = mod.getConfigSnapshot();
+        replaying = true;
+        Thread thread = new Thread(
+            () -> {
+                try {
+                    ReplayDriver.Report report = driver.replay(file, config);
+                    client.execute(() -> {
+                        replaying = false;
+                        showReplayReport(name, report);
+                    });
+                } catch (IOException | RuntimeException e) {
+                    VillagerReroller.LOGGER.error(
+                        "Failed to replay {}",
+                        file,
+                        e
+                    );
+                    client.execute(() -> {
+                        replaying = false;
+                        NotificationHelper.displayClientError(
+                            "Replay failed: " + e.getMessage()
+                        );
+                    });
+                }
+            },
+            "VTR Replay"
+        );
+        thread.setDaemon(true);
+        thread.start();
+
+        context
+            .getSource()
+            .sendFeedback(
+                Text.literal("§6[VTR]§r Replaying " + name + " in the background")
+            );
+        return 1;
+    }
+
+    private static void showReplayReport(
+        String name,
+        ReplayDriver.Report report
+    ) {
+        NotificationHelper.displayClientMessage(
+            String.format(
+                "§6[VTR]§r Replayed %s: %d runs, %d offer sets, " +
+                    "%.0f ns/set (%.0fx real time)",
+                name,
+                report.getRuns(),
+                report.getOfferSets(),
+                report.getNanosPerOfferSet(),
+                report.getSpeedup()
+            )
+        );
+        NotificationHelper.displayClientMessage(
+            (report.getChangedDecisions() > 0 ? "  §c" : "  §7") +
+                report.getChangedDecisions() +
+                "/" +
+                report.getComparedDecisions() +
+                " decisions differ with the current config (" +
+                report.getNewMatches() +
+                " new matches, " +
+                report.getLostMatches() +
+                " lost)"
+        );
+        NotificationHelper.displayClientMessage(
+            String.format(
+                "  §7Recorded %.1fs: %d block updates, %d villager " +
+                    "loads, %d profession changes",
+                report.getRecordedMs() / 1000.0,
+                report.getBlockUpdates(),
+                report.getVillagersLoaded(),
+                report.getProfessionChanges()
+            )
+        );
+    }
+
+    private int listProfiles(
+        CommandContext<FabricClientCommandSource> context
+    ) {
+        VillagerReroller mod = VillagerReroller.getInstance();
+        ProfileCycler cycler = mod.getProfileCycler();
+        context
+            .getSource()
+            .sendFeedback(
+                Text.literal(
+                    "§6[VTR]§r Active profile: " +
+                        mod.getConfigSnapshot().getActiveProfile() +
+                        " §7(" +
+                        String.join(", ", cycler.getProfileNames()) +
+                        ")"
+                )
+            );
+        return cycler.getProfileNames().size();
+    }
+
+    private int nextProfile(CommandContext<FabricClientCommandSource> context) {
+        String profile = VillagerReroller.getInstance().cycleProfile();
+        context
+            .getSource()
+            .sendFeedback(Text.literal("§6[VTR]§r Profile: " + profile));
+        return 1;
+    }
+
+    private int switchProfile(
+        CommandContext<FabricClientCommandSource> context
+    ) {
+        String name = StringArgumentType.getString(context, "name").trim();
+        if (!VillagerReroller.getInstance().switchProfile(name)) {
+            context
+                .getSource()
+                .sendError(Text.literal("Unknown profile: " + name));
+            return 0;
+        }
+
+        context
+            .getSource()
+            .sendFeedback(Text.literal("§6[VTR]§r Profile: " + name));
+        return 1;
+    }
+
+    private int find(CommandContext<FabricClientCommandSource> context) {
+        String query = StringArgumentType.getString(context, "query").trim();
+        String id = query.contains(":") ? query : "minecraft:" + query;
+        OfferCatalog catalog = VillagerReroller.getInstance().getOfferCatalog();
+
+        List<OfferCatalog.CatalogEntry> results = catalog.findByEnchantment(
+            id,
+            1
+        );
+        if (results.isEmpty()) {
+            results = catalog.findByItem(id);
+        }
+
+        FabricClientCommandSource source = context.getSource();
+        if (results.isEmpty()) {
+            source.sendFeedback(
+                Text.literal(
+                    "§6[VTR]§r No catalogued offers for " +
+                        id +
+                        " (" +
+                        catalog.getVillagerCount() +
+                        " villagers known)"
+                )
+            );
+            return 0;
+        }
+
+        source.sendFeedback(
+            Text.literal(
+                "§6[VTR]§r Cheapest offers for " +
+                    id +
+                    " (" +
+                    results.size() +
+                    " found):"
+            )
+        );
+        for (int i = 0; i < Math.min(MAX_RESULTS, results.size()); i++) {
+            source.sendFeedback(Text.literal("  §7" + results.get(i)));
+        }
+        return results.size();
+    }
+}
@@ -2,6 +2,8 @@ package com.villagerreroller.util;
 
 import com.villagerreroller.VillagerReroller;
 import com.villagerreroller.automation.RerollController;
+import com.villagerreroller.automation.RerollQueue;
+import com.villagerreroller.config.ConfigSnapshot;
 import com.villagerreroller.config.ModConfig;
 import java.util.Optional;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
@@ -21,6 +23,7 @@ public class KeybindManager {
     private KeyBinding emergencyStopKey;
     private KeyBinding manualRerollKey;
     private KeyBinding cycleProfileKey;
+    private KeyBinding performanceHudKey;
     private VillagerDetector villagerDetector;
 
     public void register() {
@@ -62,6 +65,15 @@ public class KeybindManager {
             )
         );
 
+        performanceHudKey = KeyBindingHelper.registerKeyBinding(
+            new KeyBinding(
+                "key.villagerreroller.performance_hud",
+                InputUtil.Type.KEYSYM,
+                GLFW.GLFW_KEY_F8,
+                CATEGORY
+            )
+        );
+
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
             handleKeyPresses();
         });
@@ -85,6 +97,12 @@ public class KeybindManager {
         while (cycleProfileKey.wasPressed()) {
             cycleProfile();
         }
+
+        while (performanceHudKey.wasPressed()) {
+            VillagerReroller.getInstance()
+                .getOverlayRenderer()
+                .togglePerformancePage();
+        }
     }
 
     private void toggleMod() {
@@ -93,7 +111,7 @@ public class KeybindManager {
             .getConfig();
         boolean newState = !config.isEnabled();
         config.setEnabled(newState);
-        VillagerReroller.getInstance().getConfigManager().save();
+        VillagerReroller.getInstance().saveConfig();
 
         NotificationHelper.sendMessage(
             newState ? "Mod enabled" : "Mod disabled"
@@ -107,12 +125,12 @@ public class KeybindManager {
         if (controller.isRunning()) {
             controller.emergencyStop();
         }
+        VillagerReroller.getInstance().getRerollQueue().stop();
     }
 
     private void manualReroll() {
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
         RerollController controller =
             VillagerReroller.getInstance().getRerollController();
 
@@ -123,6 +141,12 @@ public class KeybindManager {
             return;
         }
 
+        RerollQueue queue = VillagerReroller.getInstance().getRerollQueue();
+        if (queue.isRunning()) {
+            queue.stop();
+            return;
+        }
+
         if (controller.isRunning()) {
             controller.stopRerolling();
             NotificationHelper.sendMessage("Stopped rerolling");
@@ -155,8 +179,8 @@ public class KeybindManager {
     }
 
     private void cycleProfile() {
-        NotificationHelper.sendMessage("Profile cycling not yet implemented");
-        VillagerReroller.LOGGER.info("Profile cycle requested");
+        String profile = VillagerReroller.getInstance().cycleProfile();
+        NotificationHelper.sendMessage("Profile: " + profile);
     }
 
     public KeyBinding getToggleModKey() {
@@ -174,4 +198,8 @@ public class KeybindManager {
     public KeyBinding getCycleProfileKey() {
         return cycleProfileKey;
     }
+
+    public KeyBinding getPerformanceHudKey() {
+        return performanceHudKey;
+    }
 }
@@ -1,7 +1,7 @@
 package com.villagerreroller.util;
 
 import com.villagerreroller.VillagerReroller;
-import com.villagerreroller.config.ModConfig;
+import com.villagerreroller.config.ConfigSnapshot;
 import com.villagerreroller.trade.TradeScanner;
 import java.util.List;
 import net.minecraft.client.MinecraftClient;
@@ -13,9 +13,8 @@ public class NotificationHelper {
     private static final MinecraftClient client = MinecraftClient.getInstance();
 
     public static void sendMessage(String message) {
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
 
         switch (config.getNotificationStyle()) {
             case CHAT -> sendChatMessage(message);
@@ -26,10 +25,7 @@ public class NotificationHelper {
 
     public static void sendChatMessage(String message) {
         if (client.player != null) {
-            client.player.sendMessage(
-                Text.literal("§6[VTR]§r " + message),
-                false
-            );
+            VillagerReroller.getInstance().getNotificationQueue().post(message);
         }
     }
 
@@ -44,9 +40,8 @@ public class NotificationHelper {
     }
 
     public static void playSuccessSound() {
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
 
         if (config.isSoundNotifications() && client.player != null) {
             client.player.playSound(
@@ -58,9 +53,8 @@ public class NotificationHelper {
     }
 
     public static void playErrorSound() {
-        ModConfig config = VillagerReroller.getInstance()
-            .getConfigManager()
-            .getConfig();
+        ConfigSnapshot config =
+            VillagerReroller.getInstance().getConfigSnapshot();
 
         if (config.isSoundNotifications() && client.player != null) {
             client.player.playSound(SoundEvents.ENTITY_VILLAGER_NO, 1.0f, 1.0f);
@@ -93,6 +87,7 @@ public class NotificationHelper {
     }
 
     public static void sendErrorNotification(String error) {
+        publishError(error);
         String message = "§c" + error;
         sendMessage(message);
         playErrorSound();
@@ -112,15 +107,24 @@ public class NotificationHelper {
         sendChatMessage(message);
     }
 
+    // A failure the player has to act on, also sent to stream clients
+    public static void displayClientError(String error) {
+        publishError(error);
+        sendChatMessage("§c" + error);
+    }
+
+    private static void publishError(String message) {
+        VillagerReroller.getInstance().getEventStream().publishError(message);
+    }
+
     public static void sendDebugAlert(String title, String... lines) {
         if (client.player != null) {
-            client.player.sendMessage(
-                Text.literal("§6§l[DEBUG] " + title),
-                false
-            );
+            AlertBuilder alert = new AlertBuilder();
+            alert.line("§6§l[DEBUG] " + title);
             for (String line : lines) {
-                client.player.sendMessage(Text.literal("  §7" + line), false);
+                alert.line("  §7" + line);
             }
+            alert.post();
             playSuccessSound();
         }
     }
@@ -131,67 +135,57 @@ public class NotificationHelper {
     ) {
         if (client.player == null) return;
 
-        client.player.sendMessage(Text.literal(""), false);
-        client.player.sendMessage(
-            Text.literal("§a§l═══════════════════════════"),
-            false
-        );
-        client.player.sendMessage(Text.literal("§a§l    MATCH FOUND!"), false);
-        client.player.sendMessage(
-            Text.literal("§a§l═══════════════════════════"),
-            false
-        );
-        client.player.sendMessage(
-            Text.literal("§7Attempts: §f" + attempts),
-            false
-        );
-        client.player.sendMessage(
-            Text.literal("§7Matching trades: §f" + matchingTrades.size()),
-            false
-        );
-        client.player.sendMessage(Text.literal(""), false);
+        AlertBuilder alert = new AlertBuilder();
+        alert.line("");
+        alert.line("§a§l═══════════════════════════");
+        alert.line("§a§l    MATCH FOUND!");
+        alert.line("§a§l═══════════════════════════");
+        alert.line("§7Attempts: §f" + attempts);
+        alert.line("§7Matching trades: §f" + matchingTrades.size());
+        alert.line("");
 
         for (TradeScanner.ScannedTrade trade : matchingTrades) {
-            client.player.sendMessage(
-                Text.literal("§e► Trade Slot " + trade.getSlotIndex() + ":"),
-                false
-            );
-            client.player.sendMessage(
-                Text.literal("  §7Item: §f" + trade.getItemId()),
-                false
-            );
-            client.player.sendMessage(
-                Text.literal(
-                    "  §7Cost: §a" + trade.getEmeraldCost() + " emeralds"
-                ),
-                false
-            );
+            alert.line("§e► Trade Slot " + trade.getSlotIndex() + ":");
+            alert.line("  §7Item: §f" + trade.getItemId());
+            alert.line("  §7Cost: §a" + trade.getEmeraldCost() + " emeralds");
 
             if (!trade.getEnchantments().isEmpty()) {
-                client.player.sendMessage(
-                    Text.literal("  §7Enchantments:"),
-                    false
-                );
+                alert.line("  §7Enchantments:");
                 for (String ench : trade.getEnchantmentNames()) {
                     String[] parts = ench.split(":");
                     String name = parts.length >= 2 ? parts[1] : ench;
                     int level =
                         parts.length > 2 ? Integer.parseInt(parts[2]) : 1;
-                    client.player.sendMessage(
-                        Text.literal("    §b" + name + " " + level),
-                        false
-                    );
+                    alert.line("    §b" + name + " " + level);
                 }
             }
-            client.player.sendMessage(Text.literal(""), false);
+            alert.line("");
         }
 
-        client.player.sendMessage(
-            Text.literal("§a§l═══════════════════════════"),
-            false
-        );
-        client.player.sendMessage(Text.literal(""), false);
+        alert.line("§a§l═══════════════════════════");
+        alert.line("");
+        alert.post();
 
         playSuccessSound();
     }
+
+    // Collects a multi-line alert into a single chat component; each line
+    // starts with a reset so legacy colour codes do not bleed across lines.
+    private static class AlertBuilder {
+
+        private final StringBuilder text = new StringBuilder();
+
+        void line(String line) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append("§r").append(line);
+        }
+
+        void post() {
+            VillagerReroller.getInstance()
+                .getNotificationQueue()
+                .postAlert(Text.literal(text.toString()));
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package com.villagerreroller.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.text.Text;
+
+public class NotificationQueue {
+
+    private static final String PREFIX = "§6[VTR]§r ";
+    private static final int MESSAGES_PER_TICK = 2;
+    private static final long REPEAT_WINDOW_MS = 3000;
+    private static final int MAX_PENDING = 64;
+
+    private final Map<String, PendingMessage> pendingMessages;
+    private final Deque<Text> pendingAlerts;
+    private final Map<String, Long> recentlySent;
+
+    public NotificationQueue() {
+        this.pendingMessages = new LinkedHashMap<>();
+        this.pendingAlerts = new ArrayDeque<>();
+        this.recentlySent = new HashMap<>();
+    }
+
+    public void register() {
+        ClientTickEvents.END_CLIENT_TICK.register(this::drain);
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+            clear()
+        );
+    }
+
+    // Messages that only differ in their numbers (retry counters, attempt
+    // numbers) share a key. A waiting message absorbs repeats as a counter
+    // and shows the latest text; a key shown moments ago is held back until
+    // the repeat window ends so a retry loop produces one "×N" line.
+    public synchronized void post(String message) {
+        String key = coalesceKey(message);
+        PendingMessage pending = pendingMessages.get(key);
+        if (pending != null) {
+            pending.text = message;
+            pending.count++;
+            return;
+        }
+
+        if (pendingMessages.size() >= MAX_PENDING) {
+            Iterator<PendingMessage> oldest = pendingMessages
+                .values()
+                .iterator();
+            oldest.next();
+            oldest.remove();
+        }
+
+        Long lastSent = recentlySent.get(key);
+        long notBefore = lastSent != null ? lastSent + REPEAT_WINDOW_MS : 0;
+        pendingMessages.put(key, new PendingMessage(key, message, notBefore));
+    }
+
+    public synchronized void postAlert(Text alert) {
+        pendingAlerts.add(alert);
+    }
+
+    public synchronized void clear() {
+        pendingMessages.clear();
+        pendingAlerts.clear();
+        recentlySent.clear();
+    }
+
+    private synchronized void drain(MinecraftClient client) {
+        if (client.player == null) {
+            return;
+        }
+        if (pendingMessages.isEmpty() && pendingAlerts.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int budget = MESSAGES_PER_TICK;
+
+        while (budget > 0 && !pendingAlerts.isEmpty()) {
+            client.player.sendMessage(pendingAlerts.poll(), false);
+            budget--;
+        }
+
+        Iterator<PendingMessage> iterator = pendingMessages
+            .values()
+            .iterator();
+        while (budget > 0 && iterator.hasNext()) {
+            PendingMessage pending = iterator.next();
+            if (now < pending.notBefore) {
+                continue;
+            }
+
+            iterator.remove();
+            client.player.sendMessage(
+                Text.literal(
+                    pending.count > 1
+                        ? PREFIX + pending.text + " §7×" + pending.count
+                        : PREFIX + pending.text
+                ),
+                false
+            );
+            recentlySent.put(pending.key, now);
+            budget--;
+        }
+
+        recentlySent
+            .values()
+            .removeIf(sentAt -> now - sentAt > REPEAT_WINDOW_MS);
+    }
+
+    private static String coalesceKey(String message) {
+        StringBuilder key = new StringBuilder(message.length());
+        boolean inNumber = false;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (!inNumber) {
+                    key.append('#');
+                    inNumber = true;
+                }
+            } else {
+                key.append(c);
+                inNumber = false;
+            }
+        }
+        return key.toString();
+    }
+
+    private static class PendingMessage {
+
+        final String key;
+        final long notBefore;
+        String text;
+        int count = 1;
+
+        PendingMessage(String key, String text, long notBefore) {
+            this.key = key;
+            this.text = text;
+            this.notBefore = notBefore;
+        }
+    }
+}
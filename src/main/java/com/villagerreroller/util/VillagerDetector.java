@@ -1,5 +1,7 @@
 package com.villagerreroller.util;
 
+import com.villagerreroller.VillagerReroller;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import net.minecraft.client.MinecraftClient;
@@ -7,8 +9,6 @@ import net.minecraft.entity.Entity;
 import net.minecraft.entity.passive.VillagerEntity;
 import net.minecraft.util.hit.EntityHitResult;
 import net.minecraft.util.hit.HitResult;
-import net.minecraft.util.math.Box;
-import net.minecraft.world.World;
 
 public class VillagerDetector {
 
@@ -45,33 +45,17 @@ public class VillagerDetector {
             return Optional.empty();
         }
 
-        World world = client.world;
-        Box searchBox = client.player
-            .getBoundingBox()
-            .expand(MAX_DETECTION_DISTANCE);
-
-        List<VillagerEntity> nearbyVillagers = world.getEntitiesByClass(
-            VillagerEntity.class,
-            searchBox,
-            villager -> villager.isAlive() && !villager.isBaby()
+        VillagerTracker.TrackedVillager nearest = getTracker().findNearest(
+            client.player.getX(),
+            client.player.getY(),
+            client.player.getZ(),
+            MAX_DETECTION_DISTANCE,
+            tracked -> !tracked.isBaby()
         );
 
-        if (nearbyVillagers.isEmpty()) {
-            return Optional.empty();
-        }
-
-        VillagerEntity closest = null;
-        double closestDistance = Double.MAX_VALUE;
-
-        for (VillagerEntity villager : nearbyVillagers) {
-            double distance = client.player.distanceTo(villager);
-            if (distance < closestDistance) {
-                closestDistance = distance;
-                closest = villager;
-            }
-        }
-
-        return Optional.ofNullable(closest);
+        return nearest != null
+            ? Optional.of(nearest.getEntity())
+            : Optional.empty();
     }
 
     public List<VillagerEntity> getNearbyVillagers(double radius) {
@@ -79,14 +63,19 @@ public class VillagerDetector {
             return List.of();
         }
 
-        World world = client.world;
-        Box searchBox = client.player.getBoundingBox().expand(radius);
-
-        return world.getEntitiesByClass(
-            VillagerEntity.class,
-            searchBox,
-            villager -> villager.isAlive() && !villager.isBaby()
+        List<VillagerTracker.TrackedVillager> nearby = getTracker().findWithin(
+            client.player.getX(),
+            client.player.getY(),
+            client.player.getZ(),
+            radius,
+            tracked -> !tracked.isBaby()
         );
+
+        List<VillagerEntity> villagers = new ArrayList<>(nearby.size());
+        for (VillagerTracker.TrackedVillager tracked : nearby) {
+            villagers.add(tracked.getEntity());
+        }
+        return villagers;
     }
 
     public List<VillagerEntity> getNearbyVillagers() {
@@ -102,6 +91,10 @@ public class VillagerDetector {
         return getNearestVillager();
     }
 
+    private VillagerTracker getTracker() {
+        return VillagerReroller.getInstance().getVillagerTracker();
+    }
+
     public boolean hasVillagerInRange() {
         return getBestVillagerToReroll().isPresent();
     }
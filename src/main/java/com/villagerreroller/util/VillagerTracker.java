@@ -0,0 +1,308 @@
+package com.villagerreroller.util;
+
+import com.villagerreroller.VillagerReroller;
+import com.villagerreroller.trade.LockDetector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.village.VillagerProfession;
+
+public class VillagerTracker {
+
+    private static final int CELL_SHIFT = 4;
+    private static final int FLAG_REFRESH_TICKS = 10;
+
+    private final Map<UUID, TrackedVillager> villagers;
+    private final Map<Long, List<TrackedVillager>> cells;
+    private int ticksSinceFlagRefresh = 0;
+
+    public VillagerTracker() {
+        this.villagers = new HashMap<>();
+        this.cells = new HashMap<>();
+    }
+
+    public void register() {
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                track(villager);
+            }
+        });
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof VillagerEntity villager) {
+                untrack(villager.getUuid());
+            }
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+            clear()
+        );
+        ClientTickEvents.END_CLIENT_TICK.register(this::onClientTick);
+    }
+
+    public TrackedVillager get(UUID uuid) {
+        return villagers.get(uuid);
+    }
+
+    public int size() {
+        return villagers.size();
+    }
+
+    public Collection<TrackedVillager> getAll() {
+        return villagers.values();
+    }
+
+    public void setLocked(UUID uuid, boolean locked) {
+        TrackedVillager tracked = villagers.get(uuid);
+        if (tracked != null) {
+            tracked.locked = locked;
+        }
+    }
+
+    public TrackedVillager findNearest(
+        double x,
+        double y,
+        double z,
+        double radius,
+        Predicate<TrackedVillager> filter
+    ) {
+        TrackedVillager nearest = null;
+        double nearestDistanceSq = radius * radius;
+
+        int minX = cell(x - radius), maxX = cell(x + radius);
+        int minY = cell(y - radius), maxY = cell(y + radius);
+        int minZ = cell(z - radius), maxZ = cell(z + radius);
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    List<TrackedVillager> bucket = cells.get(
+                        ChunkSectionPos.asLong(cx, cy, cz)
+                    );
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < bucket.size(); i++) {
+                        TrackedVillager tracked = bucket.get(i);
+                        double distanceSq = tracked.entity.squaredDistanceTo(
+                            x,
+                            y,
+                            z
+                        );
+                        if (
+                            distanceSq <= nearestDistanceSq &&
+                            tracked.isUsable() &&
+                            filter.test(tracked)
+                        ) {
+                            nearest = tracked;
+                            nearestDistanceSq = distanceSq;
+                        }
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    public List<TrackedVillager> findWithin(
+        double x,
+        double y,
+        double z,
+        double radius,
+        Predicate<TrackedVillager> filter
+    ) {
+        List<TrackedVillager> result = new ArrayList<>();
+        double radiusSq = radius * radius;
+
+        int minX = cell(x - radius), maxX = cell(x + radius);
+        int minY = cell(y - radius), maxY = cell(y + radius);
+        int minZ = cell(z - radius), maxZ = cell(z + radius);
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    List<TrackedVillager> bucket = cells.get(
+                        ChunkSectionPos.asLong(cx, cy, cz)
+                    );
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < bucket.size(); i++) {
+                        TrackedVillager tracked = bucket.get(i);
+                        if (
+                            tracked.entity.squaredDistanceTo(x, y, z) <=
+                                radiusSq &&
+                            tracked.isUsable() &&
+                            filter.test(tracked)
+                        ) {
+                            result.add(tracked);
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public void clear() {
+        villagers.clear();
+        cells.clear();
+    }
+
+    private void track(VillagerEntity villager) {
+        untrack(villager.getUuid());
+
+        TrackedVillager tracked = new TrackedVillager(villager);
+        tracked.refreshFlags();
+        tracked.cellKey = cellKey(villager);
+        villagers.put(tracked.uuid, tracked);
+        cells
+            .computeIfAbsent(tracked.cellKey, key -> new ArrayList<>())
+            .add(tracked);
+        VillagerReroller.getInstance()
+            .getSessionRecorder()
+            .recordVillagerLoaded(tracked.uuid, villager.getBlockPos());
+    }
+
+    private void untrack(UUID uuid) {
+        TrackedVillager tracked = villagers.remove(uuid);
+        if (tracked != null) {
+            removeFromCell(tracked);
+        }
+    }
+
+    // Villagers wander, so buckets are re-keyed every tick; the flags are
+    // cheap but not free and only change on rare events, so they refresh
+    // less often.
+    private void onClientTick(MinecraftClient client) {
+        if (villagers.isEmpty()) {
+            return;
+        }
+
+        boolean refreshFlags = ++ticksSinceFlagRefresh >= FLAG_REFRESH_TICKS;
+        if (refreshFlags) {
+            ticksSinceFlagRefresh = 0;
+        }
+
+        for (TrackedVillager tracked : villagers.values()) {
+            long key = cellKey(tracked.entity);
+            if (key != tracked.cellKey) {
+                removeFromCell(tracked);
+                tracked.cellKey = key;
+                cells.computeIfAbsent(key, k -> new ArrayList<>()).add(tracked);
+            }
+            if (refreshFlags) {
+                RegistryEntry<VillagerProfession> previous = tracked.profession;
+                tracked.refreshFlags();
+                if (!tracked.profession.equals(previous)) {
+                    VillagerReroller.getInstance()
+                        .getSessionRecorder()
+                        .recordProfession(
+                            tracked.uuid,
+                            tracked.getProfessionId()
+                        );
+                }
+            }
+        }
+    }
+
+    private void removeFromCell(TrackedVillager tracked) {
+        List<TrackedVillager> bucket = cells.get(tracked.cellKey);
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(tracked);
+        if (bucket.isEmpty()) {
+            cells.remove(tracked.cellKey);
+        }
+    }
+
+    private static long cellKey(VillagerEntity villager) {
+        return ChunkSectionPos.asLong(
+            villager.getBlockX() >> CELL_SHIFT,
+            villager.getBlockY() >> CELL_SHIFT,
+            villager.getBlockZ() >> CELL_SHIFT
+        );
+    }
+
+    private static int cell(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+    public static class TrackedVillager {
+
+        private final VillagerEntity entity;
+        private final UUID uuid;
+        private long cellKey;
+        private RegistryEntry<VillagerProfession> profession;
+        private boolean baby;
+        private boolean locked;
+
+        TrackedVillager(VillagerEntity entity) {
+            this.entity = entity;
+            this.uuid = entity.getUuid();
+        }
+
+        void refreshFlags() {
+            this.profession = entity.getVillagerData().profession();
+            this.baby = entity.isBaby();
+            this.locked =
+                LockDetector.fromVillager(entity) != LockDetector.Reason.NONE ||
+                VillagerReroller.getInstance().getOfferCatalog().isLocked(uuid);
+        }
+
+        boolean isUsable() {
+            return entity.isAlive() && !entity.isRemoved();
+        }
+
+        public VillagerEntity getEntity() {
+            return entity;
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        public RegistryEntry<VillagerProfession> getProfession() {
+            return profession;
+        }
+
+        public String getProfessionId() {
+            return profession
+                .getKey()
+                .map(key -> key.getValue().toString())
+                .orElse("minecraft:none");
+        }
+
+        public boolean isUnemployed() {
+            return profession.matchesKey(VillagerProfession.NONE);
+        }
+
+        public boolean isNitwit() {
+            return profession.matchesKey(VillagerProfession.NITWIT);
+        }
+
+        public boolean isEmployed() {
+            return !isUnemployed() && !isNitwit();
+        }
+
+        public boolean isBaby() {
+            return baby;
+        }
+
+        public boolean isLocked() {
+            return locked;
+        }
+    }
+}
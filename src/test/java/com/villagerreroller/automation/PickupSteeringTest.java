@@ -0,0 +1,93 @@
+package com.villagerreroller.automation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.villagerreroller.stats.TickCostMeter;
+import java.lang.management.ManagementFactory;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Runs JobSiteHandler's pickup tick against PickupSimulation's player:
+// walking to a drop, getting blocked for a while, jumping, and moving on to
+// the next drop. Fails the build when a tick allocates more than the budget
+// TickCostMeter warns about in game.
+class PickupSteeringTest {
+
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 20_000;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    void pickupTicksStayWithinAllocationBudget() {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        assumeTrue(threads != null, "allocation counting not supported");
+
+        PickupSimulation walk = new PickupSimulation(new JobSiteHandler());
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            walk.tick();
+        }
+
+        int dropsBefore = walk.getDrops();
+        long startBytes = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            walk.tick();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - startBytes;
+
+        double bytesPerTick = (double) allocated / MEASURED_TICKS;
+        assertTrue(
+            walk.getDrops() > dropsBefore + 1,
+            "simulation never reached a drop"
+        );
+        assertTrue(
+            bytesPerTick <= TickCostMeter.ALLOCATION_BUDGET_BYTES,
+            String.format(
+                "%.1f B per pickup tick, budget %d B",
+                bytesPerTick,
+                TickCostMeter.ALLOCATION_BUDGET_BYTES
+            )
+        );
+    }
+
+    @Test
+    void blockedPlayerIsReportedStuck() {
+        PickupSimulation walk = new PickupSimulation(new JobSiteHandler());
+        PickupSteering steering = new PickupSteering();
+        long now = 0;
+        for (int i = 0; i < 40; i++) {
+            steering.track(
+                walk.getX(),
+                walk.getY(),
+                walk.getZ(),
+                walk.distance(),
+                now
+            );
+            now += PickupSimulation.TICK_MS;
+        }
+        assertTrue(steering.isStuck());
+
+        steering.clearStuck();
+        assertEquals(0, steering.getStuckTicks());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (
+            ManagementFactory.getThreadMXBean() instanceof
+                com.sun.management.ThreadMXBean threads &&
+            threads.isThreadAllocatedMemorySupported()
+        ) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+}